@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+# Compares the servlet and reactive stacks under increasing connection counts.
+#
+# Start both applications against the same database first, for example:
+#   mvn spring-boot:run -Dspring-boot.run.arguments=--server.port=3001
+#   mvn -Preactive spring-boot:run -Dspring-boot.run.arguments=--server.port=3002
+#
+# Usage: scripts/compare-stacks.sh <jwt-token> [servlet-url] [reactive-url]
+# Requires hey (https://github.com/rakyll/hey).
+#
+# The results are printed and saved, with the settings and the commit they were measured on, to
+# benchmarks/compare-stacks-<date>.txt (or RESULTS_FILE): commit that file with any conclusion drawn from it.
+
+set -euo pipefail
+
+TOKEN="${1:?Usage: $0 <jwt-token> [servlet-url] [reactive-url]}"
+SERVLET_URL="${2:-http://localhost:3001}"
+REACTIVE_URL="${3:-http://localhost:3002}"
+DURATION="${DURATION:-30s}"
+CONCURRENCY_LEVELS="${CONCURRENCY_LEVELS:-50 200 1000 4000}"
+MESSAGE='{"rental_id": 1, "user_id": 1, "message": "Load test message"}'
+RESULTS_FILE="${RESULTS_FILE:-benchmarks/compare-stacks-$(date +%Y%m%d-%H%M%S).txt}"
+
+mkdir -p "$(dirname "${RESULTS_FILE}")"
+exec > >(tee "${RESULTS_FILE}")
+
+echo "# Commit: $(git rev-parse --short HEAD 2>/dev/null || echo unknown)"
+echo "# Date: $(date -u +%Y-%m-%dT%H:%M:%SZ)"
+echo "# Duration: ${DURATION}, connections: ${CONCURRENCY_LEVELS}"
+echo "# Servlet: ${SERVLET_URL}, reactive: ${REACTIVE_URL}"
+echo
+
+run() {
+  local name="$1" url="$2" concurrency="$3"
+  shift 3
+  echo "### ${name} - ${url} - ${concurrency} connections"
+  hey -z "${DURATION}" -c "${concurrency}" -H "Authorization: Bearer ${TOKEN}" "$@" "${url}" \
+    | grep -E "Requests/sec|Average|Slowest|50%|95%|99%|\[[0-9]{3}\]"
+  echo
+}
+
+for concurrency in ${CONCURRENCY_LEVELS}; do
+  for stack in servlet reactive; do
+    base="${SERVLET_URL}"
+    [ "${stack}" = "reactive" ] && base="${REACTIVE_URL}"
+
+    run "${stack} GET /api/rentals" "${base}/api/rentals" "${concurrency}"
+    run "${stack} GET /api/rentals/1" "${base}/api/rentals/1" "${concurrency}"
+    run "${stack} POST /api/messages" "${base}/api/messages" "${concurrency}" \
+      -m POST -T "application/json" -d "${MESSAGE}"
+  done
+done
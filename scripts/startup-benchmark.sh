@@ -0,0 +1,83 @@
+#!/usr/bin/env bash
+# Compares the startup time of the application in its different run modes.
+#
+# Build first:
+#   mvn -Pfast-start package -DskipTests      (JVM, AOT and CDS modes)
+#   mvn -Pnative native:compile -DskipTests   (native mode, requires GraalVM)
+#
+# The database configured in src/main/resources/application.properties must be reachable,
+# since every mode starts the full application.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+
+set -euo pipefail
+
+RUNS="${1:-5}"
+JAR="$(ls target/chatop-*.jar | grep -v plain | head -n 1)"
+EXTRACTED="target/extracted"
+NATIVE="target/chatop"
+CHECKPOINT="target/crac-checkpoint"
+
+# Starts a command, waits for the startup log line, stops it and prints the startup time in seconds
+measure() {
+  local log
+  log="$(mktemp)"
+  "$@" > "${log}" 2>&1 &
+  local pid=$!
+
+  for _ in $(seq 1 600); do
+    if grep -qE "Started ChatopApplication|Restored ChatopApplication" "${log}"; then
+      break
+    fi
+    if ! kill -0 "${pid}" 2>/dev/null; then
+      echo "failed, see ${log}" >&2
+      return 1
+    fi
+    sleep 0.1
+  done
+
+  kill "${pid}" 2>/dev/null || true
+  wait "${pid}" 2>/dev/null || true
+  grep -oE "(process running for|restored JVM running for) [0-9.]+" "${log}" | grep -oE "[0-9.]+$" | tail -n 1
+  rm -f "${log}"
+}
+
+bench() {
+  local name="$1"
+  shift
+  local total=0
+  for _ in $(seq 1 "${RUNS}"); do
+    local seconds
+    seconds="$(measure "$@")"
+    total="$(echo "${total} + ${seconds}" | bc -l)"
+  done
+  printf "%-12s %6.3f s (average of %d runs)\n" "${name}" "$(echo "${total} / ${RUNS}" | bc -l)" "${RUNS}"
+}
+
+bench "jvm" java -jar "${JAR}"
+
+if [ -d target/spring-aot ]; then
+  bench "jvm+aot" java -Dspring.aot.enabled=true -jar "${JAR}"
+
+  # Class Data Sharing: extract the jar, record the loaded classes during a training run, then reuse the archive
+  if [ ! -f "${EXTRACTED}/application.jsa" ]; then
+    rm -rf "${EXTRACTED}"
+    java -Djarmode=tools -jar "${JAR}" extract --destination "${EXTRACTED}"
+    (cd "${EXTRACTED}" && java -XX:ArchiveClassesAtExit=application.jsa -Dspring.aot.enabled=true \
+      -Dspring.context.exit=onRefresh -jar "$(basename "${JAR}")")
+  fi
+  bench "jvm+aot+cds" java -XX:SharedArchiveFile="${EXTRACTED}/application.jsa" -Dspring.aot.enabled=true \
+    -jar "${EXTRACTED}/$(basename "${JAR}")"
+fi
+
+if [ -x "${NATIVE}" ]; then
+  bench "native" "${NATIVE}"
+fi
+
+# CRaC: only on a CRaC-enabled JDK (for example Azul Zulu with CRaC)
+if java -XX:CRaCCheckpointTo=/tmp/crac-probe -version > /dev/null 2>&1; then
+  if [ ! -d "${CHECKPOINT}" ]; then
+    java -XX:CRaCCheckpointTo="${CHECKPOINT}" -Dspring.context.checkpoint=onRefresh -jar "${JAR}" || true
+  fi
+  bench "crac" java -XX:CRaCRestoreFrom="${CHECKPOINT}"
+fi
@@ -0,0 +1,153 @@
+package com.openclassrooms.chatop.loadtest;
+
+import com.openclassrooms.chatop.configuration.JwtUtils;
+import com.openclassrooms.chatop.model.Message;
+import com.openclassrooms.chatop.model.Picture;
+import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.MessageRepository;
+import com.openclassrooms.chatop.repository.PictureRepository;
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+import com.openclassrooms.chatop.service.PictureService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Fills the database through the repositories with a reproducible dataset: users, rentals with
+ * pictures whose sizes follow a log-normal distribution around {@code loadtest.picture-median-kb}
+ * (like photos uploaded from phones), and messages.
+ */
+@RequiredArgsConstructor
+public class DataSeeder {
+
+    private static final String PASSWORD = "load-test-password";
+    private static final int BATCH_SIZE = 100;
+    private static final int MIN_PICTURE_BYTES = 10 * 1024;
+    private static final int MAX_PICTURE_BYTES = 2 * 1024 * 1024;
+
+    private final UserRepository userRepository;
+    private final RentalRepository rentalRepository;
+    private final PictureRepository pictureRepository;
+    private final MessageRepository messageRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final JwtUtils jwtUtils;
+    private final LoadTestSettings settings;
+
+    /**
+     * Creates the dataset.
+     *
+     * @return the created users, with a token each, and the IDs of the created rentals
+     */
+    public SeededData seed() {
+        Random random = new Random(settings.getSeed());
+
+        // Hashing is deliberately slow: every seeded user shares the same hash
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < settings.getUsers(); i++) {
+            User user = new User();
+            user.setName("Load test user " + i);
+            user.setEmail("user" + i + "@load.test");
+            user.setPassword(passwordHash);
+            users.add(user);
+        }
+        users = saveInBatches(users, userRepository::saveAll);
+
+        List<Picture> pictures = new ArrayList<>();
+        for (int i = 0; i < settings.getRentals(); i++) {
+            pictures.add(picture(random));
+        }
+        pictures = saveInBatches(pictures, pictureRepository::saveAll);
+
+        List<Rental> rentals = new ArrayList<>();
+        for (int i = 0; i < settings.getRentals(); i++) {
+            Rental rental = new Rental();
+            rental.setName("Rental " + i);
+            rental.setSurface(20 + random.nextInt(180));
+            rental.setPrice(BigDecimal.valueOf(300 + random.nextInt(2700)));
+            rental.setDescription("Description of rental " + i + ". ".repeat(1 + random.nextInt(50)));
+            rental.setLatitude(43 + random.nextDouble() * 6);
+            rental.setLongitude(-1 + random.nextDouble() * 8);
+            rental.setPicture(pictures.get(i));
+            rental.setOwner(users.get(random.nextInt(users.size())));
+            rentals.add(rental);
+        }
+        rentals = saveInBatches(rentals, rentalRepository::saveAll);
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < settings.getMessages(); i++) {
+            Message message = new Message();
+            message.setUser(users.get(random.nextInt(users.size())));
+            message.setRental(rentals.get(random.nextInt(rentals.size())));
+            message.setMessage("Hello, is this rental still available? (" + i + ")");
+            messages.add(message);
+        }
+        saveInBatches(messages, messageRepository::saveAll);
+
+        Map<Long, List<Long>> rentalIdsByOwner = new HashMap<>();
+        rentals.forEach(rental -> rentalIdsByOwner
+                .computeIfAbsent(rental.getOwnerId(), id -> new ArrayList<>())
+                .add(rental.getId()));
+
+        List<SeededData.SeededUser> seededUsers = users.stream()
+                .map(user -> new SeededData.SeededUser(
+                        user.getId(),
+                        user.getEmail(),
+                        jwtUtils.generateToken(UsernamePasswordAuthenticationToken.authenticated(
+                                user.getEmail(), null, Collections.emptyList()
+                        )),
+                        rentalIdsByOwner.getOrDefault(user.getId(), List.of())
+                ))
+                .toList();
+
+        return new SeededData(seededUsers, rentals.stream().map(Rental::getId).toList(), PASSWORD);
+    }
+
+    /**
+     * Generates a random picture, sized from a log-normal distribution, referenced by one rental.
+     */
+    private Picture picture(Random random) {
+        double size = settings.getPictureMedianKb() * 1024.0 * Math.exp(0.6 * random.nextGaussian());
+        byte[] data = new byte[(int) Math.max(MIN_PICTURE_BYTES, Math.min(MAX_PICTURE_BYTES, size))];
+        random.nextBytes(data);
+
+        Picture picture = new Picture();
+        try {
+            picture.setHash(PictureService.hash(new ByteArrayResource(data)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        picture.setData(data);
+        picture.setSize(data.length);
+        picture.setCreated_at(LocalDateTime.now());
+        return picture;
+    }
+
+    private static <T> List<T> saveInBatches(List<T> entities, Function<List<T>, List<T>> saveAll) {
+        List<T> saved = new ArrayList<>(entities.size());
+
+        for (int from = 0; from < entities.size(); from += BATCH_SIZE) {
+            saved.addAll(saveAll.apply(entities.subList(from, Math.min(entities.size(), from + BATCH_SIZE))));
+        }
+
+        return saved;
+    }
+}
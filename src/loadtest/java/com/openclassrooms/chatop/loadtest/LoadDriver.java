@@ -0,0 +1,176 @@
+package com.openclassrooms.chatop.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@code loadtest.concurrency} virtual users, each sending requests back to back, picked at
+ * random according to the traffic mix. Latencies are recorded in HDR histograms once the warmup
+ * is over.
+ * <p>
+ * Virtual users wait for each response before sending the next request (closed model): when the
+ * server slows down, fewer requests are sent, so compare throughput as well as percentiles.
+ * <p>
+ * The heap used by the JVM, which also runs the application, is sampled during the measured phase:
+ * its maximum shows whether a change (such as larger uploads) makes memory usage grow with the load.
+ */
+@Slf4j
+public class LoadDriver {
+
+    private static final long MAX_RECORDED_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final long HEAP_SAMPLING_MILLIS = 200;
+
+    private final LoadTestSettings settings;
+    private final URI baseUri;
+    private final SeededData data;
+    private final Map<Operation, Recorder> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final AtomicLong maxHeapUsed = new AtomicLong();
+
+    public LoadDriver(LoadTestSettings settings, URI baseUri, SeededData data) {
+        this.settings = settings;
+        this.baseUri = baseUri;
+        this.data = data;
+        settings.getMix().keySet().forEach(operation -> {
+            latencies.put(operation, new Recorder(MAX_RECORDED_NANOS, 3));
+            errors.put(operation, new LongAdder());
+        });
+    }
+
+    /**
+     * Runs the warmup then the measured phase.
+     *
+     * @return the report of the measured phase
+     * @throws InterruptedException if interrupted while waiting for the virtual users
+     */
+    public LoadReport run() throws InterruptedException {
+        Operation[] wheel = wheel(settings.getMix());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        AtomicLong registrations = new AtomicLong();
+        long runId = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long measureFrom = start + settings.getWarmup().toNanos();
+        long end = measureFrom + settings.getDuration().toNanos();
+
+        log.info("Warming up for {}, then measuring for {}", settings.getWarmup(), settings.getDuration());
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getConcurrency());
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            Random random = new Random(settings.getSeed() + i);
+            Operation.Context context = new Operation.Context(baseUri, data, random, registrations, runId,
+                    settings.getPictureMedianKb() * 1024);
+            executor.execute(() -> virtualUser(client, context, random, wheel, measureFrom, end));
+        }
+        executor.shutdown();
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ScheduledExecutorService heapSampler = Executors.newSingleThreadScheduledExecutor();
+        heapSampler.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() >= measureFrom) {
+                maxHeapUsed.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+            }
+        }, 0, HEAP_SAMPLING_MILLIS, TimeUnit.MILLISECONDS);
+
+        executor.awaitTermination(settings.getWarmup().plus(settings.getDuration()).toSeconds() + 120, TimeUnit.SECONDS);
+        heapSampler.shutdownNow();
+
+        return report(Duration.ofNanos(end - measureFrom));
+    }
+
+    private void virtualUser(HttpClient client, Operation.Context context, Random random,
+                             Operation[] wheel, long measureFrom, long end) {
+        while (System.nanoTime() < end) {
+            Operation operation = wheel[random.nextInt(wheel.length)];
+            HttpRequest request = operation.request(context);
+            long sentAt = System.nanoTime();
+            boolean success;
+
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() / 100 == 2;
+            } catch (Exception e) {
+                success = false;
+            }
+
+            long receivedAt = System.nanoTime();
+
+            if (sentAt >= measureFrom && receivedAt <= end) {
+                latencies.get(operation).recordValue(Math.min(receivedAt - sentAt, MAX_RECORDED_NANOS));
+                if (!success) {
+                    errors.get(operation).increment();
+                }
+            }
+        }
+    }
+
+    private LoadReport report(Duration measured) {
+        double seconds = measured.toNanos() / 1e9;
+        List<LoadReport.OperationResult> results = new ArrayList<>();
+
+        latencies.forEach((operation, recorder) -> {
+            Histogram histogram = recorder.getIntervalHistogram();
+            results.add(new LoadReport.OperationResult(
+                    operation.name().toLowerCase(),
+                    histogram.getTotalCount(),
+                    errors.get(operation).sum(),
+                    histogram.getTotalCount() / seconds,
+                    millis(histogram.getValueAtPercentile(50)),
+                    millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue())
+            ));
+        });
+
+        String mix = settings.getMix().entrySet().stream()
+                .map(entry -> entry.getKey().name().toLowerCase() + ":" + entry.getValue())
+                .collect(Collectors.joining(","));
+
+        return new LoadReport(settings.getLabel(), Instant.now().toString(), seconds,
+                settings.getConcurrency(), mix, maxHeapUsed.get() / (1024.0 * 1024), results);
+    }
+
+    /**
+     * Expands the mix into an array where each operation appears as many times as its weight.
+     */
+    private static Operation[] wheel(Map<Operation, Integer> mix) {
+        List<Operation> wheel = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                wheel.add(operation);
+            }
+        });
+        return wheel.toArray(Operation[]::new);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
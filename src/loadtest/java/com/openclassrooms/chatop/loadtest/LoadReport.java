@@ -0,0 +1,118 @@
+package com.openclassrooms.chatop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Throughput and latency percentiles of a load test run, per operation, and the maximum heap used. Reports are saved as JSON
+ * so that a run can be compared with the report of another commit.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private String label;
+    private String startedAt;
+    private double durationSeconds;
+    private int concurrency;
+    private String mix;
+    private double maxHeapUsedMb;
+    private List<OperationResult> operations = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OperationResult {
+        private String operation;
+        private long requests;
+        private long errors;
+        private double throughput;
+        private double p50Millis;
+        private double p90Millis;
+        private double p99Millis;
+        private double p999Millis;
+        private double maxMillis;
+    }
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+
+    /**
+     * Reads a report written by {@link #write(Path)}.
+     *
+     * @param file the file to read
+     * @return the report
+     * @throws IOException if the file cannot be read
+     */
+    public static LoadReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadReport.class);
+    }
+
+    /**
+     * Prints the report as a table, with the relative change of the throughput and of the 99th
+     * percentile against a baseline report when one is given.
+     *
+     * @param out      the stream to print to
+     * @param baseline the report to compare with, or null
+     */
+    public void print(PrintStream out, LoadReport baseline) {
+        Map<String, OperationResult> baselineResults = baseline == null
+                ? Map.of()
+                : baseline.getOperations().stream().collect(Collectors.toMap(OperationResult::getOperation, Function.identity()));
+
+        out.printf("%nLoad test '%s' : %d virtual users, %.0fs, mix %s%n", label, concurrency, durationSeconds, mix);
+        if (baseline != null) {
+            out.printf("Compared with '%s' (%s)%n", baseline.getLabel(), baseline.getStartedAt());
+        }
+        out.printf("%-10s %9s %7s %10s %9s %9s %9s %9s %9s%s%n",
+                "operation", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                baseline != null ? "  req/s chg  p99 chg" : "");
+
+        for (OperationResult result : operations) {
+            out.printf("%-10s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f",
+                    result.getOperation(), result.getRequests(), result.getErrors(), result.getThroughput(),
+                    result.getP50Millis(), result.getP90Millis(), result.getP99Millis(), result.getP999Millis(),
+                    result.getMaxMillis());
+
+            OperationResult previous = baselineResults.get(result.getOperation());
+            if (previous != null) {
+                out.printf(" %+9.1f%% %+7.1f%%",
+                        change(previous.getThroughput(), result.getThroughput()),
+                        change(previous.getP99Millis(), result.getP99Millis()));
+            }
+            out.println();
+        }
+
+        out.printf("Max heap used : %.0f MB%s%n", maxHeapUsedMb,
+                baseline != null ? String.format(" (%+.1f%%)", change(baseline.getMaxHeapUsedMb(), maxHeapUsedMb)) : "");
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
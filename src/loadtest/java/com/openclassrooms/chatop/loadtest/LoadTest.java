@@ -0,0 +1,94 @@
+package com.openclassrooms.chatop.loadtest;
+
+import com.openclassrooms.chatop.ChatopApplication;
+import com.openclassrooms.chatop.configuration.JwtUtils;
+import com.openclassrooms.chatop.repository.MessageRepository;
+import com.openclassrooms.chatop.repository.PictureRepository;
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the application on an embedded H2 database, seeds it and runs the load test against its
+ * HTTP endpoints. Run with {@code mvn -Pload-test compile exec:java}; see the README for the
+ * {@code loadtest.*} settings. Any {@code spring.*} or {@code app.*} system property overrides the
+ * defaults below, for example to run against a MySQL database.
+ */
+@Slf4j
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+
+        try (ConfigurableApplicationContext context = start(args)) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            SeededData data = seed(context, settings);
+
+            LoadReport report = new LoadDriver(settings, URI.create("http://localhost:" + port), data).run();
+
+            Path output = Path.of(settings.getOutputDirectory(), "report-" + settings.getLabel() + ".json");
+            report.write(output);
+
+            LoadReport baseline = settings.getBaseline() != null ? LoadReport.read(Path.of(settings.getBaseline())) : null;
+            report.print(System.out, baseline);
+            System.out.printf("%nReport written to %s%n", output);
+        }
+    }
+
+    /**
+     * Starts the application on a random port, with the load test defaults.
+     *
+     * @param args the command line arguments
+     * @return the started application
+     */
+    static ConfigurableApplicationContext start(String[] args) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("server.port", 0);
+        defaults.put("spring.profiles.active", "prod");
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("app.secret-key", UUID.randomUUID() + "-" + UUID.randomUUID());
+        defaults.put("app.jwt.expiration", 86400);
+        // Every virtual user comes from the same IP: the login rate limit would only measure rejections
+        defaults.put("app.rate-limit.ip.capacity", Integer.MAX_VALUE);
+        defaults.put("app.rate-limit.email.capacity", Integer.MAX_VALUE);
+        defaults.put("logging.level.root", "WARN");
+        defaults.put("logging.level.com.openclassrooms.chatop.loadtest", "INFO");
+
+        SpringApplication application = new SpringApplication(ChatopApplication.class);
+        application.setDefaultProperties(defaults);
+        return application.run(args);
+    }
+
+    /**
+     * Seeds the database of a started application.
+     *
+     * @param context  the started application
+     * @param settings the size of the dataset
+     * @return the seeded users and rentals
+     */
+    static SeededData seed(ConfigurableApplicationContext context, LoadTestSettings settings) {
+        log.info("Seeding {} users, {} rentals and {} messages", settings.getUsers(), settings.getRentals(), settings.getMessages());
+        return new DataSeeder(
+                context.getBean(UserRepository.class),
+                context.getBean(RentalRepository.class),
+                context.getBean(PictureRepository.class),
+                context.getBean(MessageRepository.class),
+                context.getBean(PasswordEncoder.class),
+                context.getBean(JwtUtils.class),
+                settings
+        ).seed();
+    }
+}
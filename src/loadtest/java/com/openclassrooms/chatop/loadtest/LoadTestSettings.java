@@ -0,0 +1,73 @@
+package com.openclassrooms.chatop.loadtest;
+
+import lombok.Getter;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, read from the {@code loadtest.*} system properties.
+ */
+@Getter
+public class LoadTestSettings {
+
+    private static final String DEFAULT_MIX = "get:40,list:5,message:20,login:10,me:10,update:10,register:5";
+
+    private final int users = intProperty("loadtest.users", 200);
+    private final int rentals = intProperty("loadtest.rentals", 300);
+    private final int messages = intProperty("loadtest.messages", 1000);
+    private final int pictureMedianKb = intProperty("loadtest.picture-median-kb", 150);
+    private final int concurrency = intProperty("loadtest.concurrency", 32);
+    private final Duration warmup = durationProperty("loadtest.warmup", "10s");
+    private final Duration duration = durationProperty("loadtest.duration", "60s");
+    private final long seed = intProperty("loadtest.seed", 42);
+    private final Map<Operation, Integer> mix = parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX));
+    private final String label = System.getProperty("loadtest.label", "local");
+    private final String outputDirectory = System.getProperty("loadtest.output", "target/load-test");
+    private final String baseline = System.getProperty("loadtest.baseline");
+    private final List<Integer> poolSizes = intListProperty("loadtest.pool-sizes", "2,4,8,16,32");
+    private final List<Integer> poolConcurrencies = intListProperty("loadtest.pool-concurrency", "4,16,64");
+    private final Duration poolStep = durationProperty("loadtest.pool-step", "5s");
+
+    /**
+     * Parses a traffic mix such as {@code get:40,list:5,message:20}.
+     *
+     * @param mix the comma-separated list of operation names and weights
+     * @return the weight of each operation
+     */
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry : " + entry);
+            }
+
+            weights.put(Operation.fromName(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+        }
+
+        return weights;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.parseInt(System.getProperty(name, String.valueOf(defaultValue)));
+    }
+
+    private static List<Integer> intListProperty(String name, String defaultValue) {
+        return Arrays.stream(System.getProperty(name, defaultValue).split(","))
+                .map(value -> Integer.parseInt(value.trim()))
+                .sorted()
+                .toList();
+    }
+
+    private static Duration durationProperty(String name, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(name, defaultValue));
+    }
+}
@@ -0,0 +1,216 @@
+package com.openclassrooms.chatop.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Requests sent by the virtual users, each going through the real endpoints.
+ */
+public enum Operation {
+
+    REGISTER {
+        @Override
+        HttpRequest request(Context context) {
+            long id = context.registrations.incrementAndGet();
+            return json(context.uri("/api/auth/register"), null, """
+                    {"email":"new%d-%d@load.test","name":"New user %d","password":"%s"}
+                    """.formatted(context.runId, id, id, context.data.getPassword()));
+        }
+    },
+
+    LOGIN {
+        @Override
+        HttpRequest request(Context context) {
+            SeededData.SeededUser user = context.randomUser();
+            return json(context.uri("/api/auth/login"), null, """
+                    {"email":"%s","password":"%s"}
+                    """.formatted(user.getEmail(), context.data.getPassword()));
+        }
+    },
+
+    ME {
+        @Override
+        HttpRequest request(Context context) {
+            return get(context.uri("/api/auth/me"), context.randomUser());
+        }
+    },
+
+    LIST {
+        @Override
+        HttpRequest request(Context context) {
+            return get(context.uri("/api/rentals"), context.randomUser());
+        }
+    },
+
+    GET {
+        @Override
+        HttpRequest request(Context context) {
+            return get(context.uri("/api/rentals/" + context.randomRentalId()), context.randomUser());
+        }
+    },
+
+    UPDATE {
+        @Override
+        HttpRequest request(Context context) {
+            SeededData.SeededUser user = context.randomOwner();
+            List<Long> ownedRentalIds = user.getOwnedRentalIds();
+            long rentalId = ownedRentalIds.get(context.random.nextInt(ownedRentalIds.size()));
+
+            String form = "name=" + encode("Updated rental " + rentalId)
+                    + "&surface=" + (20 + context.random.nextInt(180))
+                    + "&price=" + (300 + context.random.nextInt(2700))
+                    + "&description=" + encode("Updated description");
+
+            return HttpRequest.newBuilder(context.uri("/api/rentals/" + rentalId))
+                    .header("Authorization", "Bearer " + user.getToken())
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .PUT(HttpRequest.BodyPublishers.ofString(form))
+                    .build();
+        }
+    },
+
+    CREATE {
+        @Override
+        HttpRequest request(Context context) {
+            SeededData.SeededUser user = context.randomUser();
+            String boundary = "loadtest" + Long.toHexString(context.random.nextLong());
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(context.pictureBytes + 1024);
+            field(body, boundary, "name", "New rental");
+            field(body, boundary, "surface", String.valueOf(20 + context.random.nextInt(180)));
+            field(body, boundary, "price", String.valueOf(300 + context.random.nextInt(2700)));
+            field(body, boundary, "description", "Created during the load test");
+            write(body, "--" + boundary + "\r\n"
+                    + "Content-Disposition: form-data; name=\"picture\"; filename=\"picture.jpg\"\r\n"
+                    + "Content-Type: image/jpeg\r\n\r\n");
+            body.writeBytes(context.randomPicture());
+            write(body, "\r\n--" + boundary + "--\r\n");
+
+            return HttpRequest.newBuilder(context.uri("/api/rentals"))
+                    .header("Authorization", "Bearer " + user.getToken())
+                    .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+        }
+    },
+
+    MESSAGE {
+        @Override
+        HttpRequest request(Context context) {
+            SeededData.SeededUser user = context.randomUser();
+            return json(context.uri("/api/messages"), user, """
+                    {"rental_id":%d,"user_id":%d,"message":"Is it still available?"}
+                    """.formatted(context.randomRentalId(), user.getId()));
+        }
+    };
+
+    /**
+     * Builds the next request of this operation.
+     *
+     * @param context the state shared by the requests of a virtual user
+     * @return the request to send
+     */
+    abstract HttpRequest request(Context context);
+
+    /**
+     * Finds an operation by its name in a traffic mix.
+     *
+     * @param name the name of the operation, such as {@code get} or {@code message}
+     * @return the operation
+     */
+    static Operation fromName(String name) {
+        return valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    private static HttpRequest get(URI uri, SeededData.SeededUser user) {
+        return HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + user.getToken())
+                .GET()
+                .build();
+    }
+
+    private static HttpRequest json(URI uri, SeededData.SeededUser user, String body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body.strip()));
+
+        if (user != null) {
+            builder.header("Authorization", "Bearer " + user.getToken());
+        }
+
+        return builder.build();
+    }
+
+    private static void field(ByteArrayOutputStream body, String boundary, String name, String value) {
+        write(body, "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"" + name + "\"\r\n\r\n"
+                + value + "\r\n");
+    }
+
+    private static void write(ByteArrayOutputStream body, String text) {
+        body.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * State of a virtual user: its random generator and the data it picks from.
+     */
+    static class Context {
+        private final URI baseUri;
+        private final SeededData data;
+        private final List<SeededData.SeededUser> owners;
+        private final Random random;
+        private final AtomicLong registrations;
+        private final long runId;
+        private final int pictureBytes;
+
+        Context(URI baseUri, SeededData data, Random random, AtomicLong registrations, long runId, int pictureBytes) {
+            this.baseUri = baseUri;
+            this.data = data;
+            this.owners = data.getUsers().stream().filter(user -> !user.getOwnedRentalIds().isEmpty()).toList();
+            this.random = random;
+            this.registrations = registrations;
+            this.runId = runId;
+            this.pictureBytes = pictureBytes;
+        }
+
+        private URI uri(String path) {
+            return baseUri.resolve(path);
+        }
+
+        private SeededData.SeededUser randomUser() {
+            return data.getUsers().get(random.nextInt(data.getUsers().size()));
+        }
+
+        private SeededData.SeededUser randomOwner() {
+            return owners.get(random.nextInt(owners.size()));
+        }
+
+        /**
+         * Generates a new picture of {@code loadtest.picture-median-kb}, starting with the JPEG signature
+         * so that it is accepted, with random content so that it is never already stored.
+         */
+        private byte[] randomPicture() {
+            byte[] picture = new byte[pictureBytes];
+            random.nextBytes(picture);
+            picture[0] = (byte) 0xFF;
+            picture[1] = (byte) 0xD8;
+            picture[2] = (byte) 0xFF;
+            return picture;
+        }
+
+        private long randomRentalId() {
+            return data.getRentalIds().get(random.nextInt(data.getRentalIds().size()));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.openclassrooms.chatop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Measures the hot queries (user by email, rental by ID, rental list) through the repositories, for every
+ * combination of connection pool size ({@code loadtest.pool-sizes}) and number of concurrent threads
+ * ({@code loadtest.pool-concurrency}), so that {@code spring.datasource.hikari.maximum-pool-size} is chosen
+ * from measurements. Each step runs for {@code loadtest.pool-step} after a short warmup.
+ * <p>
+ * Run with {@code mvn -Pload-test compile exec:java -Dexec.mainClass=com.openclassrooms.chatop.loadtest.PoolSizeBenchmark},
+ * against the production database engine (see {@link LoadTest} for overriding the data source): the embedded
+ * H2 database does not wait on the network nor on disk, so it favors small pools.
+ */
+@Slf4j
+public class PoolSizeBenchmark {
+
+    private static final long STEP_WARMUP_MILLIS = 1000;
+    private static final long MAX_RECORDED_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+
+        try (ConfigurableApplicationContext context = LoadTest.start(args)) {
+            SeededData data = LoadTest.seed(context, settings);
+            HikariDataSource pool = context.getBean(DataSource.class).unwrap(HikariDataSource.class);
+
+            UserRepository userRepository = context.getBean(UserRepository.class);
+            RentalRepository rentalRepository = context.getBean(RentalRepository.class);
+            TransactionTemplate readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            readOnly.setReadOnly(true);
+
+            Map<String, Consumer<Random>> queries = new LinkedHashMap<>();
+            queries.put("find_by_email", random -> userRepository.findByEmail(
+                    data.getUsers().get(random.nextInt(data.getUsers().size())).getEmail()));
+            queries.put("find_by_id", random -> readOnly.executeWithoutResult(status -> rentalRepository.findById(
+                    data.getRentalIds().get(random.nextInt(data.getRentalIds().size())))));
+            queries.put("rental_list", random -> readOnly.executeWithoutResult(status -> rentalRepository.findAll()));
+
+            List<StepResult> results = new ArrayList<>();
+
+            // Increasing sizes only: a Hikari pool grows at once, but only shrinks when idle connections expire
+            for (int poolSize : settings.getPoolSizes()) {
+                pool.getHikariConfigMXBean().setMaximumPoolSize(poolSize);
+                pool.getHikariConfigMXBean().setMinimumIdle(poolSize);
+
+                for (int concurrency : settings.getPoolConcurrencies()) {
+                    for (Map.Entry<String, Consumer<Random>> query : queries.entrySet()) {
+                        log.info("Pool of {} connections, {} threads : {}", poolSize, concurrency, query.getKey());
+                        results.add(step(settings, poolSize, concurrency, query.getKey(), query.getValue()));
+                    }
+                }
+            }
+
+            Path output = Path.of(settings.getOutputDirectory(), "pool-sizes-" + settings.getLabel() + ".json");
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), results);
+
+            print(results);
+            System.out.printf("%nResults written to %s%n", output);
+        }
+    }
+
+    /**
+     * Runs a query back to back from {@code concurrency} threads, recording latencies after the warmup.
+     */
+    private static StepResult step(LoadTestSettings settings, int poolSize, int concurrency,
+                                   String query, Consumer<Random> execution) throws InterruptedException {
+        Recorder latencies = new Recorder(MAX_RECORDED_NANOS, 3);
+        LongAdder errors = new LongAdder();
+        long measureFrom = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STEP_WARMUP_MILLIS);
+        long end = measureFrom + settings.getPoolStep().toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Random random = new Random(settings.getSeed() + i);
+            executor.execute(() -> {
+                while (System.nanoTime() < end) {
+                    long startedAt = System.nanoTime();
+                    boolean success = true;
+
+                    try {
+                        execution.accept(random);
+                    } catch (RuntimeException e) {
+                        success = false;
+                    }
+
+                    long endedAt = System.nanoTime();
+
+                    if (startedAt >= measureFrom && endedAt <= end) {
+                        latencies.recordValue(Math.min(endedAt - startedAt, MAX_RECORDED_NANOS));
+                        if (!success) {
+                            errors.increment();
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(settings.getPoolStep().toSeconds() + 120, TimeUnit.SECONDS);
+
+        Histogram histogram = latencies.getIntervalHistogram();
+        double seconds = settings.getPoolStep().toNanos() / 1e9;
+
+        return new StepResult(poolSize, concurrency, query, histogram.getTotalCount(), errors.sum(),
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1e6,
+                histogram.getValueAtPercentile(99) / 1e6);
+    }
+
+    /**
+     * Prints the results of each query as a table, marking for each concurrency the smallest pool
+     * reaching at least 95% of the best throughput: larger pools only add connections to the database.
+     */
+    private static void print(List<StepResult> results) {
+        System.out.printf("%n%-14s %5s %8s %10s %9s %9s %7s%n",
+                "query", "pool", "threads", "req/s", "p50 ms", "p99 ms", "errors");
+
+        List<StepResult> sorted = results.stream()
+                .sorted(Comparator.comparing((StepResult result) -> results.indexOf(results.stream()
+                                .filter(other -> other.getQuery().equals(result.getQuery()))
+                                .findFirst()
+                                .orElseThrow()))
+                        .thenComparingInt(StepResult::getConcurrency)
+                        .thenComparingInt(StepResult::getPoolSize))
+                .toList();
+
+        for (StepResult result : sorted) {
+            double best = results.stream()
+                    .filter(other -> other.getQuery().equals(result.getQuery())
+                            && other.getConcurrency() == result.getConcurrency())
+                    .mapToDouble(StepResult::getThroughput)
+                    .max()
+                    .orElse(0);
+            boolean smallestEnough = results.stream()
+                    .filter(other -> other.getQuery().equals(result.getQuery())
+                            && other.getConcurrency() == result.getConcurrency()
+                            && other.getThroughput() >= 0.95 * best)
+                    .mapToInt(StepResult::getPoolSize)
+                    .min()
+                    .orElse(-1) == result.getPoolSize();
+
+            System.out.printf("%-14s %5d %8d %10.1f %9.2f %9.2f %7d%s%n",
+                    result.getQuery(), result.getPoolSize(), result.getConcurrency(), result.getThroughput(),
+                    result.getP50Millis(), result.getP99Millis(), result.getErrors(), smallestEnough ? "  <" : "");
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StepResult {
+        private int poolSize;
+        private int concurrency;
+        private String query;
+        private long requests;
+        private long errors;
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+    }
+}
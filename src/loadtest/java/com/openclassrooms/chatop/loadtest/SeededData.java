@@ -0,0 +1,27 @@
+package com.openclassrooms.chatop.loadtest;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Users and rentals created by the {@link DataSeeder}, picked at random by the virtual users.
+ */
+@Getter
+@RequiredArgsConstructor
+public class SeededData {
+
+    private final List<SeededUser> users;
+    private final List<Long> rentalIds;
+    private final String password;
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SeededUser {
+        private final Long id;
+        private final String email;
+        private final String token;
+        private final List<Long> ownedRentalIds;
+    }
+}
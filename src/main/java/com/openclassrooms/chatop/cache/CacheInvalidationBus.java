@@ -0,0 +1,25 @@
+package com.openclassrooms.chatop.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport broadcasting {@link CacheInvalidationEvent}s to every instance of the application.
+ * Delivery is best effort: the local caches also expire their entries after a while, which bounds
+ * how long an instance can serve stale data if an event is lost.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Sends an event to every instance, possibly including the sender.
+     *
+     * @param event the event to broadcast
+     */
+    void publish(CacheInvalidationEvent event);
+
+    /**
+     * Registers a listener called for each event received.
+     *
+     * @param listener the listener
+     */
+    void subscribe(Consumer<CacheInvalidationEvent> listener);
+}
@@ -0,0 +1,26 @@
+package com.openclassrooms.chatop.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Tells the other instances of the application to evict an entry from one of their local caches.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class CacheInvalidationEvent {
+
+    /**
+     * ID of the instance that changed the data, which has already evicted its own entry.
+     */
+    private final String origin;
+
+    private final String cacheName;
+
+    /**
+     * ID of the changed entity, or null to clear the whole cache.
+     */
+    private final Long key;
+}
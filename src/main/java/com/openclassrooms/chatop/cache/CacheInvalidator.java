@@ -0,0 +1,124 @@
+package com.openclassrooms.chatop.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Evicts entries from the local caches of every instance when the data they hold changes.
+ * <p>
+ * The local entry is evicted and the event published once the current transaction has committed,
+ * so that no instance can reload the old value between the eviction and the commit. Events
+ * received from the other instances evict the matching local entry.
+ * <p>
+ * Each evicted key is remembered for {@code primaryReadWindow}: a replica may not have received the
+ * change yet, so the services reload these keys from the primary (see {@link #isRecentlyInvalidated})
+ * instead of caching the old row again for the whole time to live.
+ */
+@Slf4j
+public class CacheInvalidator {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus bus;
+    private final Map<String, Boolean> recentInvalidations;
+
+    /**
+     * Creates an invalidator and subscribes it to the bus.
+     *
+     * @param cacheManager      the manager of the local caches
+     * @param bus               the transport shared with the other instances
+     * @param primaryReadWindow how long an evicted key must be reloaded from the primary database
+     * @param maxRecentKeys     the maximum number of evicted keys remembered
+     */
+    public CacheInvalidator(CacheManager cacheManager, CacheInvalidationBus bus, Duration primaryReadWindow, long maxRecentKeys) {
+        this.cacheManager = cacheManager;
+        this.bus = bus;
+        this.recentInvalidations = Caffeine.newBuilder()
+                .expireAfterWrite(primaryReadWindow)
+                .maximumSize(maxRecentKeys)
+                .<String, Boolean>build()
+                .asMap();
+        bus.subscribe(this::onEvent);
+    }
+
+    /**
+     * Indicates whether an entry was evicted within the primary read window, on this instance or
+     * another one. Its value must then be reloaded from the primary database, since a replica may
+     * still hold the old one.
+     *
+     * @param cacheName the name of the cache
+     * @param key       the ID of the entity
+     * @return true if the entry or its whole cache was recently invalidated
+     */
+    public boolean isRecentlyInvalidated(String cacheName, Long key) {
+        return recentInvalidations.containsKey(recentKey(cacheName, key))
+                || recentInvalidations.containsKey(recentKey(cacheName, null));
+    }
+
+    /**
+     * Evicts an entry from a cache on every instance, after the current transaction commits
+     * (or immediately outside of a transaction).
+     *
+     * @param cacheName the name of the cache
+     * @param key       the ID of the changed entity, or null to clear the whole cache
+     */
+    public void invalidate(String cacheName, Long key) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(cacheName, key);
+                }
+            });
+        } else {
+            evictAndPublish(cacheName, key);
+        }
+    }
+
+    private void evictAndPublish(String cacheName, Long key) {
+        evict(cacheName, key);
+
+        try {
+            bus.publish(new CacheInvalidationEvent(nodeId, cacheName, key));
+        } catch (RuntimeException e) {
+            log.error("Error when publishing cache invalidation : {}", e.getMessage());
+        }
+    }
+
+    private void onEvent(CacheInvalidationEvent event) {
+        if (!nodeId.equals(event.getOrigin())) {
+            evict(event.getCacheName(), event.getKey());
+        }
+    }
+
+    private void evict(String cacheName, Long key) {
+        // Remembered before the eviction, so that no reload between the two can go to a replica
+        recentInvalidations.put(recentKey(cacheName, key), Boolean.TRUE);
+
+        Cache cache = cacheManager.getCache(cacheName);
+
+        if (cache == null) {
+            return;
+        }
+
+        if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    private static String recentKey(String cacheName, Long key) {
+        return cacheName + ":" + (key == null ? "*" : key);
+    }
+}
@@ -0,0 +1,113 @@
+package com.openclassrooms.chatop.cache;
+
+import com.openclassrooms.chatop.model.CacheInvalidation;
+import com.openclassrooms.chatop.repository.CacheInvalidationRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cluster transport going through the {@code cache_invalidations} table, which every instance
+ * already reaches: events are inserted by the publisher and polled by every instance every
+ * {@code app.cache.invalidation.poll-interval}.
+ * <p>
+ * Events are read in ID order from the last one received. An event whose insert commits after a
+ * more recent one has been read can be missed; the expiration of the cached entries bounds how
+ * long it stays stale.
+ */
+@Slf4j
+public class DatabaseCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final CacheInvalidationRepository repository;
+    private final Duration retention;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+    private long lastReceivedId = -1;
+
+    /**
+     * Creates a bus.
+     *
+     * @param repository         the repository of the {@code cache_invalidations} table
+     * @param retention          how long events are kept in the table
+     * @param transactionManager the manager of the transactions inserting the events
+     */
+    public DatabaseCacheInvalidationBus(CacheInvalidationRepository repository,
+                                        Duration retention,
+                                        PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.retention = retention;
+        // Events are published after the commit of the changing transaction, whose resources are still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        CacheInvalidation invalidation = new CacheInvalidation();
+        invalidation.setOrigin(event.getOrigin());
+        invalidation.setCache_name(event.getCacheName());
+        invalidation.setEntity_id(event.getKey());
+        invalidation.setCreated_at(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> repository.save(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Delivers the events published since the last poll. The first poll only records the position
+     * of the latest event: the caches of a new instance are empty, so older events do not matter.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-interval:1s}")
+    public synchronized void poll() {
+        try {
+            if (lastReceivedId < 0) {
+                lastReceivedId = repository.findMaxId();
+                return;
+            }
+
+            List<CacheInvalidation> invalidations;
+
+            do {
+                invalidations = repository.findAfter(lastReceivedId, PageRequest.of(0, BATCH_SIZE));
+
+                for (CacheInvalidation invalidation : invalidations) {
+                    CacheInvalidationEvent event = new CacheInvalidationEvent(
+                            invalidation.getOrigin(), invalidation.getCache_name(), invalidation.getEntity_id()
+                    );
+                    listeners.forEach(listener -> listener.accept(event));
+                    lastReceivedId = invalidation.getId();
+                }
+            } while (invalidations.size() == BATCH_SIZE);
+        } catch (RuntimeException e) {
+            log.error("Error when polling cache invalidations : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the events older than {@code app.cache.invalidation.retention}.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.purge-interval:10m}")
+    public void purge() {
+        try {
+            repository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        } catch (RuntimeException e) {
+            log.error("Error when purging cache invalidations : {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.chatop.cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-JVM transport: events are delivered synchronously to every bus joined to the same channel in
+ * this JVM. With a single instance of the application it only reaches itself; in tests, several
+ * application contexts joined to the same channel behave like the instances of a cluster.
+ */
+public class LocalCacheInvalidationBus implements CacheInvalidationBus, AutoCloseable {
+
+    private static final Map<String, Set<LocalCacheInvalidationBus>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private final List<Consumer<CacheInvalidationEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a bus and joins it to a channel.
+     *
+     * @param channel the name of the channel shared by the buses that must see each other's events
+     */
+    public LocalCacheInvalidationBus(String channel) {
+        this.channel = channel;
+        CHANNELS.computeIfAbsent(channel, name -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void publish(CacheInvalidationEvent event) {
+        CHANNELS.getOrDefault(channel, Set.of())
+                .forEach(bus -> bus.listeners.forEach(listener -> listener.accept(event)));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Leaves the channel, when the application context is closed.
+     */
+    @Override
+    public void close() {
+        CHANNELS.computeIfPresent(channel, (name, buses) -> {
+            buses.remove(this);
+            return buses.isEmpty() ? null : buses;
+        });
+    }
+}
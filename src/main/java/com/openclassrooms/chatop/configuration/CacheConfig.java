@@ -0,0 +1,133 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.openclassrooms.chatop.cache.CacheInvalidationBus;
+import com.openclassrooms.chatop.cache.CacheInvalidator;
+import com.openclassrooms.chatop.cache.DatabaseCacheInvalidationBus;
+import com.openclassrooms.chatop.cache.LocalCacheInvalidationBus;
+import com.openclassrooms.chatop.repository.CacheInvalidationRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.openclassrooms.chatop.dto.RentalDTO;
+
+import org.springframework.transaction.PlatformTransactionManager;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String RENTALS_CACHE = "rentals";
+    public static final String USERS_CACHE = "users";
+
+    @Value("${app.cache.ttl:10m}")
+    private Duration ttl;
+
+    // Rough size of a cached rental without its picture
+    private static final int RENTAL_BASE_WEIGHT = 1024;
+
+    @Value("${app.cache.rentals.max-memory:64MB}")
+    private DataSize rentalsMaxMemory;
+
+    @Value("${app.cache.users.max-size:10000}")
+    private long usersMaxSize;
+
+    @Value("${app.cache.invalidation.primary-read-window:${app.datasource.read-your-writes-window:5s}}")
+    private Duration primaryReadWindow;
+
+    @Value("${app.cache.invalidation.max-recent-keys:100000}")
+    private long maxRecentKeys;
+
+    /**
+     * Provides the local caches: rentals and users by ID, bounded and expiring after
+     * {@code app.cache.ttl} so that a lost invalidation cannot leave an entry stale forever.
+     * The rentals cache is bounded by the memory of its entries rather than their number, since
+     * each one holds a picture of up to the upload limit. Hit rates are published in the
+     * {@code cache.gets} metrics.
+     *
+     * @return an instance of {@link CaffeineCacheManager}
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.registerCustomCache(RENTALS_CACHE, Caffeine.newBuilder()
+                .maximumWeight(rentalsMaxMemory.toBytes())
+                .weigher(CacheConfig::rentalWeight)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+                .maximumSize(usersMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        return cacheManager;
+    }
+
+    /**
+     * Estimates the memory held by a cached rental, in bytes.
+     */
+    private static int rentalWeight(Object key, Object value) {
+        if (value instanceof RentalDTO rental && rental.getPicture() != null) {
+            return RENTAL_BASE_WEIGHT + rental.getPicture().length;
+        }
+
+        return RENTAL_BASE_WEIGHT;
+    }
+
+    /**
+     * Provides the in-JVM invalidation transport, used by default and when
+     * {@code app.cache.invalidation.transport=local}.
+     *
+     * @param channel the name of the channel joined by the bus
+     * @return an instance of {@link LocalCacheInvalidationBus}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+    public CacheInvalidationBus localCacheInvalidationBus(@Value("${app.cache.invalidation.channel:chatop}") String channel) {
+        return new LocalCacheInvalidationBus(channel);
+    }
+
+    /**
+     * Provides the database-polling invalidation transport, for several instances behind a load
+     * balancer ({@code app.cache.invalidation.transport=database}).
+     *
+     * @param repository         the repository of the {@code cache_invalidations} table
+     * @param retention          how long events are kept in the table
+     * @param transactionManager the manager of the transactions inserting the events
+     * @return an instance of {@link DatabaseCacheInvalidationBus}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.invalidation.transport", havingValue = "database")
+    public CacheInvalidationBus databaseCacheInvalidationBus(CacheInvalidationRepository repository,
+                                                             @Value("${app.cache.invalidation.retention:1h}") Duration retention,
+                                                             PlatformTransactionManager transactionManager) {
+        return new DatabaseCacheInvalidationBus(repository, retention, transactionManager);
+    }
+
+    /**
+     * Provides the {@link CacheInvalidator} used by the services after changing cached data.
+     *
+     * @param cacheManager         the manager of the local caches
+     * @param cacheInvalidationBus the transport shared with the other instances
+     * @return an instance of {@link CacheInvalidator}
+     */
+    @Bean
+    public CacheInvalidator cacheInvalidator(CacheManager cacheManager, CacheInvalidationBus cacheInvalidationBus) {
+        return new CacheInvalidator(cacheManager, cacheInvalidationBus, primaryReadWindow, maxRecentKeys);
+    }
+}
@@ -0,0 +1,111 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.openclassrooms.chatop.datasource.ReadYourWritesTracker;
+import com.openclassrooms.chatop.datasource.ReplicaRoutingDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Splits database traffic between the primary and a read replica when
+ * {@code app.datasource.replica.url} is set. Without it, the default single data source is used.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.url")
+public class DataSourceRoutingConfig {
+
+    @Value("${app.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${app.datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.read-your-writes-window:5s}")
+    private Duration readYourWritesWindow;
+
+    @Value("${app.datasource.read-your-writes-max-clients:100000}")
+    private int readYourWritesMaxClients;
+
+    /**
+     * Provides the tracker keeping the reads of recent writers on the primary database.
+     *
+     * @return an instance of {@link ReadYourWritesTracker}
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(readYourWritesWindow, readYourWritesMaxClients);
+    }
+
+    /**
+     * Provides the primary connection pool, configured by {@code spring.datasource.*}
+     * and tuned by {@code spring.datasource.hikari.*}.
+     *
+     * @param properties the primary data source properties
+     * @return the primary pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    /**
+     * Provides the replica connection pool, configured by {@code app.datasource.replica.*}.
+     * The credentials default to the primary ones, and the pool is tuned like the primary one
+     * by {@code spring.datasource.hikari.*}.
+     *
+     * @param properties the primary data source properties, used for the driver
+     * @return the replica pool
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+        return replica;
+    }
+
+    /**
+     * Provides the application data source: read-only transactions
+     * ({@code @Transactional(readOnly = true)}, including the read methods of Spring Data repositories)
+     * go to the replica pool, everything else goes to the primary pool.
+     *
+     * @param primaryDataSource the primary pool
+     * @param replicaDataSource the replica pool
+     * @return the routing data source, wrapped so that connections are fetched lazily
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, readYourWritesTracker())
+        );
+    }
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.openclassrooms.chatop.ChatopApplication;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Adds {@code chatop-defaults.properties} to the environment of the {@link ChatopApplication}, with the
+ * lowest precedence so that any other configuration overrides it.
+ * <p>
+ * Unlike a {@code @PropertySource}, the defaults are added before the logging system is initialized,
+ * so they may also contain {@code logging.*} properties.
+ */
+public class DefaultPropertiesPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String DEFAULTS = "chatop-defaults.properties";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!application.getAllSources().contains(ChatopApplication.class)) {
+            return;
+        }
+
+        try {
+            environment.getPropertySources().addLast(new ResourcePropertySource(DEFAULTS, new ClassPathResource(DEFAULTS)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error when loading " + DEFAULTS, e);
+        }
+    }
+}
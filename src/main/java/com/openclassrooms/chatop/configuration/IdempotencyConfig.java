@@ -0,0 +1,66 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.filter.IdempotencyFilter;
+import com.openclassrooms.chatop.idempotency.IdempotencyStore;
+import com.openclassrooms.chatop.repository.IdempotencyRecordRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class IdempotencyConfig {
+
+    @Value("${app.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${app.idempotency.max-keys:10000}")
+    private int maxKeys;
+
+    @Value("${app.idempotency.in-flight-timeout:30s}")
+    private Duration inFlightTimeout;
+
+    @Value("${app.idempotency.persistent:false}")
+    private boolean persistent;
+
+    /**
+     * Provides the store of the responses recorded for idempotency keys. Keys are kept in memory
+     * for {@code app.idempotency.ttl}, up to {@code app.idempotency.max-keys} of them, and also in
+     * the {@code idempotency_keys} table when {@code app.idempotency.persistent} is true.
+     *
+     * @param repository    the repository of the {@code idempotency_keys} table
+     * @param meterRegistry the registry where the number of kept keys is published
+     * @return an instance of {@link IdempotencyStore}
+     */
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyRecordRepository repository, MeterRegistry meterRegistry) {
+        IdempotencyStore store = new IdempotencyStore(ttl, maxKeys, persistent ? repository : null);
+        Gauge.builder("chatop.idempotency.keys", store, IdempotencyStore::size)
+                .description("Idempotency keys kept in memory")
+                .register(meterRegistry);
+        return store;
+    }
+
+    /**
+     * Provides the {@link IdempotencyFilter} handling the {@code Idempotency-Key} header on
+     * {@code POST /api/rentals} and {@code POST /api/messages}.
+     *
+     * @param idempotencyStore the store of the recorded responses
+     * @param objectMapper     the mapper writing the error responses
+     * @param meterRegistry    the registry where replayed requests and errors are counted
+     * @return an instance of {@link IdempotencyFilter}
+     */
+    @Bean
+    public IdempotencyFilter idempotencyFilter(IdempotencyStore idempotencyStore, ObjectMapper objectMapper,
+                                               MeterRegistry meterRegistry) {
+        return new IdempotencyFilter(idempotencyStore, inFlightTimeout, objectMapper, meterRegistry);
+    }
+}
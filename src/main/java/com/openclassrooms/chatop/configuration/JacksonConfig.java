@@ -0,0 +1,23 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Provides the Blackbird module, registered by Spring Boot on the application ObjectMapper.
+     * It replaces the reflective getter calls made while serializing DTOs with accessors
+     * generated through {@code LambdaMetafactory}.
+     *
+     * @return an instance of {@link BlackbirdModule}
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
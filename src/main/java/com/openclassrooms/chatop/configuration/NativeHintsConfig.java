@@ -0,0 +1,77 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.openclassrooms.chatop.dto.LoginDTO;
+import com.openclassrooms.chatop.dto.MessageDTO;
+import com.openclassrooms.chatop.dto.RegisterDTO;
+import com.openclassrooms.chatop.dto.RentalDTO;
+import com.openclassrooms.chatop.dto.RentalStatsDTO;
+import com.openclassrooms.chatop.dto.RequestTraceDTO;
+import com.openclassrooms.chatop.dto.UserDTO;
+import com.openclassrooms.chatop.model.ArchivedMessage;
+import com.openclassrooms.chatop.model.CacheInvalidation;
+import com.openclassrooms.chatop.model.IdempotencyRecord;
+import com.openclassrooms.chatop.model.Message;
+import com.openclassrooms.chatop.model.Notification;
+import com.openclassrooms.chatop.model.Picture;
+import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.model.RentalStats;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.MessageSummary;
+import com.openclassrooms.chatop.repository.RentalDistance;
+import com.openclassrooms.chatop.serializer.PictureDataUriSerializer;
+
+import org.springframework.aop.SpringProxy;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import org.springframework.core.DecoratingProxy;
+
+import org.springframework.data.projection.TargetAware;
+
+import java.util.List;
+
+/**
+ * Declares what a native image or an AOT-processed application must keep available through reflection:
+ * the JPA entities (read by Hibernate), the DTOs (read and written by Jackson and springdoc),
+ * the custom Jackson serializer and the query projections. Ignored on a regular JVM.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.ChatopRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class ChatopRuntimeHints implements RuntimeHintsRegistrar {
+
+        private static final List<Class<?>> REFLECTIVE_TYPES = List.of(
+                User.class,
+                Rental.class,
+                Message.class,
+                ArchivedMessage.class,
+                RentalStats.class,
+                IdempotencyRecord.class,
+                Notification.class,
+                Picture.class,
+                CacheInvalidation.class,
+                LoginDTO.class,
+                RegisterDTO.class,
+                MessageDTO.class,
+                RentalDTO.class,
+                RentalStatsDTO.class,
+                RequestTraceDTO.class,
+                UserDTO.class,
+                PictureDataUriSerializer.class
+        );
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            REFLECTIVE_TYPES.forEach(type -> hints.reflection().registerType(type, MemberCategory.values()));
+            hints.proxies().registerJdkProxy(RentalDistance.class, TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+            hints.proxies().registerJdkProxy(MessageSummary.class, TargetAware.class, SpringProxy.class, DecoratingProxy.class);
+            hints.resources().registerPattern("chatop-defaults.properties");
+        }
+    }
+}
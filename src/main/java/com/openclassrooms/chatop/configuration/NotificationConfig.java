@@ -0,0 +1,25 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.openclassrooms.chatop.notification.LoggingNotificationSender;
+import com.openclassrooms.chatop.notification.NotificationSender;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class NotificationConfig {
+
+    /**
+     * Provides the default {@link NotificationSender}, which only logs the notifications.
+     * Set {@code app.notifications.sender} to another value to provide a different sender.
+     *
+     * @return an instance of {@link LoggingNotificationSender}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "app.notifications.sender", havingValue = "log", matchIfMissing = true)
+    public NotificationSender loggingNotificationSender() {
+        return new LoggingNotificationSender();
+    }
+}
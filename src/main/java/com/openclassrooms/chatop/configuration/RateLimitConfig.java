@@ -0,0 +1,54 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.filter.LoginRateLimitFilter;
+import com.openclassrooms.chatop.ratelimit.TokenBucketRegistry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Value("${app.rate-limit.ip.capacity:20}")
+    private long ipCapacity;
+
+    @Value("${app.rate-limit.ip.refill-period:60s}")
+    private Duration ipRefillPeriod;
+
+    @Value("${app.rate-limit.email.capacity:5}")
+    private long emailCapacity;
+
+    @Value("${app.rate-limit.email.refill-period:300s}")
+    private Duration emailRefillPeriod;
+
+    @Value("${app.rate-limit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    /**
+     * Provides the {@link LoginRateLimitFilter} protecting the login and register endpoints.
+     * Each IP may send {@code app.rate-limit.ip.capacity} attempts per
+     * {@code app.rate-limit.ip.refill-period}, and each email
+     * {@code app.rate-limit.email.capacity} attempts per {@code app.rate-limit.email.refill-period}.
+     *
+     * @param objectMapper  the mapper used to read the email from the request body and write the errors
+     * @param meterRegistry the registry where rejected attempts and errors are counted
+     * @return an instance of {@link LoginRateLimitFilter}
+     */
+    @Bean
+    public LoginRateLimitFilter loginRateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new LoginRateLimitFilter(
+                new TokenBucketRegistry(ipCapacity, ipRefillPeriod, maxTrackedKeys),
+                new TokenBucketRegistry(emailCapacity, emailRefillPeriod, maxTrackedKeys),
+                objectMapper,
+                meterRegistry
+        );
+    }
+}
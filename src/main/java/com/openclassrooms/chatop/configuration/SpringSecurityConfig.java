@@ -2,7 +2,9 @@ package com.openclassrooms.chatop.configuration;
 
 import com.nimbusds.jose.jwk.source.ImmutableSecret;
 
+import com.openclassrooms.chatop.filter.IdempotencyFilter;
 import com.openclassrooms.chatop.filter.JwtAuthenticationFilter;
+import com.openclassrooms.chatop.filter.LoginRateLimitFilter;
 import com.openclassrooms.chatop.service.CustomUserDetailsService;
 
 import lombok.RequiredArgsConstructor;
@@ -45,6 +47,9 @@ public class SpringSecurityConfig {
     @Value("${app.secret-key}")
     private String jwtKey;
 
+    @Value("${springdoc.api-docs.enabled:true}")
+    private boolean apiDocsEnabled;
+
     /**
      * Creates and provides a BCryptPasswordEncoder bean that can be used for password encoding.
      *
@@ -57,12 +62,16 @@ public class SpringSecurityConfig {
 
     /**
      * Configures the security filter chain for the application, disabling CSRF protection,
-     * enforcing stateless sessions, specifying authenticated and public endpoints,
-     * adding a custom authentication filter, and setting up a custom authentication entry point.
+     * enforcing stateless sessions, specifying authenticated and public endpoints
+     * (the Swagger paths are only public when the API documentation is enabled),
+     * adding the login rate limiter, a custom authentication filter and the idempotency filter,
+     * and setting up a custom authentication entry point.
      *
      * @param http                     the {@link HttpSecurity} object used to customize
      *                                 web security configurations
      * @param jwtAuthenticationFilter  the filter that handles JWT authentication logic
+     * @param loginRateLimitFilter     the filter rejecting excessive login and register attempts
+     * @param idempotencyFilter        the filter replaying the response of repeated creation requests
      * @param authenticationEntryPoint the custom entry point invoked when an
      *                                 unauthorized access attempt occurs
      * @return the configured {@link SecurityFilterChain} instance
@@ -72,25 +81,26 @@ public class SpringSecurityConfig {
     public SecurityFilterChain securityFilterChain(
             HttpSecurity http,
             JwtAuthenticationFilter jwtAuthenticationFilter,
+            LoginRateLimitFilter loginRateLimitFilter,
+            IdempotencyFilter idempotencyFilter,
             CustomAuthenticationEntryPoint authenticationEntryPoint
     ) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable)
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/api/auth/**",
-                                "/swagger-ui/**",
-                                "/swagger-ui.html",
-                                "/v3/api-docs/**",
-                                "/v3/api-docs",
-                                "/v3/api-docs/swagger-config"
-                        ).permitAll()
-                        .anyRequest().authenticated()
-                )
+                .authorizeHttpRequests(auth -> {
+                    auth.requestMatchers("/api/auth/**").permitAll();
+                    if (apiDocsEnabled) {
+                        auth.requestMatchers(SwaggerConfig.DOCUMENTATION_PATHS).permitAll();
+                    }
+                    auth.anyRequest().authenticated();
+                })
                 .exceptionHandling(handler -> handler
                         .authenticationEntryPoint(authenticationEntryPoint)
                 )
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(loginRateLimitFilter, JwtAuthenticationFilter.class)
+                .addFilterAfter(idempotencyFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -0,0 +1,162 @@
+package com.openclassrooms.chatop.configuration;
+
+import com.openclassrooms.chatop.filter.RequestTracingFilter;
+import com.openclassrooms.chatop.tracing.RepositoryTracingInterceptor;
+import com.openclassrooms.chatop.tracing.SlowRequestLog;
+import com.openclassrooms.chatop.tracing.SlowRequestsEndpoint;
+import com.openclassrooms.chatop.tracing.StatementRecorder;
+import com.openclassrooms.chatop.tracing.TracingJsonConverter;
+
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import org.springframework.core.Ordered;
+
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Traces the stages of each request (JWT decoding, repository calls, mapping, serialization)
+ * and the SQL statements it runs, unless {@code app.tracing.enabled=false}. When disabled, none of these beans exist and the
+ * instrumented code only checks for a current trace.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.tracing.enabled", matchIfMissing = true)
+public class TracingConfig implements WebMvcConfigurer {
+
+    @Value("${app.tracing.slow-requests.size:20}")
+    private int slowRequestsSize;
+
+    @Value("${app.tracing.slow-requests.window:10m}")
+    private Duration slowRequestsWindow;
+
+    @Value("${app.tracing.sql.max-statements:20}")
+    private int maxStatements;
+
+    @Value("${app.tracing.sql.max-time:500ms}")
+    private Duration maxStatementTime;
+
+    /**
+     * Provides the log of the slowest requests finished within {@code app.tracing.slow-requests.window},
+     * keeping {@code app.tracing.slow-requests.size} of them.
+     *
+     * @return an instance of {@link SlowRequestLog}
+     */
+    @Bean
+    public SlowRequestLog slowRequestLog() {
+        return new SlowRequestLog(slowRequestsSize, slowRequestsWindow);
+    }
+
+    /**
+     * Registers the {@link RequestTracingFilter} before every other filter, including the security chain,
+     * so that the trace ID is in the logs of the whole request and the JWT decoding is measured.
+     * Requests running more than {@code app.tracing.sql.max-statements} SQL statements, or spending more
+     * than {@code app.tracing.sql.max-time} in them, are logged with their statements.
+     *
+     * @param slowRequestLog the log receiving the finished requests
+     * @return the registration of the filter
+     */
+    @Bean
+    public FilterRegistrationBean<RequestTracingFilter> requestTracingFilter(SlowRequestLog slowRequestLog) {
+        FilterRegistrationBean<RequestTracingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTracingFilter(slowRequestLog, maxStatements, maxStatementTime));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    /**
+     * Provides the {@code slowrequests} actuator endpoint.
+     *
+     * @param slowRequestLog the log of the slowest requests
+     * @return an instance of {@link SlowRequestsEndpoint}
+     */
+    @Bean
+    public SlowRequestsEndpoint slowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        return new SlowRequestsEndpoint(slowRequestLog);
+    }
+
+    /**
+     * Adds a {@link RepositoryTracingInterceptor} to every Spring Data repository.
+     * Static, so that it is registered before the repositories are created.
+     *
+     * @return the post-processor customizing the repository factories
+     */
+    @Bean
+    public static BeanPostProcessor repositoryTracingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(
+                                    new RepositoryTracingInterceptor(information.getRepositoryInterface())
+                            )
+                    ));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Wraps the application data source with a datasource-proxy recording the SQL statements of each
+     * request in its trace. Other {@link QueryExecutionListener} beans (such as the statement counters
+     * of the query budget tests) are notified of every statement too.
+     * Static, so that it is registered before the data source is created.
+     *
+     * @param listeners the additional listeners
+     * @return the post-processor wrapping the data source
+     */
+    @Bean
+    public static BeanPostProcessor dataSourceTracingPostProcessor(ObjectProvider<QueryExecutionListener> listeners) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || !"dataSource".equals(beanName)) {
+                    return bean;
+                }
+
+                ProxyDataSourceBuilder builder = ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(new StatementRecorder());
+                listeners.orderedStream().forEach(builder::listener);
+                return builder.build();
+            }
+        };
+    }
+
+    /**
+     * Replaces the JSON converter with a {@link TracingJsonConverter} using the same ObjectMapper.
+     *
+     * @param converters the converters configured by Spring Boot
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i).getClass() == MappingJackson2HttpMessageConverter.class) {
+                MappingJackson2HttpMessageConverter converter = (MappingJackson2HttpMessageConverter) converters.get(i);
+                TracingJsonConverter tracingConverter = new TracingJsonConverter(converter.getObjectMapper());
+                tracingConverter.setSupportedMediaTypes(converter.getSupportedMediaTypes());
+                converters.set(i, tracingConverter);
+            }
+        }
+    }
+}
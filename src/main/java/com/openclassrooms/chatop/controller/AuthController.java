@@ -4,9 +4,11 @@ import com.openclassrooms.chatop.configuration.JwtUtils;
 import com.openclassrooms.chatop.dto.LoginDTO;
 import com.openclassrooms.chatop.dto.RegisterDTO;
 import com.openclassrooms.chatop.dto.UserDTO;
-import com.openclassrooms.chatop.mapper.UserMapper;
+import com.openclassrooms.chatop.exception.ConflictException;
+import com.openclassrooms.chatop.exception.InvalidRequestException;
 import com.openclassrooms.chatop.model.User;
 import com.openclassrooms.chatop.repository.UserRepository;
+import com.openclassrooms.chatop.service.CustomUserDetailsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -15,7 +17,6 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -23,7 +24,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import org.springframework.web.bind.annotation.*;
@@ -31,11 +31,11 @@ import org.springframework.web.bind.annotation.*;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
-@Slf4j
 @Tag(name = "Authentication", description = "Endpoints for user authentication and registration")
 public class AuthController {
 
@@ -44,7 +44,7 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final UserMapper userMapper;
+    private final CustomUserDetailsService customUserDetailsService;
 
 
     @Operation(
@@ -61,23 +61,17 @@ public class AuthController {
     )
     @PostMapping("/login")
     public ResponseEntity<Map<String, String>> login(@Valid @RequestBody LoginDTO loginDTO) {
-        try {
-            String email = loginDTO.getEmail();
-            String password = loginDTO.getPassword();
+        String email = loginDTO.getEmail();
+        String password = loginDTO.getPassword();
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(email, password)
-            );
+        // An AuthenticationException is answered with 401 by the GlobalExceptionHandler
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(email, password)
+        );
 
-            String token = jwtUtils.generateToken(authentication);
+        String token = jwtUtils.generateToken(authentication);
 
-            return ResponseEntity.ok(Collections.singletonMap("token", token));
-        } catch (AuthenticationException e) {
-            log.error("Authentication error : {}", e.getMessage());
-            return ResponseEntity
-                    .status(HttpStatus.UNAUTHORIZED)
-                    .body(Map.of("message", "error"));
-        }
+        return ResponseEntity.ok(Collections.singletonMap("token", token));
     }
 
 
@@ -91,45 +85,45 @@ public class AuthController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Registration successful"),
                     @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content),
+                    @ApiResponse(responseCode = "409", description = "Email already registered", content = @Content)
             }
     )
     @PostMapping("/register")
     public ResponseEntity<?> register(@Valid @RequestBody RegisterDTO request) {
-        try {
-            String email = request.getEmail();
-            String password = request.getPassword();
-            String name = request.getName();
-
-            if (email.trim().isEmpty() || password.trim().isEmpty() || name.trim().isEmpty() || userRepository.findByEmail(email) != null) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.emptyMap());
-            }
+        String email = request.getEmail();
+        String password = request.getPassword();
+        String name = request.getName();
+
+        if (email.trim().isEmpty() || password.trim().isEmpty() || name.trim().isEmpty()) {
+            throw InvalidRequestException.MISSING_FIELDS;
+        }
 
-            String encodedPassword = passwordEncoder.encode(password);
+        if (userRepository.existsByEmail(email)) {
+            throw ConflictException.EMAIL_ALREADY_REGISTERED;
+        }
 
-            User newUser = new User();
-            newUser.setEmail(email);
-            newUser.setPassword(encodedPassword);
-            newUser.setName(name);
-            userRepository.save(newUser);
+        String encodedPassword = passwordEncoder.encode(password);
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(email, password)
-            );
+        User newUser = new User();
+        newUser.setEmail(email);
+        newUser.setPassword(encodedPassword);
+        newUser.setName(name);
 
-            String token = jwtUtils.generateToken(authentication);
+        // If another request registers the same email between the existence check and the insert,
+        // the DataIntegrityViolationException is answered with 409 by the GlobalExceptionHandler
+        userRepository.saveAndFlush(newUser);
 
-            Map<String, String> response = new HashMap<>();
-            response.put("token", token);
+        // The account has just been created with these credentials: no need to verify the hash again
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(
+                email, null, Collections.emptyList()
+        );
 
-            return ResponseEntity.ok(response);
-        } catch (Exception e) {
-            log.error("Error when register : {}", e.getMessage());
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body(Collections.emptyMap());
-        }
+        String token = jwtUtils.generateToken(authentication);
+
+        Map<String, String> response = new HashMap<>();
+        response.put("token", token);
+
+        return ResponseEntity.ok(response);
     }
 
 
@@ -143,29 +137,22 @@ public class AuthController {
     )
     @GetMapping("/me")
     public ResponseEntity<?> getUserDetails(Authentication authentication) {
-        try {
-            if (authentication == null || !authentication.isAuthenticated()) {
-                return ResponseEntity
-                        .status(HttpStatus.UNAUTHORIZED)
-                        .body(Collections.emptyMap());
-            }
-
-            String email = authentication.getName();
-            User user = userRepository.findByEmail(email);
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return ResponseEntity
+                    .status(HttpStatus.UNAUTHORIZED)
+                    .body(Collections.emptyMap());
+        }
 
-            if (user == null) {
-                return ResponseEntity
-                        .status(HttpStatus.UNAUTHORIZED)
-                        .body(Collections.emptyMap());
-            }
+        String email = authentication.getName();
+        Optional<UserDTO> userDTO = customUserDetailsService.getUserDTOByEmail(email);
 
-            UserDTO userDTO = userMapper.toDTO(user);
-            return ResponseEntity.ok(userDTO);
-        } catch (Exception e) {
-            log.error("Error when recovering user information: {}", e.getMessage());
+        // The token is valid but its user no longer exists: the client must authenticate again
+        if (userDTO.isEmpty()) {
             return ResponseEntity
                     .status(HttpStatus.UNAUTHORIZED)
                     .body(Collections.emptyMap());
         }
+
+        return ResponseEntity.ok(userDTO.get());
     }
 }
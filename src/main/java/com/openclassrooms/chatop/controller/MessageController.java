@@ -2,6 +2,9 @@ package com.openclassrooms.chatop.controller;
 
 import com.openclassrooms.chatop.dto.MessageDTO;
 
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
+
 import com.openclassrooms.chatop.model.Message;
 import com.openclassrooms.chatop.model.Rental;
 import com.openclassrooms.chatop.model.User;
@@ -12,6 +15,7 @@ import com.openclassrooms.chatop.service.CustomUserDetailsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
@@ -20,16 +24,17 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import org.springframework.security.core.Authentication;
+
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/messages")
 @RequiredArgsConstructor
-@Tag(name = "Messages", description = "Endpoints for sending messages related to rentals")
+@Tag(name = "Messages", description = "Endpoints for sending and reading messages related to rentals")
 public class MessageController {
 
 
@@ -37,6 +42,8 @@ public class MessageController {
     private final CustomRentalDetailsService customRentalDetailsService;
     private final CustomMessageDetailsService customMessageDetailsService;
 
+    private static final int MAX_PAGE_SIZE = 100;
+
 
     @Operation(
             summary = "Send a message",
@@ -44,48 +51,68 @@ public class MessageController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "Message sent successfully"),
                     @ApiResponse(responseCode = "400", description = "Bad request (missing fields or invalid data)", content = @Content),
-                    @ApiResponse(responseCode = "401", description = "Unauthorized")
+                    @ApiResponse(responseCode = "401", description = "Unauthorized"),
+                    @ApiResponse(responseCode = "404", description = "User or rental not found", content = @Content)
             }
     )
     @PostMapping("")
     public ResponseEntity<Map<String, String>> createMessage(
             @RequestBody MessageDTO messageDTO
     ) {
-        try {
-            if (messageDTO.getRental_id() == null || messageDTO.getUser_id() == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
+        if (messageDTO.getRental_id() == null || messageDTO.getUser_id() == null) {
+            throw InvalidRequestException.MISSING_FIELDS;
+        }
 
-            Optional<User> userOptional = customUserDetailsService.getUser(Long.valueOf(messageDTO.getUser_id()));
-            Optional<Rental> rentalOptional = customRentalDetailsService.getRental(Long.valueOf(messageDTO.getRental_id()));
+        if (messageDTO.getMessage() == null || messageDTO.getMessage().isEmpty()) {
+            throw InvalidRequestException.EMPTY_MESSAGE;
+        }
 
-            if (userOptional.isEmpty() || rentalOptional.isEmpty()) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.emptyMap());
-            }
+        User user = customUserDetailsService.getUser(Long.valueOf(messageDTO.getUser_id()))
+                .orElseThrow(() -> ResourceNotFoundException.USER);
+        Rental rental = customRentalDetailsService.getRental(Long.valueOf(messageDTO.getRental_id()))
+                .orElseThrow(() -> ResourceNotFoundException.RENTAL);
 
-            if (messageDTO.getMessage().isEmpty()) {
-                return ResponseEntity
-                        .status(HttpStatus.BAD_REQUEST)
-                        .body(Collections.emptyMap());
-            }
+        Message message = new Message();
+        message.setUser(user);
+        message.setRental(rental);
+        message.setMessage(messageDTO.getMessage());
+
+        customMessageDetailsService.saveMessage(message);
 
-            User user = userOptional.get();
-            Rental rental = rentalOptional.get();
+        return ResponseEntity.ok(Map.of("message", "Message send with success"));
+    }
 
-            Message message = new Message();
-            message.setUser(user);
-            message.setRental(rental);
-            message.setMessage(messageDTO.getMessage());
 
-            customMessageDetailsService.saveMessage(message);
+    @Operation(
+            summary = "Get the messages of a rental",
+            description = "Returns the latest messages sent about a rental owned by the authenticated user, newest first. "
+                    + "Messages older than app.messages.retention are only returned with archived=true.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "List of messages returned",
+                            content = @Content(schema = @Schema(implementation = MessageDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit", content = @Content),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized"),
+                    @ApiResponse(responseCode = "403", description = "Rental owned by another user", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
+            }
+    )
+    @GetMapping("")
+    public ResponseEntity<Map<String, List<MessageDTO>>> getMessages(
+            @RequestParam("rental_id") Long rentalId,
+            @RequestParam(value = "archived", defaultValue = "false") boolean archived,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            Authentication authentication
+    ) {
+        if (authentication == null || authentication.getName() == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
 
-            return ResponseEntity.ok(Map.of("message", "Message send with success"));
-        } catch (Exception e) {
-            return ResponseEntity
-                    .status(HttpStatus.BAD_REQUEST)
-                    .body(Collections.emptyMap());
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw InvalidRequestException.INVALID_LIMIT;
         }
+
+        customRentalDetailsService.checkOwner(rentalId, authentication.getName());
+
+        return ResponseEntity.ok(Map.of("messages", customMessageDetailsService.getMessages(rentalId, archived, limit)));
     }
 }
@@ -1,14 +1,20 @@
 package com.openclassrooms.chatop.controller;
 
 import com.openclassrooms.chatop.dto.RentalDTO;
+import com.openclassrooms.chatop.dto.RentalStatsDTO;
 
-import com.openclassrooms.chatop.mapper.RentalMapper;
+import com.openclassrooms.chatop.exception.ForbiddenException;
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
 
 import com.openclassrooms.chatop.model.Rental;
 import com.openclassrooms.chatop.model.User;
 
 import com.openclassrooms.chatop.repository.UserRepository;
 import com.openclassrooms.chatop.service.CustomRentalDetailsService;
+import com.openclassrooms.chatop.service.PictureService;
+import com.openclassrooms.chatop.service.PopularRentalsService;
+import com.openclassrooms.chatop.service.RentalStatsService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -25,6 +31,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
@@ -38,7 +45,11 @@ public class RentalController {
 
     private final CustomRentalDetailsService customRentalDetailsService;
     private final UserRepository userRepository;
-    private final RentalMapper rentalMapper;
+    private final RentalStatsService rentalStatsService;
+    private final PopularRentalsService popularRentalsService;
+
+    private static final double MAX_SEARCH_RADIUS_METERS = 100_000;
+    private static final int MAX_PAGE_SIZE = 100;
 
 
     @Operation(
@@ -58,17 +69,87 @@ public class RentalController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        List<Rental> rentals = (List<Rental>) customRentalDetailsService.getRentals();
-
-        List<RentalDTO> rentalDtos = rentals.stream()
-                .map(rentalMapper::toDTO)
-                .toList();
+        List<RentalDTO> rentalDtos = customRentalDetailsService.getRentalDTOs();
 
         Map<String, List<RentalDTO>> response = Map.of("rentals", rentalDtos);
         return ResponseEntity.ok(response);
     }
 
 
+    @Operation(
+            summary = "Get rentals near a point",
+            description = "Returns the rentals located within a radius (in meters) of a point, closest first. "
+                    + "Pages are chained by passing the distance and ID of the last rental received as "
+                    + "afterDistance and afterId.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "List of nearby rentals returned",
+                            content = @Content(schema = @Schema(implementation = RentalDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid coordinates, radius or cursor", content = @Content),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized access")
+            }
+    )
+    @GetMapping("/near")
+    public ResponseEntity<Map<String, List<RentalDTO>>> getRentalsNear(
+            @RequestParam("lat") double latitude,
+            @RequestParam("lng") double longitude,
+            @RequestParam("radius") double radius,
+            @RequestParam(value = "afterDistance", required = false) Double afterDistance,
+            @RequestParam(value = "afterId", required = false) Long afterId,
+            @RequestParam(value = "limit", defaultValue = "20") int limit,
+            Authentication authentication
+    ) {
+        User currentUser = getAuthenticatedUser(authentication);
+
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180
+                || radius <= 0 || radius > MAX_SEARCH_RADIUS_METERS
+                || limit < 1 || limit > MAX_PAGE_SIZE
+                || (afterDistance == null) != (afterId == null)) {
+            throw InvalidRequestException.INVALID_SEARCH;
+        }
+
+        List<RentalDTO> rentalDtos = customRentalDetailsService.getRentalDTOsNear(
+                latitude, longitude, radius, afterDistance, afterId, limit
+        );
+
+        return ResponseEntity.ok(Map.of("rentals", rentalDtos));
+    }
+
+
+    @Operation(
+            summary = "Get the most popular rentals",
+            description = "Returns the most viewed rentals, most popular first. Recent views weigh more: "
+                    + "a view loses half of its weight every app.popularity.half-life (1 hour by default), "
+                    + "and the ranking is refreshed every app.popularity.snapshot-interval (10 seconds by default).",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "List of popular rentals returned",
+                            content = @Content(schema = @Schema(implementation = RentalDTO.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit", content = @Content),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized access")
+            }
+    )
+    @GetMapping("/popular")
+    public ResponseEntity<Map<String, List<RentalDTO>>> getPopularRentals(
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            Authentication authentication
+    ) {
+        User currentUser = getAuthenticatedUser(authentication);
+
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw InvalidRequestException.INVALID_LIMIT;
+        }
+
+        return ResponseEntity.ok(Map.of("rentals", popularRentalsService.getPopularRentals(limit)));
+    }
+
+
     @Operation(
             summary = "Get a rental by ID",
             description = "Fetches rental details by its ID for authenticated users.",
@@ -76,6 +157,7 @@ public class RentalController {
                     @ApiResponse(responseCode = "200", description = "Rental found",
                             content = @Content(schema = @Schema(implementation = RentalDTO.class))),
                     @ApiResponse(responseCode = "401", description = "Unauthorized access"),
+                    @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
             }
     )
     @GetMapping("/{id}")
@@ -86,10 +168,37 @@ public class RentalController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        return customRentalDetailsService.getRental(id)
-                .map(rentalMapper::toDTO)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        RentalDTO rentalDTO = customRentalDetailsService.getRentalDTO(id)
+                .orElseThrow(() -> ResourceNotFoundException.RENTAL);
+
+        rentalStatsService.recordView(rentalDTO.getId());
+        popularRentalsService.recordView(rentalDTO.getId());
+
+        return ResponseEntity.ok(rentalDTO);
+    }
+
+
+    @Operation(
+            summary = "Get the stats of a rental",
+            description = "Returns the number of messages and views of a rental owned by the authenticated user, "
+                    + "and the date of its last message.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Stats returned",
+                            content = @Content(schema = @Schema(implementation = RentalStatsDTO.class))),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized access"),
+                    @ApiResponse(responseCode = "403", description = "Rental owned by another user", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
+            }
+    )
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<RentalStatsDTO> getRentalStats(@PathVariable Long id, Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        customRentalDetailsService.checkOwner(id, authentication.getName());
+
+        return ResponseEntity.ok(rentalStatsService.getStats(id));
     }
 
 
@@ -98,7 +207,9 @@ public class RentalController {
             description = "Creates a new rental property and associates it with the authenticated user.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Rental created successfully"),
-                    @ApiResponse(responseCode = "401", description = "Unauthorized or invalid request")
+                    @ApiResponse(responseCode = "400", description = "Invalid values, lone coordinate or picture", content = @Content),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized access"),
+                    @ApiResponse(responseCode = "413", description = "Picture or request too large", content = @Content)
             }
     )
     @PostMapping(value = "", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -108,32 +219,35 @@ public class RentalController {
             @RequestParam("price") BigDecimal price,
             @RequestParam("description") String description,
             @RequestParam(value = "picture", required = false) MultipartFile picture,
+            @RequestParam(value = "latitude", required = false) Double latitude,
+            @RequestParam(value = "longitude", required = false) Double longitude,
             Authentication authentication
-    ) {
-        try {
-            User currentUser = getAuthenticatedUser(authentication);
+    ) throws IOException {
+        User currentUser = getAuthenticatedUser(authentication);
 
-            if (currentUser == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
 
-            Rental rental = new Rental();
-            rental.setName(name);
-            rental.setSurface(surface);
-            rental.setPrice(price);
-            rental.setDescription(description);
-            rental.setOwner(currentUser);
+        boolean hasPicture = picture != null && !picture.isEmpty();
 
-            if (picture != null && !picture.isEmpty()) {
-                rental.setPicture(picture.getBytes());
-            }
+        // Rejected before the transaction starts: only the first bytes of the upload are read
+        if (hasPicture && !PictureService.isImage(picture)) {
+            throw InvalidRequestException.INVALID_PICTURE;
+        }
 
-            customRentalDetailsService.saveRental(rental);
+        Rental rental = new Rental();
+        rental.setName(name);
+        rental.setSurface(surface);
+        rental.setPrice(price);
+        rental.setDescription(description);
+        rental.setLatitude(latitude);
+        rental.setLongitude(longitude);
+        rental.setOwner(currentUser);
 
-            return ResponseEntity.ok(Map.of("message", "Rental created !"));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+        customRentalDetailsService.saveRental(rental, hasPicture ? picture : null);
+
+        return ResponseEntity.ok(Map.of("message", "Rental created !"));
     }
 
 
@@ -142,7 +256,10 @@ public class RentalController {
             description = "Updates the rental information of a rental owned by the authenticated user.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Rental updated successfully"),
-                    @ApiResponse(responseCode = "401", description = "Unauthorized or rental not found", content = @Content)
+                    @ApiResponse(responseCode = "400", description = "Invalid request", content = @Content),
+                    @ApiResponse(responseCode = "401", description = "Unauthorized access", content = @Content),
+                    @ApiResponse(responseCode = "403", description = "Rental owned by another user", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "Rental not found", content = @Content)
             }
     )
     @PutMapping("/{id}")
@@ -152,33 +269,30 @@ public class RentalController {
             @RequestParam("surface") Integer surface,
             @RequestParam("price") BigDecimal price,
             @RequestParam("description") String description,
+            @RequestParam(value = "latitude", required = false) Double latitude,
+            @RequestParam(value = "longitude", required = false) Double longitude,
             Authentication authentication
     ) {
-        try {
-            User currentUser = getAuthenticatedUser(authentication);
-
-            if (currentUser == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
-
-            Rental rental = customRentalDetailsService.getRental(id).orElse(null);
-
-            if (rental == null) {
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-            }
+        User currentUser = getAuthenticatedUser(authentication);
 
-            rental.setName(name);
-            rental.setSurface(surface);
-            rental.setPrice(price);
-            rental.setDescription(description);
+        if (currentUser == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
 
-            customRentalDetailsService.updateRental(rental);
+        Rental changes = new Rental();
+        changes.setName(name);
+        changes.setSurface(surface);
+        changes.setPrice(price);
+        changes.setDescription(description);
+        changes.setLatitude(latitude);
+        changes.setLongitude(longitude);
 
-            return ResponseEntity
-                    .ok(Map.of("message", "Rental updated !"));
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (!customRentalDetailsService.updateOwnedRental(id, currentUser.getId(), changes)) {
+            throw ForbiddenException.RENTAL_NOT_OWNED;
         }
+
+        return ResponseEntity
+                .ok(Map.of("message", "Rental updated !"));
     }
 
     /**
@@ -1,8 +1,7 @@
 package com.openclassrooms.chatop.controller;
 
 import com.openclassrooms.chatop.dto.UserDTO;
-
-import com.openclassrooms.chatop.mapper.UserMapper;
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -22,11 +21,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.openclassrooms.chatop.model.User;
 import com.openclassrooms.chatop.service.CustomUserDetailsService;
 
-import java.util.Optional;
-
 @RestController
 @RequestMapping("/api/user")
 @RequiredArgsConstructor
@@ -35,7 +31,6 @@ public class UserController {
 
 
     private final CustomUserDetailsService customUserDetailsService;
-    private final UserMapper userMapper;
 
 
     @Operation(
@@ -44,6 +39,7 @@ public class UserController {
             responses = {
                     @ApiResponse(responseCode = "200", description = "User found", content = @Content(schema = @Schema(implementation = UserDTO.class))),
                     @ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
             }
     )
     @GetMapping("/{id}")
@@ -54,13 +50,9 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
 
-        Optional<User> optionalUser = customUserDetailsService.getUser(id);
+        UserDTO userDTO = customUserDetailsService.getUserDTO(id)
+                .orElseThrow(() -> ResourceNotFoundException.USER);
 
-        if (optionalUser.isPresent()) {
-            UserDTO userDTO = userMapper.toDTO(optionalUser.get());
-            return ResponseEntity.ok(userDTO);
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+        return ResponseEntity.ok(userDTO);
     }
 }
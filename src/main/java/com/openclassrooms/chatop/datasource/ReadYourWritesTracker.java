@@ -0,0 +1,110 @@
+package com.openclassrooms.chatop.datasource;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Remembers which clients wrote to the primary database recently, so that their reads can be sent
+ * to the primary too until the replica has caught up.
+ * <p>
+ * Clients are identified by the authenticated user, or by their IP address for anonymous requests
+ * (registration followed by login). Entries expire after the configured window and the map is
+ * purged of expired entries whenever it grows past its maximum size.
+ */
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final int maxClients;
+    private final Map<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final AtomicBoolean purging = new AtomicBoolean();
+
+    /**
+     * Creates a tracker.
+     *
+     * @param window     how long reads stay on the primary after a write
+     * @param maxClients the number of clients above which expired entries are purged
+     */
+    public ReadYourWritesTracker(Duration window, int maxClients) {
+        this.windowNanos = window.toNanos();
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Records that the current client has just written to the primary database.
+     */
+    public void markWrite() {
+        String client = currentClient();
+
+        if (client == null || windowNanos <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        lastWrites.put(client, now);
+
+        if (lastWrites.size() > maxClients) {
+            purge(now);
+        }
+    }
+
+    /**
+     * Indicates whether the current client wrote to the primary database within the window.
+     *
+     * @return true if the reads of the current client must go to the primary
+     */
+    public boolean isRecentWriter() {
+        String client = currentClient();
+
+        if (client == null) {
+            return false;
+        }
+
+        Long lastWrite = lastWrites.get(client);
+        return lastWrite != null && System.nanoTime() - lastWrite < windowNanos;
+    }
+
+    /**
+     * Identifies the client of the current request.
+     *
+     * @return the authenticated user name, the client IP, or null outside of a request
+     */
+    private String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.isAuthenticated() && authentication.getName() != null) {
+            return "user:" + authentication.getName();
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            return "ip:" + request.getRemoteAddr();
+        }
+
+        return null;
+    }
+
+    private void purge(long now) {
+        if (!purging.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+        } finally {
+            purging.set(false);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.chatop.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to the replica and every other connection to
+ * the primary, except for clients that wrote recently (read-your-writes).
+ * <p>
+ * The routing decision reads the current transaction state, so this data source must be wrapped
+ * in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the physical
+ * connection is then fetched on the first statement, once the transaction is fully set up.
+ * <p>
+ * Reads that must see the latest committed data whoever the client is, such as reloading a cache
+ * entry that was just invalidated, can be forced to the primary with {@link #readFromPrimary(Supplier)}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    /**
+     * Creates a routing data source.
+     *
+     * @param primary               the data source receiving writes
+     * @param replica               the data source receiving read-only transactions
+     * @param readYourWritesTracker the tracker keeping recent writers on the primary
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs reads on the primary, even in a read-only transaction. The connection must not have been
+     * fetched yet: call it before the first statement of the transaction. Without a replica, the reads
+     * simply run as usual.
+     *
+     * @param reads the reads to run
+     * @param <T>   the type of the result
+     * @return the result of the reads
+     */
+    public static <T> T readFromPrimary(Supplier<T> reads) {
+        Boolean previous = PRIMARY_READS.get();
+        PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return reads.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_READS.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesTracker.markWrite();
+            }
+            return Route.PRIMARY;
+        }
+
+        if (PRIMARY_READS.get() != null) {
+            return Route.PRIMARY;
+        }
+
+        return readYourWritesTracker.isRecentWriter() ? Route.PRIMARY : Route.REPLICA;
+    }
+}
@@ -1,11 +1,20 @@
 package com.openclassrooms.chatop.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Data
 public class MessageDTO {
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "ID of the message, only set when listing messages", example = "42",
+            accessMode = Schema.AccessMode.READ_ONLY)
+    private Long id;
+
     @Schema(description = "ID of the rental", example = "1")
     private Integer rental_id;
 
@@ -14,4 +23,9 @@ public class MessageDTO {
 
     @Schema(description = "The content of the message", example = "Hello, I’m interested in this rental.")
     private String message;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Date and time the message was sent, only set when listing messages",
+            example = "2025-01-15T09:45:00", accessMode = Schema.AccessMode.READ_ONLY)
+    private LocalDateTime created_at;
 }
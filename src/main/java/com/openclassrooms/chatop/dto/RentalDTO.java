@@ -1,5 +1,10 @@
 package com.openclassrooms.chatop.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import com.openclassrooms.chatop.serializer.PictureDataUriSerializer;
+
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 
@@ -24,8 +29,20 @@ public class RentalDTO {
     @Schema(description = "Description of the rental", example = "Nice apartment close to the Eiffel Tower.")
     private String description;
 
-    @Schema(description = "URL or base64 representation of the rental picture")
-    private String picture;
+    @JsonSerialize(using = PictureDataUriSerializer.class)
+    @Schema(type = "string", description = "URL or base64 representation of the rental picture",
+            example = "data:image/jpeg;base64,/9j/4AAQSkZJRg...")
+    private byte[] picture;
+
+    @Schema(description = "Latitude of the rental", example = "48.8584")
+    private Double latitude;
+
+    @Schema(description = "Longitude of the rental", example = "2.2945")
+    private Double longitude;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @Schema(description = "Distance in meters from the searched point, only set by the nearby search", example = "1250.4")
+    private Double distance;
 
     @Schema(description = "ID of the owner of the rental", example = "3")
     private Long owner_id;
@@ -0,0 +1,22 @@
+package com.openclassrooms.chatop.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class RentalStatsDTO {
+
+    @Schema(description = "ID of the rental", example = "5")
+    private Long rental_id;
+
+    @Schema(description = "Number of messages received for the rental", example = "12")
+    private long message_count;
+
+    @Schema(description = "Number of times the rental has been viewed", example = "340")
+    private long view_count;
+
+    @Schema(description = "Date and time of the last message received", example = "2025-01-15T09:45:00")
+    private LocalDateTime last_message_at;
+}
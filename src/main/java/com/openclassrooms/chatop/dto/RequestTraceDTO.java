@@ -0,0 +1,30 @@
+package com.openclassrooms.chatop.dto;
+
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+public class RequestTraceDTO {
+
+    private String trace_id;
+
+    private String method;
+
+    private String path;
+
+    private int status;
+
+    private Instant started_at;
+
+    private double duration_ms;
+
+    private Map<String, Double> stages_ms;
+
+    private Map<String, Integer> stage_counts;
+
+    private int sql_statements;
+
+    private long sql_ms;
+}
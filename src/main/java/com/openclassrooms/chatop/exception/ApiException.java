@@ -0,0 +1,26 @@
+package com.openclassrooms.chatop.exception;
+
+import lombok.Getter;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Expected failure of a request, answered by {@link GlobalExceptionHandler} with its status and
+ * a {@code {"error": code, "message": message}} body.
+ * <p>
+ * These exceptions describe outcomes such as a missing rental, not bugs: they carry no stack trace
+ * and are preallocated as constants in their subclasses, so throwing one costs no more than
+ * returning a value.
+ */
+@Getter
+public class ApiException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final String code;
+
+    protected ApiException(HttpStatus status, String code, String message) {
+        super(message, null, false, false);
+        this.status = status;
+        this.code = code;
+    }
+}
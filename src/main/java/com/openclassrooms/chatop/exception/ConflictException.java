@@ -0,0 +1,16 @@
+package com.openclassrooms.chatop.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request conflicts with the current state of the data (409).
+ */
+public class ConflictException extends ApiException {
+
+    public static final ConflictException EMAIL_ALREADY_REGISTERED = new ConflictException("email_already_registered", "Email already registered");
+    public static final ConflictException IDEMPOTENCY_CONFLICT = new ConflictException("idempotency_conflict", "The original request with this Idempotency-Key failed or is still running");
+
+    private ConflictException(String code, String message) {
+        super(HttpStatus.CONFLICT, code, message);
+    }
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.chatop.exception;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+
+/**
+ * Writes the error responses of {@link ErrorResponses} from the servlet filters, which answer before
+ * Spring MVC and the {@link GlobalExceptionHandler}: their errors get the same body and are counted
+ * in {@code chatop.http.errors} too.
+ */
+public class ErrorResponseWriter {
+
+    private final ErrorResponses errorResponses;
+    private final ObjectMapper objectMapper;
+
+    public ErrorResponseWriter(MeterRegistry meterRegistry, ObjectMapper objectMapper) {
+        this.errorResponses = new ErrorResponses(meterRegistry);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Answers an {@link ApiException} with the status and code it carries.
+     *
+     * @param response the HTTP response
+     * @param e        the exception
+     * @throws IOException if the response cannot be written
+     */
+    public void write(HttpServletResponse response, ApiException e) throws IOException {
+        write(response, errorResponses.apiError(e));
+    }
+
+    /**
+     * Answers too many attempts with a 429 and a {@code Retry-After} header.
+     *
+     * @param response   the HTTP response
+     * @param retryAfter the delay before the next attempt may succeed, in seconds
+     * @throws IOException if the response cannot be written
+     */
+    public void tooManyRequests(HttpServletResponse response, long retryAfter) throws IOException {
+        write(response, errorResponses.tooManyRequests(retryAfter));
+    }
+
+    /**
+     * Answers an invalid request with its standard status, the code being the name of the status.
+     *
+     * @param response the HTTP response
+     * @param status   the standard status of the error
+     * @param message  the detail of the error
+     * @throws IOException if the response cannot be written
+     */
+    public void standardError(HttpServletResponse response, HttpStatusCode status, String message) throws IOException {
+        write(response, errorResponses.standardError(status, message, null));
+    }
+
+    /**
+     * Copies an error response built by {@link ErrorResponses} to the servlet response.
+     *
+     * @param response the HTTP response
+     * @param error    the error response
+     * @throws IOException if the response cannot be written
+     */
+    private void write(HttpServletResponse response, ResponseEntity<Object> error) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(error.getBody());
+
+        response.setStatus(error.getStatusCode().value());
+        error.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,135 @@
+package com.openclassrooms.chatop.exception;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the error responses of the API, with a {@code {"error": code, "message": message}} body,
+ * and counts each of them in {@code chatop.http.errors}, tagged with its status and code.
+ * Shared by the servlet and reactive exception handlers, so that both stacks answer the same
+ * errors with the same statuses and bodies.
+ */
+public class ErrorResponses {
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final MeterRegistry meterRegistry;
+
+    public ErrorResponses(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Answers an {@link ApiException} with the status and code it carries (404, 409, 400, ...).
+     * A 503 also gets a {@code Retry-After} header.
+     *
+     * @param e the exception
+     * @return the error response
+     */
+    public ResponseEntity<Object> apiError(ApiException e) {
+        HttpHeaders headers = new HttpHeaders();
+
+        if (e.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+            headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        }
+
+        return error(e.getStatus(), e.getCode(), e.getMessage(), headers);
+    }
+
+    /**
+     * Answers failed credentials with a 401.
+     *
+     * @return the error response
+     */
+    public ResponseEntity<Object> invalidCredentials() {
+        return error(HttpStatus.UNAUTHORIZED, "invalid_credentials", "Invalid credentials", new HttpHeaders());
+    }
+
+    /**
+     * Answers a constraint violation with a 409.
+     *
+     * @return the error response
+     */
+    public ResponseEntity<Object> dataConflict() {
+        return error(HttpStatus.CONFLICT, "data_conflict", "The request conflicts with existing data", new HttpHeaders());
+    }
+
+    /**
+     * Answers a database outage or timeout with a 503 and a {@code Retry-After} header, so that
+     * clients back off instead of retrying immediately.
+     *
+     * @return the error response
+     */
+    public ResponseEntity<Object> databaseUnavailable() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "database_unavailable", "Service temporarily unavailable", headers);
+    }
+
+    /**
+     * Answers too many attempts with a 429 and a {@code Retry-After} header.
+     *
+     * @param retryAfter the delay before the next attempt may succeed, in seconds
+     * @return the error response
+     */
+    public ResponseEntity<Object> tooManyRequests(long retryAfter) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        return error(HttpStatus.TOO_MANY_REQUESTS, "too_many_requests", "Too many attempts", headers);
+    }
+
+    /**
+     * Answers an unexpected error with a 500, without any detail about the error.
+     *
+     * @return the error response
+     */
+    public ResponseEntity<Object> internalError() {
+        return error(HttpStatus.INTERNAL_SERVER_ERROR, "internal_error", "Internal error", new HttpHeaders());
+    }
+
+    /**
+     * Answers an invalid request detected by the framework with its standard status, the code
+     * being the name of the status.
+     *
+     * @param status  the standard status of the error
+     * @param message the detail of the error
+     * @param headers the headers set by the framework (for example {@code Allow} on a 405)
+     * @return the error response
+     */
+    public ResponseEntity<Object> standardError(HttpStatusCode status, String message, HttpHeaders headers) {
+        HttpStatus resolved = HttpStatus.resolve(status.value());
+        String code = resolved != null ? resolved.name().toLowerCase(Locale.ROOT) : String.valueOf(status.value());
+        return error(status, code, message, headers != null ? headers : new HttpHeaders());
+    }
+
+    /**
+     * Builds an error response and counts it.
+     *
+     * @param status  the status of the response
+     * @param code    the code identifying the cause of the error
+     * @param message the message describing the error
+     * @param headers the headers of the response
+     * @return the error response
+     */
+    public ResponseEntity<Object> error(HttpStatusCode status, String code, String message, HttpHeaders headers) {
+        Counter.builder("chatop.http.errors")
+                .description("Error responses, by status and cause")
+                .tag("status", String.valueOf(status.value()))
+                .tag("code", code)
+                .register(meterRegistry)
+                .increment();
+
+        return ResponseEntity
+                .status(status)
+                .headers(headers)
+                .body(Map.of("error", code, "message", message != null ? message : code));
+    }
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.chatop.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the authenticated user is not allowed to access an existing resource (403).
+ */
+public class ForbiddenException extends ApiException {
+
+    public static final ForbiddenException RENTAL_NOT_OWNED = new ForbiddenException("rental_not_owned", "Rental owned by another user");
+
+    private ForbiddenException(String code, String message) {
+        super(HttpStatus.FORBIDDEN, code, message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.openclassrooms.chatop.exception;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.security.core.AuthenticationException;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import org.springframework.validation.FieldError;
+
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+/**
+ * Turns the exceptions escaping the controllers into responses with a distinct status per cause
+ * and a {@code {"error": code, "message": message}} body:
+ * <ul>
+ *     <li>{@link ApiException}: the status and code it carries (404, 409, 400, ...)</li>
+ *     <li>authentication failures: 401</li>
+ *     <li>constraint violations: 409</li>
+ *     <li>database unavailable or timing out: 503 with a {@code Retry-After} header, so that clients
+ *     back off instead of retrying immediately</li>
+ *     <li>invalid requests detected by Spring MVC: their standard status (400, 404, 405, 413, ...)</li>
+ *     <li>anything else: 500, logged with its stack trace</li>
+ * </ul>
+ * Responses are built by {@link ErrorResponses}, which counts them in {@code chatop.http.errors}.
+ */
+@Slf4j
+@RestControllerAdvice
+public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final ErrorResponses errorResponses;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.errorResponses = new ErrorResponses(meterRegistry);
+    }
+
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<Object> handleApiException(ApiException e) {
+        return errorResponses.apiError(e);
+    }
+
+    @ExceptionHandler(AuthenticationException.class)
+    public ResponseEntity<Object> handleAuthenticationException(AuthenticationException e) {
+        log.warn("Authentication error : {}", e.getMessage());
+        return errorResponses.invalidCredentials();
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolation(DataIntegrityViolationException e) {
+        log.warn("Constraint violation : {}", e.getMostSpecificCause().getMessage());
+        return errorResponses.dataConflict();
+    }
+
+    @ExceptionHandler({
+            TransientDataAccessException.class,
+            DataAccessResourceFailureException.class,
+            CannotCreateTransactionException.class
+    })
+    public ResponseEntity<Object> handleDatabaseUnavailable(RuntimeException e) {
+        log.error("Database unavailable : {}", e.getMessage());
+        return errorResponses.databaseUnavailable();
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleUnexpectedException(Exception e) {
+        log.error("Unexpected error", e);
+        return errorResponses.internalError();
+    }
+
+    /**
+     * Reports the first invalid field of a {@code @Valid} request body with its validation message.
+     */
+    @Override
+    protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
+                                                                  HttpHeaders headers,
+                                                                  HttpStatusCode status,
+                                                                  WebRequest request) {
+        FieldError fieldError = ex.getBindingResult().getFieldError();
+        String message = fieldError != null ? fieldError.getDefaultMessage() : "Invalid request content";
+        return errorResponses.error(status, "invalid_field", message, headers);
+    }
+
+    /**
+     * Replaces the problem details produced for the standard Spring MVC exceptions with the
+     * error body of the application.
+     */
+    @Override
+    protected ResponseEntity<Object> handleExceptionInternal(Exception ex,
+                                                             Object body,
+                                                             HttpHeaders headers,
+                                                             HttpStatusCode statusCode,
+                                                             WebRequest request) {
+        String message = body instanceof ProblemDetail problemDetail && problemDetail.getDetail() != null
+                ? problemDetail.getDetail()
+                : ex.getMessage();
+
+        return errorResponses.standardError(statusCode, message, headers);
+    }
+}
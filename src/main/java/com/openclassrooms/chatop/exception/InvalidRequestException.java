@@ -0,0 +1,21 @@
+package com.openclassrooms.chatop.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the content of a request is invalid (400).
+ */
+public class InvalidRequestException extends ApiException {
+
+    public static final InvalidRequestException MISSING_FIELDS = new InvalidRequestException("missing_fields", "Required fields are missing");
+    public static final InvalidRequestException EMPTY_MESSAGE = new InvalidRequestException("empty_message", "The message is empty");
+    public static final InvalidRequestException INVALID_PICTURE = new InvalidRequestException("invalid_picture", "The picture must be a JPEG, PNG, GIF or WebP image");
+    public static final InvalidRequestException INVALID_LIMIT = new InvalidRequestException("invalid_limit", "Invalid limit");
+    public static final InvalidRequestException INVALID_RENTAL = new InvalidRequestException("invalid_rental", "Invalid name, surface, price or coordinates");
+    public static final InvalidRequestException INVALID_SEARCH = new InvalidRequestException("invalid_search", "Invalid coordinates, radius or cursor");
+    public static final InvalidRequestException INVALID_IDEMPOTENCY_KEY = new InvalidRequestException("invalid_idempotency_key", "The Idempotency-Key header must have 1 to 255 characters");
+
+    private InvalidRequestException(String code, String message) {
+        super(HttpStatus.BAD_REQUEST, code, message);
+    }
+}
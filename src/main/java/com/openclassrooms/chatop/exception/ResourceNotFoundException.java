@@ -0,0 +1,16 @@
+package com.openclassrooms.chatop.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the resource targeted by a request does not exist (404).
+ */
+public class ResourceNotFoundException extends ApiException {
+
+    public static final ResourceNotFoundException RENTAL = new ResourceNotFoundException("rental_not_found", "Rental not found");
+    public static final ResourceNotFoundException USER = new ResourceNotFoundException("user_not_found", "User not found");
+
+    private ResourceNotFoundException(String code, String message) {
+        super(HttpStatus.NOT_FOUND, code, message);
+    }
+}
@@ -0,0 +1,15 @@
+package com.openclassrooms.chatop.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request cannot be handled for now and should be retried later (503).
+ */
+public class ServiceUnavailableException extends ApiException {
+
+    public static final ServiceUnavailableException IDEMPOTENCY_KEYS_FULL = new ServiceUnavailableException("idempotency_unavailable", "Too many requests in progress, retry later");
+
+    private ServiceUnavailableException(String code, String message) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, code, message);
+    }
+}
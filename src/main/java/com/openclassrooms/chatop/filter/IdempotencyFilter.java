@@ -0,0 +1,198 @@
+package com.openclassrooms.chatop.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.exception.ApiException;
+import com.openclassrooms.chatop.exception.ConflictException;
+import com.openclassrooms.chatop.exception.ErrorResponseWriter;
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+import com.openclassrooms.chatop.idempotency.IdempotencyStore;
+import com.openclassrooms.chatop.idempotency.IdempotentResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes the creation endpoints safe to retry with an {@code Idempotency-Key} header.
+ * <p>
+ * The first request for a key runs normally and its response is recorded. Repeated requests with
+ * the same key, from the same user and on the same endpoint, get the recorded response back
+ * (with an {@code Idempotent-Replayed} header) without reaching the controller, so neither the
+ * database write nor the parsing of the uploaded picture happens twice. A repeat arriving while
+ * the first request is still running waits for its response.
+ * <p>
+ * Server errors are not recorded: the key is released and the request can be retried. Requests
+ * without the header are not affected. Invalid keys, conflicts and a full store are answered with
+ * the error body of the API.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/api/rentals", "/api/messages");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final Duration inFlightTimeout;
+    private final ErrorResponseWriter errorResponseWriter;
+    private final Counter replays;
+    private final Counter conflicts;
+
+    /**
+     * Constructs a new IdempotencyFilter.
+     *
+     * @param store           the store of the recorded responses
+     * @param inFlightTimeout how long a repeated request waits for the first one to finish
+     * @param objectMapper    the mapper writing the error responses
+     * @param meterRegistry   the registry where replayed requests and errors are counted
+     */
+    public IdempotencyFilter(IdempotencyStore store, Duration inFlightTimeout, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.store = store;
+        this.inFlightTimeout = inFlightTimeout;
+        this.errorResponseWriter = new ErrorResponseWriter(meterRegistry, objectMapper);
+        this.replays = Counter.builder("chatop.idempotency.requests")
+                .description("Requests answered from a previously recorded response")
+                .tag("outcome", "replayed")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("chatop.idempotency.requests")
+                .description("Repeated requests whose original request failed or did not finish in time")
+                .tag("outcome", "conflict")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !IDEMPOTENT_PATHS.contains(request.getRequestURI())
+                || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            errorResponseWriter.write(response, InvalidRequestException.INVALID_IDEMPOTENCY_KEY);
+            return;
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        // Unauthenticated requests are rejected further down the chain: nothing to record
+        if (authentication == null || authentication.getName() == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = scopedKey(authentication.getName(), request.getRequestURI(), idempotencyKey);
+        CompletableFuture<IdempotentResponse> original;
+
+        try {
+            original = store.begin(key);
+        } catch (ApiException e) {
+            errorResponseWriter.write(response, e);
+            return;
+        }
+
+        if (original != null) {
+            replay(original, response);
+            return;
+        }
+
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean recorded = false;
+
+        try {
+            filterChain.doFilter(request, responseWrapper);
+
+            if (responseWrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                store.complete(key, new IdempotentResponse(
+                        responseWrapper.getStatus(),
+                        responseWrapper.getContentType(),
+                        responseWrapper.getContentAsByteArray()
+                ));
+                recorded = true;
+            }
+        } finally {
+            if (!recorded) {
+                store.abandon(key);
+            }
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    /**
+     * Sends the response of the original request, waiting for it if it is still running.
+     * Answers 409 (Conflict) if the original request failed or did not finish in time.
+     */
+    private void replay(CompletableFuture<IdempotentResponse> original, HttpServletResponse response) throws IOException {
+        IdempotentResponse recorded;
+
+        try {
+            recorded = original.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recorded = null;
+        } catch (ExecutionException | TimeoutException e) {
+            recorded = null;
+        }
+
+        if (recorded == null) {
+            conflicts.increment();
+            errorResponseWriter.write(response, ConflictException.IDEMPOTENCY_CONFLICT);
+            return;
+        }
+
+        replays.increment();
+        response.setStatus(recorded.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+
+        if (recorded.getContentType() != null) {
+            response.setContentType(recorded.getContentType());
+        }
+
+        response.setContentLength(recorded.getBody().length);
+        response.getOutputStream().write(recorded.getBody());
+    }
+
+    /**
+     * Hashes the key sent by the client together with the user and the endpoint, so that two users
+     * (or two endpoints) sending the same key never share a response.
+     */
+    private static String scopedKey(String user, String path, String idempotencyKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((user + '\n' + path + '\n' + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
+import com.openclassrooms.chatop.tracing.RequestTracing;
+
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -54,7 +56,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             String token = authorizationHeader.substring(7);
             try {
-                Jwt jwt = jwtDecoder.decode(token);
+                Jwt jwt;
+                try (RequestTracing.Span span = RequestTracing.start(RequestTracing.JWT_DECODE)) {
+                    jwt = jwtDecoder.decode(token);
+                }
                 String email = jwt.getSubject();
                 List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("USER"));
 
@@ -0,0 +1,208 @@
+package com.openclassrooms.chatop.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.exception.ErrorResponseWriter;
+import com.openclassrooms.chatop.ratelimit.TokenBucketRegistry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Rejects excessive login and registration attempts before any password hashing or database access.
+ * <p>
+ * Each attempt takes a token from a bucket keyed by the client IP, then from a bucket keyed by the
+ * email found in the request body. Behind a reverse proxy, the client IP is the one the proxy puts in
+ * {@code X-Forwarded-For}, resolved by the server ({@code server.forward-headers-strategy}) before
+ * this filter runs. When either bucket is empty the request is answered with
+ * 429 (Too Many Requests) and a {@code Retry-After} header, with the error body of the API and
+ * counted in {@code chatop.http.errors}.
+ */
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Set<String> LIMITED_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+    private static final int MAX_BODY_BYTES = 8 * 1024;
+
+    private final TokenBucketRegistry ipBuckets;
+    private final TokenBucketRegistry emailBuckets;
+    private final ObjectMapper objectMapper;
+    private final ErrorResponseWriter errorResponseWriter;
+    private final Counter ipRejections;
+    private final Counter emailRejections;
+
+    /**
+     * Constructs a new LoginRateLimitFilter.
+     *
+     * @param ipBuckets     the buckets limiting attempts per client IP
+     * @param emailBuckets  the buckets limiting attempts per email
+     * @param objectMapper  the mapper used to read the email from the JSON body and write the errors
+     * @param meterRegistry the registry where rejections and errors are counted
+     */
+    public LoginRateLimitFilter(TokenBucketRegistry ipBuckets,
+                                TokenBucketRegistry emailBuckets,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry) {
+        this.ipBuckets = ipBuckets;
+        this.emailBuckets = emailBuckets;
+        this.objectMapper = objectMapper;
+        this.errorResponseWriter = new ErrorResponseWriter(meterRegistry, objectMapper);
+        this.ipRejections = Counter.builder("chatop.auth.rate_limited")
+                .description("Login and register attempts rejected by the rate limiter")
+                .tag("limit", "ip")
+                .register(meterRegistry);
+        this.emailRejections = Counter.builder("chatop.auth.rate_limited")
+                .description("Login and register attempts rejected by the rate limiter")
+                .tag("limit", "email")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !LIMITED_PATHS.contains(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        long retryAfter = ipBuckets.tryConsume(request.getRemoteAddr());
+
+        if (retryAfter > 0) {
+            ipRejections.increment();
+            errorResponseWriter.tooManyRequests(response, retryAfter);
+            return;
+        }
+
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+
+        if (body.length > MAX_BODY_BYTES) {
+            errorResponseWriter.standardError(response, HttpStatus.PAYLOAD_TOO_LARGE, "Request body too large");
+            return;
+        }
+
+        String email = extractEmail(body);
+
+        if (email != null) {
+            retryAfter = emailBuckets.tryConsume(email);
+
+            if (retryAfter > 0) {
+                emailRejections.increment();
+                errorResponseWriter.tooManyRequests(response, retryAfter);
+                return;
+            }
+        }
+
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+
+    /**
+     * Reads the normalized email from a JSON request body.
+     *
+     * @param body the raw request body
+     * @return the lower-cased email, or null if the body has no usable email
+     */
+    private String extractEmail(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+
+            if (email == null || !email.isTextual() || email.asText().isBlank()) {
+                return null;
+            }
+
+            return email.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Request wrapper replaying a body that has already been read by the filter.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The body is already in memory: the listener is told right away that it can be
+                 * read, then that it has been read, as the container would for a fully received body.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.openclassrooms.chatop.filter;
+
+import com.openclassrooms.chatop.tracing.RequestEvent;
+import com.openclassrooms.chatop.tracing.RequestTrace;
+import com.openclassrooms.chatop.tracing.RequestTracing;
+import com.openclassrooms.chatop.tracing.SlowRequestLog;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.slf4j.MDC;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Gives each request a trace ID and records the time spent in its stages.
+ * <p>
+ * The trace ID is taken from the {@code X-Request-Id} header when the client (or a proxy) sends a
+ * valid one, generated otherwise. It is returned in the same header and put in the logging context
+ * under {@code traceId}, so every log line written while handling the request carries it.
+ * Finished requests are offered to the {@link SlowRequestLog}, and a warning listing their SQL
+ * statements is logged when they ran more statements, or spent more time in them, than allowed.
+ */
+@Slf4j
+public class RequestTracingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+    public static final String TRACE_ID_KEY = "traceId";
+
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    private final SlowRequestLog slowRequestLog;
+    private final int maxStatements;
+    private final long maxStatementMillis;
+
+    /**
+     * Constructs a new RequestTracingFilter.
+     *
+     * @param slowRequestLog   the log receiving the finished requests
+     * @param maxStatements    the number of SQL statements above which a request is logged
+     * @param maxStatementTime the time spent in SQL statements above which a request is logged
+     */
+    public RequestTracingFilter(SlowRequestLog slowRequestLog, int maxStatements, Duration maxStatementTime) {
+        this.slowRequestLog = slowRequestLog;
+        this.maxStatements = maxStatements;
+        this.maxStatementMillis = maxStatementTime.toMillis();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        String traceId = request.getHeader(REQUEST_ID_HEADER);
+
+        if (traceId == null || !VALID_REQUEST_ID.matcher(traceId).matches()) {
+            traceId = HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextLong());
+        }
+
+        RequestTrace trace = new RequestTrace(traceId, request.getMethod(), request.getRequestURI());
+        RequestEvent event = new RequestEvent();
+        event.begin();
+
+        response.setHeader(REQUEST_ID_HEADER, traceId);
+        MDC.put(TRACE_ID_KEY, traceId);
+        RequestTracing.bind(trace);
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestTracing.unbind();
+
+            trace.finish(response.getStatus());
+            slowRequestLog.record(trace);
+
+            if (trace.getStatementCount() > maxStatements || trace.getStatementMillis() > maxStatementMillis) {
+                logStatements(trace);
+            }
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.traceId = traceId;
+                event.method = trace.getMethod();
+                event.path = trace.getPath();
+                event.status = trace.getStatus();
+                event.commit();
+            }
+
+            MDC.remove(TRACE_ID_KEY);
+        }
+    }
+
+    /**
+     * Logs the SQL statements of a request that exceeded its SQL budget.
+     *
+     * @param trace the trace of the finished request
+     */
+    private void logStatements(RequestTrace trace) {
+        StringBuilder statements = new StringBuilder();
+        trace.getStatements().forEach(sql -> statements.append(System.lineSeparator()).append("    ").append(sql));
+
+        if (trace.getStatementCount() > trace.getStatements().size()) {
+            statements.append(System.lineSeparator()).append("    ...");
+        }
+
+        log.warn("SQL budget exceeded by request {} {} : {} statements in {} ms{}",
+                trace.getMethod(), trace.getPath(),
+                trace.getStatementCount(), trace.getStatementMillis(), statements);
+    }
+}
@@ -0,0 +1,158 @@
+package com.openclassrooms.chatop.geo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Geohash encoding of coordinates, used to index the location of rentals with a plain B-tree index.
+ * <p>
+ * A geohash interleaves the bits of the longitude and latitude and writes them in base 32: each
+ * character splits a cell in 32 smaller cells, so all the points of a cell share the geohash of the
+ * cell as a prefix, and a prefix search on an index over the geohashes reads one cell only.
+ * <p>
+ * Geohashes are compatible with the {@code ST_GeoHash} function of MySQL, which fills the column of
+ * the rentals created before it was added.
+ */
+public final class Geohash {
+
+    /**
+     * The number of characters of the geohash stored for each rental, about 4 cm precise.
+     */
+    public static final int PRECISION = 12;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    // Length of a degree of latitude, on the sphere used by the distance computations
+    private static final double METERS_PER_DEGREE = 6371000 * Math.PI / 180;
+
+    private Geohash() {
+    }
+
+    /**
+     * Encodes a point in a geohash of {@link #PRECISION} characters.
+     *
+     * @param latitude  the latitude of the point
+     * @param longitude the longitude of the point
+     * @return the geohash of the point
+     */
+    public static String encode(double latitude, double longitude) {
+        return encode(latitude, longitude, PRECISION);
+    }
+
+    /**
+     * Encodes a point in a geohash of the given length.
+     *
+     * @param latitude  the latitude of the point
+     * @param longitude the longitude of the point
+     * @param precision the number of characters of the geohash
+     * @return the geohash of the point
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLatitude = -90;
+        double maxLatitude = 90;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        boolean evenBit = true;
+        StringBuilder geohash = new StringBuilder(precision);
+
+        while (geohash.length() < precision) {
+            int index = 0;
+
+            for (int bit = 0; bit < 5; bit++) {
+                // Longitude and latitude bits alternate, starting with the longitude
+                if (evenBit) {
+                    double middle = (minLongitude + maxLongitude) / 2;
+                    if (longitude >= middle) {
+                        index = index * 2 + 1;
+                        minLongitude = middle;
+                    } else {
+                        index = index * 2;
+                        maxLongitude = middle;
+                    }
+                } else {
+                    double middle = (minLatitude + maxLatitude) / 2;
+                    if (latitude >= middle) {
+                        index = index * 2 + 1;
+                        minLatitude = middle;
+                    } else {
+                        index = index * 2;
+                        maxLatitude = middle;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+
+            geohash.append(BASE32.charAt(index));
+        }
+
+        return geohash.toString();
+    }
+
+    /**
+     * Finds the geohash prefixes of the cells covering a circle: the cell of its center and the eight
+     * cells around it, with the longest prefix whose cells are larger than the radius in both directions.
+     * <p>
+     * No prefix is returned when the circle reaches a pole, or when even one-character cells are too
+     * narrow: the whole table must then be searched.
+     *
+     * @param latitude  the latitude of the center
+     * @param longitude the longitude of the center
+     * @param radius    the radius in meters
+     * @return the distinct prefixes of the covering cells, or an empty list to search everywhere
+     */
+    public static List<String> coveringPrefixes(double latitude, double longitude, double radius) {
+        double latitudeDelta = radius / METERS_PER_DEGREE;
+        double farthestLatitude = Math.abs(latitude) + latitudeDelta;
+
+        if (farthestLatitude >= 90) {
+            return List.of();
+        }
+
+        // Cells get narrower towards the poles: the width is checked at the latitude closest to a pole
+        double metersPerLongitudeDegree = METERS_PER_DEGREE * Math.cos(Math.toRadians(farthestLatitude));
+
+        for (int precision = PRECISION; precision > 0; precision--) {
+            int latitudeBits = precision * 5 / 2;
+            int longitudeBits = precision * 5 - latitudeBits;
+            double cellHeight = 180 / Math.pow(2, latitudeBits);
+            double cellWidth = 360 / Math.pow(2, longitudeBits);
+
+            if (cellHeight * METERS_PER_DEGREE >= radius && cellWidth * metersPerLongitudeDegree >= radius) {
+                return neighbourhood(latitude, longitude, precision, cellHeight, cellWidth);
+            }
+        }
+
+        return List.of();
+    }
+
+    /**
+     * Encodes the cell of a point and the eight cells around it, wrapping around the antimeridian.
+     */
+    private static List<String> neighbourhood(double latitude, double longitude, int precision,
+                                              double cellHeight, double cellWidth) {
+        // Center of the cell of the point, so that each step lands in the middle of a neighbouring cell
+        double centerLatitude = (Math.floor((latitude + 90) / cellHeight) + 0.5) * cellHeight - 90;
+        double centerLongitude = (Math.floor((longitude + 180) / cellWidth) + 0.5) * cellWidth - 180;
+        List<String> prefixes = new ArrayList<>(9);
+
+        for (int row = -1; row <= 1; row++) {
+            double cellLatitude = centerLatitude + row * cellHeight;
+
+            if (cellLatitude < -90 || cellLatitude > 90) {
+                continue;
+            }
+
+            for (int column = -1; column <= 1; column++) {
+                double cellLongitude = centerLongitude + column * cellWidth;
+                cellLongitude = cellLongitude >= 180 ? cellLongitude - 360 : cellLongitude < -180 ? cellLongitude + 360 : cellLongitude;
+
+                String prefix = encode(cellLatitude, cellLongitude, precision);
+                if (!prefixes.contains(prefix)) {
+                    prefixes.add(prefix);
+                }
+            }
+        }
+
+        return prefixes;
+    }
+}
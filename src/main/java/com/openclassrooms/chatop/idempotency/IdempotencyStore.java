@@ -0,0 +1,221 @@
+package com.openclassrooms.chatop.idempotency;
+
+import com.openclassrooms.chatop.exception.ServiceUnavailableException;
+import com.openclassrooms.chatop.model.IdempotencyRecord;
+import com.openclassrooms.chatop.repository.IdempotencyRecordRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded in-memory store of the responses recorded for idempotency keys, optionally backed by the
+ * {@code idempotency_keys} table so that keys survive restarts and are shared between instances.
+ * <p>
+ * Each key maps to a future completed with the response of the first request. A request arriving
+ * while the first one is still running gets the same future, so concurrent duplicates wait for a
+ * single execution instead of running again. Entries expire after the configured time to live;
+ * when the store is full, expired entries are evicted first, then arbitrary completed ones.
+ * Requests still running are never evicted: a new key arriving while the store is full of them is
+ * refused, so that the store never grows past its limit.
+ */
+@Slf4j
+public class IdempotencyStore {
+
+    private final long ttlNanos;
+    private final Duration ttl;
+    private final int maxKeys;
+    private final IdempotencyRecordRepository repository;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a store.
+     *
+     * @param ttl        how long a response is kept for its key
+     * @param maxKeys    the maximum number of keys kept in memory
+     * @param repository the table keeping the responses, or null to keep them in memory only
+     */
+    public IdempotencyStore(Duration ttl, int maxKeys, IdempotencyRecordRepository repository) {
+        if (ttl.isNegative() || ttl.isZero() || maxKeys <= 0) {
+            throw new IllegalArgumentException("Idempotency TTL and max keys must be positive");
+        }
+
+        this.ttl = ttl;
+        this.ttlNanos = ttl.toNanos();
+        this.maxKeys = maxKeys;
+        this.repository = repository;
+    }
+
+    /**
+     * Registers the start of a request for a key.
+     *
+     * @param key the idempotency key, already scoped to the user and the endpoint
+     * @return null if the caller is the first request for this key and must execute it,
+     * otherwise the future response of the first request
+     * @throws ServiceUnavailableException if the store is full of requests still running
+     */
+    public CompletableFuture<IdempotentResponse> begin(String key) {
+        long now = System.nanoTime();
+
+        while (true) {
+            Entry existing = entries.get(key);
+
+            if (existing != null && !existing.isExpired(now, ttlNanos)) {
+                return existing.response;
+            }
+
+            if (existing == null && entries.size() >= maxKeys && !evict(now)) {
+                throw ServiceUnavailableException.IDEMPOTENCY_KEYS_FULL;
+            }
+
+            Entry entry = new Entry(now);
+            boolean claimed = existing == null
+                    ? entries.putIfAbsent(key, entry) == null
+                    : entries.replace(key, existing, entry);
+
+            if (claimed) {
+                IdempotentResponse persisted = findPersisted(key);
+
+                if (persisted == null) {
+                    return null;
+                }
+
+                entry.response.complete(persisted);
+                return entry.response;
+            }
+        }
+    }
+
+    /**
+     * Records the response of the first request for a key and releases the requests waiting for it.
+     *
+     * @param key      the idempotency key
+     * @param response the response to send back for repeated requests
+     */
+    public void complete(String key, IdempotentResponse response) {
+        if (repository != null) {
+            try {
+                IdempotencyRecord record = new IdempotencyRecord();
+                record.setIdempotency_key(key);
+                record.setStatus(response.getStatus());
+                record.setContent_type(response.getContentType());
+                record.setBody(response.getBody());
+                record.setCreated_at(LocalDateTime.now());
+                repository.save(record);
+            } catch (RuntimeException e) {
+                log.error("Error when saving idempotency key : {}", e.getMessage());
+            }
+        }
+
+        Entry entry = entries.get(key);
+
+        if (entry != null) {
+            entry.response.complete(response);
+        }
+    }
+
+    /**
+     * Forgets a key whose first request failed, so that it can be retried.
+     * The requests waiting for it fail too.
+     *
+     * @param key the idempotency key
+     */
+    public void abandon(String key) {
+        Entry entry = entries.remove(key);
+
+        if (entry != null) {
+            entry.response.completeExceptionally(new IllegalStateException("Original request failed"));
+        }
+    }
+
+    /**
+     * Returns the number of keys currently kept in memory.
+     *
+     * @return the size of the store
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Deletes the expired keys from memory and from the table. Runs every
+     * {@code app.idempotency.purge-interval}.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now, ttlNanos));
+
+        if (repository != null) {
+            try {
+                repository.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+            } catch (RuntimeException e) {
+                log.error("Error when purging idempotency keys : {}", e.getMessage());
+            }
+        }
+    }
+
+    private IdempotentResponse findPersisted(String key) {
+        if (repository == null) {
+            return null;
+        }
+
+        try {
+            return repository.findById(key)
+                    .filter(record -> record.getCreated_at().isAfter(LocalDateTime.now().minus(ttl)))
+                    .map(record -> new IdempotentResponse(record.getStatus(), record.getContent_type(), record.getBody()))
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            log.error("Error when reading idempotency key : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Removes expired entries, then arbitrary completed ones if the store is still over its limit.
+     * Only one thread evicts at a time; the others wait for it, then find room without scanning again.
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return true if the store has room for a new key
+     */
+    private synchronized boolean evict(long now) {
+        if (entries.size() < maxKeys) {
+            return true;
+        }
+
+        entries.values().removeIf(entry -> entry.isExpired(now, ttlNanos));
+
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() >= maxKeys && iterator.hasNext()) {
+            if (iterator.next().getValue().response.isDone()) {
+                iterator.remove();
+            }
+        }
+
+        return entries.size() < maxKeys;
+    }
+
+    /**
+     * Response, possibly still pending, recorded for a key.
+     */
+    private static class Entry {
+        private final long createdAt;
+        private final CompletableFuture<IdempotentResponse> response = new CompletableFuture<>();
+
+        private Entry(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return response.isDone() && now - createdAt >= ttlNanos;
+        }
+    }
+}
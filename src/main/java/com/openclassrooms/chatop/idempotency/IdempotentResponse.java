@@ -0,0 +1,16 @@
+package com.openclassrooms.chatop.idempotency;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Response recorded for an idempotency key, sent back as is when the request is repeated.
+ */
+@Getter
+@RequiredArgsConstructor
+public class IdempotentResponse {
+
+    private final int status;
+    private final String contentType;
+    private final byte[] body;
+}
@@ -2,10 +2,9 @@ package com.openclassrooms.chatop.mapper;
 
 import com.openclassrooms.chatop.dto.RentalDTO;
 import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.tracing.RequestTracing;
 import org.springframework.stereotype.Component;
 
-import java.util.Base64;
-
 @Component
 public class RentalMapper {
 
@@ -16,22 +15,25 @@ public class RentalMapper {
      * @return the converted RentalDTO object
      */
     public RentalDTO toDTO(Rental rental) {
+        try (RequestTracing.Span span = RequestTracing.start(RequestTracing.MAPPING)) {
+            return map(rental);
+        }
+    }
+
+    private RentalDTO map(Rental rental) {
         RentalDTO rentalDTO = new RentalDTO();
         rentalDTO.setId(rental.getId());
         rentalDTO.setName(rental.getName());
         rentalDTO.setSurface(rental.getSurface());
         rentalDTO.setPrice(rental.getPrice());
         rentalDTO.setDescription(rental.getDescription());
+        rentalDTO.setLatitude(rental.getLatitude());
+        rentalDTO.setLongitude(rental.getLongitude());
         rentalDTO.setOwner_id(rental.getOwner() != null ? rental.getOwner().getId() : null);
         rentalDTO.setCreated_at(rental.getCreated_at());
         rentalDTO.setUpdated_at(rental.getUpdated_at());
-
-        if (rental.getPicture() != null) {
-            String base64Image = Base64.getEncoder().encodeToString(rental.getPicture());
-            rentalDTO.setPicture("data:image/jpeg;base64," + base64Image);
-        } else {
-            rentalDTO.setPicture(null);
-        }
+        // Encoded to a Base64 data URI while the response is written, see PictureDataUriSerializer
+        rentalDTO.setPicture(rental.getPicture() != null ? rental.getPicture().getData() : null);
 
         return rentalDTO;
     }
@@ -2,12 +2,19 @@ package com.openclassrooms.chatop.mapper;
 
 import com.openclassrooms.chatop.dto.UserDTO;
 import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.tracing.RequestTracing;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UserMapper {
 
     public UserDTO toDTO(User user) {
+        try (RequestTracing.Span span = RequestTracing.start(RequestTracing.MAPPING)) {
+            return map(user);
+        }
+    }
+
+    private UserDTO map(User user) {
         UserDTO userDTO = new UserDTO();
         userDTO.setId(user.getId());
         userDTO.setName(user.getName());
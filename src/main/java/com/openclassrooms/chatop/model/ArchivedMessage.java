@@ -0,0 +1,43 @@
+package com.openclassrooms.chatop.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Message moved out of the {@code messages} table by the message archiver, keeping its ID.
+ * The user and the rental are plain IDs: the archive table is partitioned by creation date,
+ * and MySQL does not allow foreign keys on partitioned tables.
+ */
+@Entity
+@Data
+@Table(name = "messages_archive", indexes = @Index(name = "idx_messages_archive_rental", columnList = "rental_id, id"))
+public class ArchivedMessage {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long user_id;
+
+    @Column(name = "rental_id", nullable = false)
+    private Long rental_id;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime created_at;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updated_at;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archived_at;
+}
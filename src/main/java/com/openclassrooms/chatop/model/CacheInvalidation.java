@@ -0,0 +1,35 @@
+package com.openclassrooms.chatop.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "cache_invalidations", indexes = @Index(name = "idx_cache_invalidations_created_at", columnList = "created_at"))
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "origin", columnDefinition = "CHAR(36)", nullable = false)
+    private String origin;
+
+    @Column(name = "cache_name", length = 64, nullable = false)
+    private String cache_name;
+
+    @Column(name = "entity_id")
+    private Long entity_id;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime created_at;
+}
@@ -0,0 +1,35 @@
+package com.openclassrooms.chatop.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", columnDefinition = "CHAR(64)")
+    private String idempotency_key;
+
+    @Column(name = "status", nullable = false)
+    private int status;
+
+    @Column(name = "content_type")
+    private String content_type;
+
+    @Lob
+    @Column(name = "body", columnDefinition = "LONGBLOB")
+    private byte[] body;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime created_at;
+}
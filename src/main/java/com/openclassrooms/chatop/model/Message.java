@@ -5,6 +5,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -19,7 +20,11 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 @Entity
 @Data
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_rental", columnList = "rental_id, id"),
+        @Index(name = "idx_messages_user", columnList = "user_id"),
+        @Index(name = "idx_messages_created_at", columnList = "created_at, id")
+})
 public class Message {
 
     @Id
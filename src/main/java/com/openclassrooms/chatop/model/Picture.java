@@ -0,0 +1,36 @@
+package com.openclassrooms.chatop.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * A picture stored once whatever the number of rentals using it, identified by the SHA-256 of its content.
+ */
+@Entity
+@Data
+@Table(name = "pictures")
+public class Picture {
+
+    @Id
+    @Column(name = "hash", columnDefinition = "CHAR(64)")
+    private String hash;
+
+    @Lob
+    @ToString.Exclude
+    @Column(name = "data", columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] data;
+
+    @Column(name = "size", nullable = false)
+    private long size;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime created_at;
+}
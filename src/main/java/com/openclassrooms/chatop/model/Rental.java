@@ -1,7 +1,10 @@
 package com.openclassrooms.chatop.model;
 
+import com.openclassrooms.chatop.geo.Geohash;
+
 import jakarta.persistence.*;
 
+import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
@@ -16,7 +19,11 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "rentals")
+@Table(name = "rentals", indexes = {
+        @Index(name = "idx_rentals_owner", columnList = "owner_id"),
+        @Index(name = "idx_rentals_picture", columnList = "picture_hash"),
+        @Index(name = "idx_rentals_geohash", columnList = "geohash, latitude, longitude")
+})
 public class Rental {
 
     @Id
@@ -39,13 +46,29 @@ public class Rental {
     @DecimalMin(value = "0.0", inclusive = false, message = "Le prix doit être supérieur à 0")
     private BigDecimal price;
 
-    @Lob
-    @Column(name = "picture", columnDefinition = "LONGBLOB")
-    private byte[] picture;
+    // Shared with the other rentals using the same picture, see PictureService. Lazy so that its
+    // content is only read by the queries fetching it, not when a message or an update loads the rental
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "picture_hash")
+    private Picture picture;
 
     @Column(name = "description", columnDefinition = "TEXT", length = 5000)
     private String description;
 
+    @Column(name = "latitude")
+    @DecimalMin(value = "-90.0", message = "La latitude doit être comprise entre -90 et 90")
+    @DecimalMax(value = "90.0", message = "La latitude doit être comprise entre -90 et 90")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    @DecimalMin(value = "-180.0", message = "La longitude doit être comprise entre -180 et 180")
+    @DecimalMax(value = "180.0", message = "La longitude doit être comprise entre -180 et 180")
+    private Double longitude;
+
+    // Derived from the coordinates, indexed for the nearby search
+    @Column(name = "geohash", length = 12)
+    private String geohash;
+
     @Column(name = "created_at", columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP", nullable = false)
     @CreationTimestamp
     private LocalDateTime created_at;
@@ -54,6 +77,12 @@ public class Rental {
     @UpdateTimestamp
     private LocalDateTime updated_at;
 
+    @PrePersist
+    @PreUpdate
+    void updateGeohash() {
+        this.geohash = latitude != null && longitude != null ? Geohash.encode(latitude, longitude) : null;
+    }
+
     /**
      * Retrieves the ID of the owner associated with this rental.
      *
@@ -0,0 +1,29 @@
+package com.openclassrooms.chatop.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Data
+@Table(name = "rental_stats")
+public class RentalStats {
+
+    @Id
+    @Column(name = "rental_id")
+    private Long rental_id;
+
+    @Column(name = "message_count", nullable = false)
+    private long message_count;
+
+    @Column(name = "view_count", nullable = false)
+    private long view_count;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime last_message_at;
+}
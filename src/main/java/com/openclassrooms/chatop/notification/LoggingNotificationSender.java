@@ -0,0 +1,18 @@
+package com.openclassrooms.chatop.notification;
+
+import com.openclassrooms.chatop.model.Notification;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes notifications to the application log instead of sending them, standing in for a mail
+ * server in development.
+ */
+@Slf4j
+public class LoggingNotificationSender implements NotificationSender {
+
+    @Override
+    public void send(Notification notification) {
+        log.info("Notification to {} : {}", notification.getRecipient(), notification.getSubject());
+    }
+}
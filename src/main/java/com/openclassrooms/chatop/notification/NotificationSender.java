@@ -0,0 +1,20 @@
+package com.openclassrooms.chatop.notification;
+
+import com.openclassrooms.chatop.model.Notification;
+
+/**
+ * Delivers notifications taken from the outbox (email, push, ...).
+ * <p>
+ * A notification can be sent more than once if the relay stops between sending it and recording
+ * the delivery, so implementations should tolerate duplicates.
+ */
+public interface NotificationSender {
+
+    /**
+     * Delivers a notification.
+     *
+     * @param notification the notification to deliver
+     * @throws RuntimeException if the delivery failed and must be retried later
+     */
+    void send(Notification notification);
+}
@@ -0,0 +1,167 @@
+package com.openclassrooms.chatop.popularity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate top-K of the most frequent keys among recent events, in a memory bounded by its
+ * dimensions whatever the number of distinct keys.
+ * <p>
+ * Events are counted in a Count-Min sketch: {@code depth} rows of {@code width} counters, each key
+ * incrementing one counter per row chosen by a different hash. The count of a key is estimated by the
+ * smallest of its counters: collisions may overestimate it, never underestimate it. Counters are
+ * fixed-point values incremented with a single atomic add, so recording an event takes no lock.
+ * <p>
+ * A key whose estimate reaches the score of the K-th key of the last snapshot becomes a candidate.
+ * {@link #snapshot(long)} ranks the candidates, publishes the top K as an immutable list, and decays
+ * every counter so that an event loses half of its weight every half-life: the ranking follows recent
+ * events rather than all-time counts. Events are decayed as if they had all happened at the previous
+ * snapshot, which is precise enough when snapshots are much more frequent than the half-life.
+ */
+public class DecayingTopK {
+
+    // Fixed-point unit of the counters, so that decayed counts keep a fractional part
+    private static final long ONE = 1 << 10;
+
+    private final int size;
+    private final int width;
+    private final int depth;
+    private final int maxCandidates;
+    private final double halfLifeNanos;
+    private final AtomicLongArray counters;
+    private final long[] seeds;
+    private final Set<Long> candidates = ConcurrentHashMap.newKeySet();
+
+    private volatile long threshold;
+    private volatile List<Entry> top = List.of();
+    private long decayedAt;
+
+    /**
+     * Creates an empty top-K.
+     *
+     * @param size     the number of keys kept in the ranking (K)
+     * @param width    the number of counters per row of the sketch, a power of two
+     * @param depth    the number of rows of the sketch
+     * @param halfLife the time after which an event counts for half
+     * @param now      the current time, as given by {@link System#nanoTime()}
+     */
+    public DecayingTopK(int size, int width, int depth, Duration halfLife, long now) {
+        if (size <= 0 || depth <= 0 || Integer.bitCount(width) != 1 || halfLife.isNegative() || halfLife.isZero()) {
+            throw new IllegalArgumentException("Top-K size, depth and half-life must be positive and width a power of two");
+        }
+
+        this.size = size;
+        this.width = width;
+        this.depth = depth;
+        this.maxCandidates = 4 * size;
+        this.halfLifeNanos = halfLife.toNanos();
+        this.counters = new AtomicLongArray(width * depth);
+        this.seeds = new Random(width * 31L + depth).longs(depth).toArray();
+        this.decayedAt = now;
+    }
+
+    /**
+     * Records an event for a key.
+     *
+     * @param key the key, such as the ID of a viewed rental
+     */
+    public void record(long key) {
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(row, key), ONE));
+        }
+
+        if (estimate >= threshold && !candidates.contains(key) && candidates.size() < maxCandidates) {
+            candidates.add(key);
+        }
+    }
+
+    /**
+     * Returns the ranking computed by the last snapshot.
+     *
+     * @return at most K entries, highest score first
+     */
+    public List<Entry> getTop() {
+        return top;
+    }
+
+    /**
+     * Decays the counters to the given time, then ranks the candidates and publishes the new top K.
+     * Candidates outside the top K are dropped, making room for keys that become popular.
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return the new ranking, highest score first
+     */
+    public synchronized List<Entry> snapshot(long now) {
+        decay(now);
+
+        List<Entry> ranked = candidates.stream()
+                .map(key -> new Entry(key, estimate(key) / (double) ONE))
+                .sorted(Comparator.comparingDouble(Entry::getScore).reversed())
+                .toList();
+
+        List<Entry> newTop = ranked.stream()
+                .limit(size)
+                .filter(entry -> entry.getScore() > 0)
+                .toList();
+
+        ranked.stream()
+                .skip(newTop.size())
+                .forEach(entry -> candidates.remove(entry.getKey()));
+
+        threshold = newTop.size() < size ? 0 : (long) (newTop.get(size - 1).getScore() * ONE);
+        top = newTop;
+        return newTop;
+    }
+
+    /**
+     * Multiplies every counter by the weight left to an event after the time elapsed since the last decay.
+     * Concurrent increments are retried, never lost.
+     */
+    private void decay(long now) {
+        double factor = Math.pow(0.5, (now - decayedAt) / halfLifeNanos);
+        decayedAt = now;
+
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> (long) (count * factor));
+        }
+    }
+
+    private long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, key)));
+        }
+
+        return estimate;
+    }
+
+    private int index(int row, long key) {
+        // SplitMix64 finalizer: consecutive IDs land on unrelated counters
+        long hash = key ^ seeds[row];
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash = hash ^ (hash >>> 31);
+        return row * width + (int) (hash & (width - 1));
+    }
+
+    /**
+     * A key of the ranking with its decayed event count.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+        private final long key;
+        private final double score;
+    }
+}
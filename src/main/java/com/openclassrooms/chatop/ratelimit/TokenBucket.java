@@ -0,0 +1,82 @@
+package com.openclassrooms.chatop.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ * <p>
+ * Instead of storing a token count and a last-refill timestamp (which would need a lock to be
+ * updated together), the bucket keeps a single value: the instant at which it will be full again.
+ * Consuming a token pushes that instant forward by one refill interval; the request is rejected
+ * when doing so would exceed the bucket capacity. Updates are a single CAS on an {@link AtomicLong}.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param capacity      the maximum number of tokens the bucket can hold
+     * @param nanosPerToken the time needed to refill one token, in nanoseconds
+     * @param now           the current time, as given by {@link System#nanoTime()}
+     */
+    public TokenBucket(long capacity, long nanosPerToken, long now) {
+        this.nanosPerToken = nanosPerToken;
+        this.burstNanos = capacity * nanosPerToken;
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Tries to take one token from the bucket.
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return true if a token was available, false if the caller is over the limit
+     */
+    public boolean tryConsume(long now) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + nanosPerToken;
+
+            if (next - now > burstNanos) {
+                return false;
+            }
+
+            if (fullAt.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nanoseconds to wait before the next token becomes available.
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return the wait time in nanoseconds, or 0 if a token is available right now
+     */
+    public long nanosUntilNextToken(long now) {
+        return Math.max(0, fullAt.get() + nanosPerToken - now - burstNanos);
+    }
+
+    /**
+     * Indicates whether the bucket has refilled completely, in which case it holds no more
+     * information than a freshly created bucket and can be discarded.
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return true if the bucket is full
+     */
+    public boolean isFull(long now) {
+        return fullAt.get() - now <= 0;
+    }
+
+    /**
+     * Returns the instant at which the bucket will be full again.
+     *
+     * @return the instant, as given by {@link System#nanoTime()}
+     */
+    long fullAt() {
+        return fullAt.get();
+    }
+}
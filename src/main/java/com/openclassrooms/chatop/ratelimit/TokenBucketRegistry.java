@@ -0,0 +1,142 @@
+package com.openclassrooms.chatop.ratelimit;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded map of {@link TokenBucket}s keyed by an arbitrary string (client IP, email, ...).
+ * <p>
+ * When the map reaches its maximum size, the buckets that have refilled completely are evicted first,
+ * since they carry no state. If none has (for example during an attack spraying random keys), the
+ * tenth of the buckets closest to full is evicted: these are the keys idle for the longest, and
+ * dropping them hands back the fewest tokens. A bucket drained by a caller who keeps trying is the
+ * last to go, and new keys always find room, so spraying keys cannot lock out new callers.
+ * <p>
+ * While another thread is evicting, a new key takes its token from a single overflow bucket shared by
+ * all the keys in that case, so memory stays bounded whatever the traffic looks like.
+ */
+public class TokenBucketRegistry {
+
+    private static final int EVICTED_FRACTION = 10;
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private final int maxKeys;
+    private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * Creates a registry whose buckets hold {@code capacity} tokens and refill completely
+     * over {@code refillPeriod}.
+     *
+     * @param capacity     the number of requests allowed in a burst
+     * @param refillPeriod the time needed for an empty bucket to become full again
+     * @param maxKeys      the maximum number of keys tracked at the same time
+     */
+    public TokenBucketRegistry(long capacity, Duration refillPeriod, int maxKeys) {
+        if (capacity <= 0 || refillPeriod.isNegative() || refillPeriod.isZero() || maxKeys <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity, refill period and max keys must be positive");
+        }
+
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, refillPeriod.toNanos() / capacity);
+        this.maxKeys = maxKeys;
+        this.overflow = new TokenBucket(capacity, nanosPerToken, System.nanoTime());
+    }
+
+    /**
+     * Tries to take one token from the bucket associated with the given key.
+     *
+     * @param key the key identifying the caller
+     * @return 0 if the request is allowed, otherwise the number of seconds to wait before retrying
+     */
+    public long tryConsume(String key) {
+        return tryConsume(key, System.nanoTime());
+    }
+
+    /**
+     * Tries to take one token from the bucket associated with the given key at the given time.
+     * A new key arriving while the registry is full and another thread evicts uses the overflow bucket.
+     *
+     * @param key the key identifying the caller
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return 0 if the request is allowed, otherwise the number of seconds to wait before retrying
+     */
+    long tryConsume(String key, long now) {
+        TokenBucket bucket = buckets.get(key);
+
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && !evict(now)) {
+                bucket = overflow;
+            } else {
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, nanosPerToken, now));
+            }
+        }
+
+        if (bucket.tryConsume(now)) {
+            return 0;
+        }
+
+        return toRetryAfter(bucket.nanosUntilNextToken(now));
+    }
+
+    /**
+     * Returns the number of keys currently tracked.
+     *
+     * @return the size of the registry
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Removes the full buckets or, if none is, the tenth of the buckets closest to full. A single thread
+     * evicts at a time; the others carry on without waiting.
+     *
+     * @param now the current time, as given by {@link System#nanoTime()}
+     * @return true if the registry has room for a new key
+     */
+    private boolean evict(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return false;
+        }
+
+        try {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+
+            if (buckets.size() >= maxKeys) {
+                evictClosestToFull(now);
+            }
+        } finally {
+            evicting.set(false);
+        }
+
+        return buckets.size() < maxKeys;
+    }
+
+    /**
+     * Removes the tenth of the buckets that will be full the soonest.
+     */
+    private void evictClosestToFull(long now) {
+        // Relative to now, so that the comparison holds when nanoTime overflows
+        long[] untilFull = buckets.values().stream().mapToLong(bucket -> bucket.fullAt() - now).toArray();
+        Arrays.sort(untilFull);
+        long threshold = untilFull[Math.min(untilFull.length, Math.max(1, untilFull.length / EVICTED_FRACTION)) - 1];
+
+        buckets.values().removeIf(bucket -> bucket.fullAt() - now <= threshold);
+    }
+
+    /**
+     * Converts a wait time to the whole number of seconds of a {@code Retry-After} header.
+     *
+     * @param nanos the wait time in nanoseconds
+     * @return the wait time in seconds, at least 1
+     */
+    private static long toRetryAfter(long nanos) {
+        return Math.max(1, Duration.ofNanos(nanos).toSeconds());
+    }
+}
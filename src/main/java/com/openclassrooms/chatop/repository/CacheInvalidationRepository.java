@@ -0,0 +1,47 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.model.CacheInvalidation;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationRepository extends JpaRepository<CacheInvalidation, Long> {
+
+    /**
+     * Retrieves the ID of the latest invalidation.
+     *
+     * @return the highest ID, or 0 if the table is empty
+     */
+    @Query("SELECT COALESCE(MAX(i.id), 0) FROM CacheInvalidation i")
+    long findMaxId();
+
+    /**
+     * Retrieves the invalidations published after a given one, in publication order.
+     *
+     * @param afterId  the ID of the last invalidation already received
+     * @param pageable the maximum number of invalidations to return
+     * @return the new invalidations
+     */
+    @Query("SELECT i FROM CacheInvalidation i WHERE i.id > :afterId ORDER BY i.id")
+    List<CacheInvalidation> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Deletes the invalidations published before the given date.
+     *
+     * @param before the retention limit
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CacheInvalidation i WHERE i.created_at < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,27 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.model.IdempotencyRecord;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Deletes the recorded responses created before the given date.
+     *
+     * @param before the expiry date
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.created_at < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,48 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.model.ArchivedMessage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MessageArchiveRepository extends JpaRepository<ArchivedMessage, Long> {
+
+    /**
+     * Copies messages to the archive table in a single statement, without loading them.
+     *
+     * @param ids        the IDs of the messages
+     * @param archivedAt the current date
+     * @return the number of archived messages
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO messages_archive (id, user_id, rental_id, message, created_at, updated_at, archived_at)
+            SELECT id, user_id, rental_id, message, created_at, updated_at, :archivedAt
+            FROM messages
+            WHERE id IN (:ids)
+            """, nativeQuery = true)
+    int copyFromMessages(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Finds the latest archived messages sent about a rental.
+     *
+     * @param rentalId the ID of the rental
+     * @param pageable the maximum number of messages to return
+     * @return the messages, newest first
+     */
+    @Query("""
+            SELECT a.id AS id, a.user_id AS user_id, a.rental_id AS rental_id, a.message AS message, a.created_at AS created_at
+            FROM ArchivedMessage a
+            WHERE a.rental_id = :rentalId
+            ORDER BY a.id DESC
+            """)
+    List<MessageSummary> findSummariesByRentalId(@Param("rentalId") Long rentalId, Pageable pageable);
+}
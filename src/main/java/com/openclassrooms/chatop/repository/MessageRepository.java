@@ -1,8 +1,65 @@
 package com.openclassrooms.chatop.repository;
 
 import com.openclassrooms.chatop.model.Message;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
-public interface MessageRepository extends org.springframework.data.jpa.repository.JpaRepository<Message, Long> {
+public interface MessageRepository extends JpaRepository<Message, Long> {
+
+    /**
+     * Finds the latest messages sent about a rental.
+     *
+     * @param rentalId the ID of the rental
+     * @param pageable the maximum number of messages to return
+     * @return the messages, newest first
+     */
+    @Query("""
+            SELECT m.id AS id, m.user.id AS user_id, m.rental.id AS rental_id, m.message AS message, m.created_at AS created_at
+            FROM Message m
+            WHERE m.rental.id = :rentalId
+            ORDER BY m.id DESC
+            """)
+    List<MessageSummary> findSummariesByRentalId(@Param("rentalId") Long rentalId, Pageable pageable);
+
+    /**
+     * Locks the oldest messages created before the given date, read in the order of the
+     * {@code idx_messages_created_at} index so that only the returned rows are scanned. Rows already
+     * locked by another instance of the archiver are skipped ({@code FOR UPDATE SKIP LOCKED}) instead of waited for.
+     *
+     * @param before   the creation date limit
+     * @param pageable the maximum number of messages to return
+     * @return the IDs of the messages, oldest first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT m.id FROM Message m
+            WHERE m.created_at < :before
+            ORDER BY m.created_at, m.id
+            """)
+    List<Long> findIdsCreatedBefore(@Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * Deletes messages by primary key, locking no other row.
+     *
+     * @param ids the IDs of the messages
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM Message m WHERE m.id IN :ids")
+    int deleteByIds(@Param("ids") List<Long> ids);
 }
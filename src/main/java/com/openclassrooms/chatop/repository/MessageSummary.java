@@ -0,0 +1,20 @@
+package com.openclassrooms.chatop.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection returned by the message lists, from the {@code messages} table or its archive:
+ * the columns of the message, without loading its user nor its rental.
+ */
+public interface MessageSummary {
+
+    Long getId();
+
+    Long getUser_id();
+
+    Long getRental_id();
+
+    String getMessage();
+
+    LocalDateTime getCreated_at();
+}
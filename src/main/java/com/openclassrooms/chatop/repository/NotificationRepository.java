@@ -0,0 +1,57 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.model.Notification;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NotificationRepository extends JpaRepository<Notification, Long> {
+
+    /**
+     * Locks the notifications in the given status due for delivery, oldest first. Rows already locked by another
+     * instance of the relay are skipped ({@code FOR UPDATE SKIP LOCKED}) instead of waited for.
+     *
+     * @param status   the status of the notifications, {@code PENDING} for the relay
+     * @param now      the current date
+     * @param pageable the maximum number of notifications to return
+     * @return the due notifications
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("""
+            SELECT n FROM Notification n
+            WHERE n.status = :status
+              AND n.next_attempt_at <= :now
+            ORDER BY n.id
+            """)
+    List<Notification> findDue(@Param("status") Notification.Status status,
+                               @Param("now") LocalDateTime now,
+                               Pageable pageable);
+
+    /**
+     * Deletes the delivered notifications older than the given date.
+     *
+     * @param before the retention limit
+     * @return the number of deleted rows
+     */
+    @Modifying
+    @Query("""
+            DELETE FROM Notification n
+            WHERE n.delivered_at IS NOT NULL
+              AND n.delivered_at < :before
+            """)
+    int deleteDeliveredBefore(@Param("before") LocalDateTime before);
+}
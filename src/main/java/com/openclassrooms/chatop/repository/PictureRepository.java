@@ -0,0 +1,32 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.model.Picture;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface PictureRepository extends JpaRepository<Picture, String> {
+
+    /**
+     * Stores a picture, unless the same picture has been stored concurrently.
+     *
+     * @param hash      the SHA-256 of the picture
+     * @param data      the content of the picture
+     * @param size      the size of the picture in bytes
+     * @param createdAt the current date
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO pictures (hash, data, size, created_at)
+            VALUES (:hash, :data, :size, :createdAt)
+            ON DUPLICATE KEY UPDATE hash = hash
+            """, nativeQuery = true)
+    void insertIfAbsent(@Param("hash") String hash,
+                        @Param("data") byte[] data,
+                        @Param("size") long size,
+                        @Param("createdAt") LocalDateTime createdAt);
+}
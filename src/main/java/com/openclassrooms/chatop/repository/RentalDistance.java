@@ -0,0 +1,12 @@
+package com.openclassrooms.chatop.repository;
+
+/**
+ * Projection returned by the nearby rentals search: the rental ID and its distance
+ * in meters from the searched point.
+ */
+public interface RentalDistance {
+
+    Long getId();
+
+    Double getDistance();
+}
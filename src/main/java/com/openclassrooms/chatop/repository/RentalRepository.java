@@ -2,9 +2,183 @@ package com.openclassrooms.chatop.repository;
 
 import com.openclassrooms.chatop.model.Rental;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface RentalRepository  extends JpaRepository<Rental, Long> {
+
+    boolean existsByIdAndOwnerEmail(Long id, String email);
+
+    /**
+     * Finds a rental with its owner and picture read by the same query. {@link #findById} leaves the
+     * picture unread, for the callers not needing its content.
+     *
+     * @param id the ID of the rental
+     * @return the rental, or an empty Optional if not found
+     */
+    @EntityGraph(attributePaths = {"owner", "picture"})
+    Optional<Rental> findWithPictureById(Long id);
+
+    /**
+     * Finds all the rentals, with their owner and picture read by the same query. Without the entity
+     * graph, the owners and pictures are loaded with one more query per distinct owner and picture.
+     *
+     * @return all the rentals
+     */
+    @Override
+    @EntityGraph(attributePaths = {"owner", "picture"})
+    List<Rental> findAll();
+
+    /**
+     * Finds the rentals with the given IDs, with their owner and picture read by the same query.
+     *
+     * @param ids the IDs of the rentals
+     * @return the rentals found
+     */
+    @Override
+    @EntityGraph(attributePaths = {"owner", "picture"})
+    List<Rental> findAllById(Iterable<Long> ids);
+
+    /**
+     * Finds the rentals located within a radius of a point, ordered by distance then ID.
+     * <p>
+     * Only the rentals whose geohash starts with one of the nine cell patterns covering the circle are
+     * read, each pattern being a range of the (geohash, latitude, longitude) index: unused patterns match
+     * nothing, and the pattern {@code %} reads every located rental. The bounding box and the exact
+     * great-circle distance are then checked on the index entries only, pictures are never read.
+     * Results start after the ({@code afterDistance}, {@code afterId}) cursor for keyset paging.
+     *
+     * @param latitude      the latitude of the searched point
+     * @param longitude     the longitude of the searched point
+     * @param radius        the search radius in meters
+     * @param minLatitude   the southern bound of the bounding box
+     * @param maxLatitude   the northern bound of the bounding box
+     * @param minLongitude  the western bound of the bounding box
+     * @param maxLongitude  the eastern bound of the bounding box
+     * @param cells         the LIKE patterns of the covering cells, nine exactly
+     * @param afterDistance the distance of the last rental of the previous page, or -1 for the first page
+     * @param afterId       the ID of the last rental of the previous page, or 0 for the first page
+     * @param limit         the maximum number of results
+     * @return the IDs and distances of the matching rentals
+     */
+    default List<RentalDistance> findNearby(double latitude, double longitude, double radius,
+                                            double minLatitude, double maxLatitude,
+                                            double minLongitude, double maxLongitude,
+                                            List<String> cells,
+                                            double afterDistance, long afterId, int limit) {
+        return findNearby(latitude, longitude, radius, minLatitude, maxLatitude, minLongitude, maxLongitude,
+                cells.get(0), cells.get(1), cells.get(2), cells.get(3), cells.get(4),
+                cells.get(5), cells.get(6), cells.get(7), cells.get(8),
+                afterDistance, afterId, limit);
+    }
+
+    /**
+     * Native query of {@link #findNearby(double, double, double, double, double, double, double, List, double, long, int)},
+     * taking the nine cell patterns as separate parameters.
+     */
+    @Query(value = """
+            SELECT d.id AS id, d.distance AS distance
+            FROM (
+                SELECT r.id AS id,
+                       6371000 * ACOS(LEAST(1, GREATEST(-1,
+                           COS(RADIANS(:latitude)) * COS(RADIANS(r.latitude)) * COS(RADIANS(r.longitude) - RADIANS(:longitude))
+                           + SIN(RADIANS(:latitude)) * SIN(RADIANS(r.latitude))))) AS distance
+                FROM (
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell0
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell1
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell2
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell3
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell4
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell5
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell6
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell7
+                UNION
+                SELECT id, latitude, longitude FROM rentals WHERE geohash LIKE :cell8
+                ) r
+                WHERE r.latitude BETWEEN :minLatitude AND :maxLatitude
+                  AND r.longitude BETWEEN :minLongitude AND :maxLongitude
+            ) d
+            WHERE d.distance <= :radius
+              AND (d.distance > :afterDistance OR (d.distance = :afterDistance AND d.id > :afterId))
+            ORDER BY d.distance, d.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<RentalDistance> findNearby(@Param("latitude") double latitude,
+                                    @Param("longitude") double longitude,
+                                    @Param("radius") double radius,
+                                    @Param("minLatitude") double minLatitude,
+                                    @Param("maxLatitude") double maxLatitude,
+                                    @Param("minLongitude") double minLongitude,
+                                    @Param("maxLongitude") double maxLongitude,
+                                    @Param("cell0") String cell0,
+                                    @Param("cell1") String cell1,
+                                    @Param("cell2") String cell2,
+                                    @Param("cell3") String cell3,
+                                    @Param("cell4") String cell4,
+                                    @Param("cell5") String cell5,
+                                    @Param("cell6") String cell6,
+                                    @Param("cell7") String cell7,
+                                    @Param("cell8") String cell8,
+                                    @Param("afterDistance") double afterDistance,
+                                    @Param("afterId") long afterId,
+                                    @Param("limit") int limit);
+
+    /**
+     * Updates a rental only if it belongs to the given owner: the ownership is checked by the update
+     * itself instead of loading the rental first. Writes on a rental (and deletes, when they are added)
+     * are scoped to its owner this way.
+     *
+     * @param id          the ID of the rental
+     * @param ownerId     the ID of the user updating the rental
+     * @param name        the new name
+     * @param surface     the new surface
+     * @param price       the new price
+     * @param description the new description
+     * @param latitude    the new latitude, or null to keep the current one
+     * @param longitude   the new longitude, or null to keep the current one
+     * @param geohash     the geohash of the new coordinates, or null to keep the current one
+     * @param updatedAt   the update date
+     * @return 1 if the rental was updated, 0 if it does not exist or belongs to another user
+     */
+    @Modifying
+    @Query("""
+            UPDATE Rental r
+            SET r.name = :name,
+                r.surface = :surface,
+                r.price = :price,
+                r.description = :description,
+                r.latitude = COALESCE(:latitude, r.latitude),
+                r.longitude = COALESCE(:longitude, r.longitude),
+                r.geohash = COALESCE(:geohash, r.geohash),
+                r.updated_at = :updatedAt
+            WHERE r.id = :id
+              AND r.owner.id = :ownerId
+            """)
+    int updateOwned(@Param("id") Long id,
+                    @Param("ownerId") Long ownerId,
+                    @Param("name") String name,
+                    @Param("surface") Integer surface,
+                    @Param("price") BigDecimal price,
+                    @Param("description") String description,
+                    @Param("latitude") Double latitude,
+                    @Param("longitude") Double longitude,
+                    @Param("geohash") String geohash,
+                    @Param("updatedAt") LocalDateTime updatedAt);
 }
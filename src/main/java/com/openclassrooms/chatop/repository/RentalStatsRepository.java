@@ -0,0 +1,40 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.model.RentalStats;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface RentalStatsRepository extends JpaRepository<RentalStats, Long> {
+
+    /**
+     * Adds pending counts to the stats row of a rental in a single statement.
+     *
+     * @param rentalId      the ID of the rental
+     * @param messages      the number of new messages
+     * @param views         the number of new views
+     * @param lastMessageAt the creation date of the latest new message, or null if there is none
+     * @return the number of updated rows, 0 if the rental has no stats row yet
+     */
+    @Modifying
+    @Query("""
+            UPDATE RentalStats s
+            SET s.message_count = s.message_count + :messages,
+                s.view_count = s.view_count + :views,
+                s.last_message_at = CASE
+                    WHEN s.last_message_at IS NULL OR s.last_message_at < :lastMessageAt THEN :lastMessageAt
+                    ELSE s.last_message_at
+                END
+            WHERE s.rental_id = :rentalId
+            """)
+    int increment(@Param("rentalId") Long rentalId,
+                  @Param("messages") long messages,
+                  @Param("views") long views,
+                  @Param("lastMessageAt") LocalDateTime lastMessageAt);
+}
@@ -5,4 +5,6 @@ import com.openclassrooms.chatop.model.User;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByEmail(String email);
+
+    boolean existsByEmail(String email);
 }
@@ -0,0 +1,122 @@
+package com.openclassrooms.chatop.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import com.openclassrooms.chatop.tracing.RequestTracing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Writes a picture as a {@code data:image/jpeg;base64,...} string.
+ * <p>
+ * The Base64 text is encoded chunk by chunk straight into the JSON output, so serializing a rental
+ * never materializes the encoded picture: encoding it with {@link Base64.Encoder#encodeToString}
+ * and adding the prefix would allocate three copies of it (encoded bytes, string, concatenation).
+ */
+public class PictureDataUriSerializer extends StdSerializer<byte[]> {
+
+    private static final String PREFIX = "data:image/jpeg;base64,";
+
+    public PictureDataUriSerializer() {
+        super(byte[].class);
+    }
+
+    @Override
+    public void serialize(byte[] picture, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        try (RequestTracing.Span span = RequestTracing.start(RequestTracing.PICTURE_ENCODING)) {
+            write(picture, generator);
+        }
+    }
+
+    private void write(byte[] picture, JsonGenerator generator) throws IOException {
+        // Only the JSON generators can stream a string value; binary formats (CBOR, Smile) need it whole
+        if (!(generator instanceof JsonGeneratorImpl)) {
+            generator.writeString(PREFIX + Base64.getEncoder().encodeToString(picture));
+            return;
+        }
+
+        int encodedLength = PREFIX.length() + 4 * ((picture.length + 2) / 3);
+        generator.writeString(new DataUriReader(picture), encodedLength);
+    }
+
+    /**
+     * Reader producing the prefix, then the Base64 encoding of the picture, using a small fixed buffer.
+     * Each chunk of the picture goes through a {@link Base64.Encoder#wrap(OutputStream) Base64 stream}
+     * writing into that buffer.
+     */
+    private static class DataUriReader extends Reader {
+
+        // A multiple of 3 so that the encoder never keeps bytes between chunks, and only the last one gets padding
+        private static final int CHUNK_BYTES = 3 * 1024;
+
+        private final byte[] picture;
+        private final byte[] encoded = new byte[4 * CHUNK_BYTES / 3];
+        private final OutputStream base64 = Base64.getEncoder().wrap(new OutputStream() {
+            @Override
+            public void write(int b) {
+                encoded[encodedLength++] = (byte) b;
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                System.arraycopy(bytes, offset, encoded, encodedLength, length);
+                encodedLength += length;
+            }
+        });
+        private int pictureOffset;
+        private int encodedOffset;
+        private int encodedLength;
+        private boolean finished;
+
+        DataUriReader(byte[] picture) {
+            this.picture = picture;
+            byte[] prefix = PREFIX.getBytes(StandardCharsets.US_ASCII);
+            System.arraycopy(prefix, 0, encoded, 0, prefix.length);
+            this.encodedLength = prefix.length;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (encodedOffset == encodedLength && !encodeNextChunk()) {
+                return -1;
+            }
+
+            int count = Math.min(length, encodedLength - encodedOffset);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = (char) encoded[encodedOffset + i];
+            }
+            encodedOffset += count;
+            return count;
+        }
+
+        private boolean encodeNextChunk() throws IOException {
+            if (finished) {
+                return false;
+            }
+
+            int end = Math.min(picture.length, pictureOffset + CHUNK_BYTES);
+            encodedOffset = 0;
+            encodedLength = 0;
+            base64.write(picture, pictureOffset, end - pictureOffset);
+            pictureOffset = end;
+
+            if (pictureOffset == picture.length) {
+                // Writes the padding of the last chunk
+                base64.close();
+                finished = true;
+            }
+            return encodedLength > 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
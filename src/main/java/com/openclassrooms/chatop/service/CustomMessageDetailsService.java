@@ -1,13 +1,27 @@
 package com.openclassrooms.chatop.service;
 
+import com.openclassrooms.chatop.dto.MessageDTO;
+
 import com.openclassrooms.chatop.model.Message;
+import com.openclassrooms.chatop.model.Notification;
+import com.openclassrooms.chatop.model.User;
 
+import com.openclassrooms.chatop.repository.MessageArchiveRepository;
 import com.openclassrooms.chatop.repository.MessageRepository;
+import com.openclassrooms.chatop.repository.MessageSummary;
+import com.openclassrooms.chatop.repository.NotificationRepository;
 
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @Service
@@ -15,14 +29,73 @@ import org.springframework.stereotype.Service;
 public class CustomMessageDetailsService {
 
     private final MessageRepository messageRepository;
+    private final RentalStatsService rentalStatsService;
+    private final NotificationRepository notificationRepository;
+    private final MessageArchiveRepository messageArchiveRepository;
 
     /**
-     * Saves the provided message entity into the repository.
+     * Saves the provided message entity into the repository and queues a notification to the owner
+     * of the rental in the same transaction. The notification is delivered later by the
+     * {@link NotificationRelay}; the message is counted in the stats of its rental once committed.
      *
      * @param message the message to be saved, containing user details, rental information,
      *                and the content of the message
      */
+    @Transactional
     public void saveMessage(Message message) {
-        messageRepository.save(message);
+        Message savedMessage = messageRepository.save(message);
+
+        // A rolled back message must not be counted
+        Long rentalId = savedMessage.getRental().getId();
+        LocalDateTime createdAt = savedMessage.getCreated_at();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rentalStatsService.recordMessage(rentalId, createdAt);
+            }
+        });
+
+        User owner = savedMessage.getRental().getOwner();
+
+        if (owner != null && !owner.getId().equals(savedMessage.getUser().getId())) {
+            LocalDateTime now = LocalDateTime.now();
+
+            Notification notification = new Notification();
+            notification.setRecipient(owner.getEmail());
+            notification.setSubject("Nouveau message pour " + savedMessage.getRental().getName());
+            notification.setBody(savedMessage.getMessage());
+            notification.setNext_attempt_at(now);
+            notification.setCreated_at(now);
+            notificationRepository.save(notification);
+        }
+    }
+
+    /**
+     * Retrieves the latest messages sent about a rental, from the recent messages or, only when
+     * asked, from the archive filled by the {@link MessageArchiver}.
+     *
+     * @param rentalId the ID of the rental
+     * @param archived true to read the archived messages instead of the recent ones
+     * @param limit    the maximum number of messages
+     * @return the messages, newest first
+     */
+    @Transactional(readOnly = true)
+    public List<MessageDTO> getMessages(Long rentalId, boolean archived, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        List<MessageSummary> messages = archived
+                ? messageArchiveRepository.findSummariesByRentalId(rentalId, page)
+                : messageRepository.findSummariesByRentalId(rentalId, page);
+
+        return messages.stream()
+                .map(message -> {
+                    MessageDTO messageDTO = new MessageDTO();
+                    messageDTO.setId(message.getId());
+                    messageDTO.setUser_id(message.getUser_id().intValue());
+                    messageDTO.setRental_id(message.getRental_id().intValue());
+                    messageDTO.setMessage(message.getMessage());
+                    messageDTO.setCreated_at(message.getCreated_at());
+                    return messageDTO;
+                })
+                .toList();
     }
 }
@@ -1,33 +1,272 @@
 package com.openclassrooms.chatop.service;
 
+import com.openclassrooms.chatop.cache.CacheInvalidator;
+import com.openclassrooms.chatop.configuration.CacheConfig;
+import com.openclassrooms.chatop.datasource.ReplicaRoutingDataSource;
+import com.openclassrooms.chatop.dto.RentalDTO;
+import com.openclassrooms.chatop.exception.ForbiddenException;
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+import com.openclassrooms.chatop.geo.Geohash;
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
+import com.openclassrooms.chatop.mapper.RentalMapper;
 import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.repository.RentalDistance;
 import com.openclassrooms.chatop.repository.RentalRepository;
+import jakarta.validation.Validator;
+
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Read methods run in read-only transactions: Hibernate switches the session to
+ * {@code FlushMode.MANUAL} and loads entities as read-only, so no snapshot is kept for dirty checking.
+ * The methods returning DTOs map the entities before the transaction ends, so the connection is
+ * released before the response is serialized.
+ * <p>
+ * Single rentals are kept in the local {@code rentals} cache; every change evicts them from the
+ * caches of all instances through the {@link CacheInvalidator}, and they are reloaded from the
+ * primary database for a short while after.
+ */
 @Data
 @Service
 @RequiredArgsConstructor
 public class CustomRentalDetailsService {
 
+    private static final double EARTH_RADIUS_METERS = 6371000;
+
+    // findNearby takes nine cell patterns: the unused ones get a pattern no geohash matches
+    private static final int NEARBY_CELLS = 9;
+    private static final String NO_CELL = "!";
+
     private final RentalRepository rentalRepository;
+    private final RentalMapper rentalMapper;
+    private final CacheInvalidator cacheInvalidator;
+    private final PictureService pictureService;
+    private final Validator validator;
 
+    @Transactional(readOnly = true)
     public Iterable<Rental> getRentals() {
         return rentalRepository.findAll();
     }
 
+    @Transactional(readOnly = true)
     public Optional<Rental> getRental(final Long id) {
         return rentalRepository.findById(id);
     }
 
-    public void updateRental(Rental rental) {
-        rentalRepository.save(rental);
+    /**
+     * Retrieves all the rentals, already converted to DTOs.
+     *
+     * @return the list of rentals
+     */
+    @Transactional(readOnly = true)
+    public List<RentalDTO> getRentalDTOs() {
+        return rentalRepository.findAll().stream()
+                .map(rentalMapper::toDTO)
+                .toList();
+    }
+
+    /**
+     * Retrieves a rental by its ID, already converted to a DTO.
+     *
+     * @param id the ID of the rental
+     * @return an Optional containing the rental if found, or an empty Optional otherwise
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.RENTALS_CACHE, unless = "#result == null")
+    public Optional<RentalDTO> getRentalDTO(final Long id) {
+        // Just invalidated: a lagging replica could still return the old rental, which would stay cached
+        if (cacheInvalidator.isRecentlyInvalidated(CacheConfig.RENTALS_CACHE, id)) {
+            return ReplicaRoutingDataSource.readFromPrimary(() -> rentalRepository.findWithPictureById(id).map(rentalMapper::toDTO));
+        }
+
+        return rentalRepository.findWithPictureById(id).map(rentalMapper::toDTO);
+    }
+
+    /**
+     * Checks that a rental belongs to the user with the given email, without loading the rental.
+     *
+     * @param id    the ID of the rental
+     * @param email the email of the user
+     * @throws ForbiddenException        if the rental belongs to another user
+     * @throws ResourceNotFoundException if the rental does not exist
+     */
+    @Transactional(readOnly = true)
+    public void checkOwner(final Long id, final String email) {
+        if (rentalRepository.existsByIdAndOwnerEmail(id, email)) {
+            return;
+        }
+
+        // Only when the check fails: tells a missing rental from a rental of another user
+        if (!rentalRepository.existsById(id)) {
+            throw ResourceNotFoundException.RENTAL;
+        }
+        throw ForbiddenException.RENTAL_NOT_OWNED;
+    }
+
+    /**
+     * Finds the rentals located within a radius of a point, closest first, converted to DTOs
+     * carrying their distance.
+     *
+     * @param latitude      the latitude of the searched point
+     * @param longitude     the longitude of the searched point
+     * @param radius        the search radius in meters
+     * @param afterDistance the distance of the last rental of the previous page, or null for the first page
+     * @param afterId       the ID of the last rental of the previous page, or null for the first page
+     * @param limit         the maximum number of results
+     * @return the matching rentals, ordered by distance then ID
+     */
+    @Transactional(readOnly = true)
+    public List<RentalDTO> getRentalDTOsNear(double latitude, double longitude, double radius,
+                                             Double afterDistance, Long afterId, int limit) {
+        List<RentalDistance> nearby = getRentalsNear(latitude, longitude, radius, afterDistance, afterId, limit);
+
+        Map<Long, Rental> rentals = rentalRepository.findAllById(nearby.stream().map(RentalDistance::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(Rental::getId, Function.identity()));
+
+        return nearby.stream()
+                .filter(hit -> rentals.containsKey(hit.getId()))
+                .map(hit -> {
+                    RentalDTO rentalDTO = rentalMapper.toDTO(rentals.get(hit.getId()));
+                    rentalDTO.setDistance(hit.getDistance());
+                    return rentalDTO;
+                })
+                .toList();
+    }
+
+    /**
+     * Finds the IDs and distances of the rentals located within a radius of a point, closest first.
+     *
+     * @param latitude      the latitude of the searched point
+     * @param longitude     the longitude of the searched point
+     * @param radius        the search radius in meters
+     * @param afterDistance the distance of the last rental of the previous page, or null for the first page
+     * @param afterId       the ID of the last rental of the previous page, or null for the first page
+     * @param limit         the maximum number of results
+     * @return the IDs and distances of the matching rentals, ordered by distance then ID
+     */
+    @Transactional(readOnly = true)
+    public List<RentalDistance> getRentalsNear(double latitude, double longitude, double radius,
+                                               Double afterDistance, Long afterId, int limit) {
+        double latitudeDelta = Math.toDegrees(radius / EARTH_RADIUS_METERS);
+        double minLatitude = Math.max(-90, latitude - latitudeDelta);
+        double maxLatitude = Math.min(90, latitude + latitudeDelta);
+
+        // Near the poles or across the antimeridian the box would wrap around: search every longitude instead
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        double cosLatitude = Math.cos(Math.toRadians(latitude));
+
+        if (minLatitude > -90 && maxLatitude < 90 && cosLatitude > 0) {
+            double longitudeDelta = Math.toDegrees(radius / (EARTH_RADIUS_METERS * cosLatitude));
+
+            if (longitude - longitudeDelta >= -180 && longitude + longitudeDelta <= 180) {
+                minLongitude = longitude - longitudeDelta;
+                maxLongitude = longitude + longitudeDelta;
+            }
+        }
+
+        // Every located rental is read when no cell is small enough to cover the circle, e.g. at the poles
+        List<String> prefixes = Geohash.coveringPrefixes(latitude, longitude, radius);
+        List<String> cells = new ArrayList<>(NEARBY_CELLS);
+        if (prefixes.isEmpty()) {
+            cells.add("%");
+        }
+        prefixes.forEach(prefix -> cells.add(prefix + "%"));
+        while (cells.size() < NEARBY_CELLS) {
+            cells.add(NO_CELL);
+        }
+
+        return rentalRepository.findNearby(
+                latitude, longitude, radius,
+                minLatitude, maxLatitude, minLongitude, maxLongitude,
+                cells,
+                afterDistance != null ? afterDistance : -1,
+                afterId != null ? afterId : 0,
+                limit
+        );
+    }
+
+    /**
+     * Updates a rental owned by the given user, in a single statement checking the ownership.
+     * The new values are validated here, since Hibernate does not validate bulk updates.
+     *
+     * @param id      the ID of the rental
+     * @param ownerId the ID of the user updating the rental
+     * @param changes the new values; the coordinates are kept when none is set
+     * @return true if the rental was updated, false if it belongs to another user
+     * @throws InvalidRequestException   if the new values are invalid, or only one coordinate is set
+     * @throws ResourceNotFoundException if the rental does not exist
+     */
+    @Transactional
+    public boolean updateOwnedRental(Long id, Long ownerId, Rental changes) {
+        validate(changes);
+
+        boolean hasLocation = changes.getLatitude() != null && changes.getLongitude() != null;
+
+        int updated = rentalRepository.updateOwned(
+                id, ownerId,
+                changes.getName(), changes.getSurface(), changes.getPrice(), changes.getDescription(),
+                hasLocation ? changes.getLatitude() : null,
+                hasLocation ? changes.getLongitude() : null,
+                hasLocation ? Geohash.encode(changes.getLatitude(), changes.getLongitude()) : null,
+                LocalDateTime.now()
+        );
+
+        if (updated == 0) {
+            // Only when the update is refused: tells a missing rental from a rental of another user
+            if (!rentalRepository.existsById(id)) {
+                throw ResourceNotFoundException.RENTAL;
+            }
+            return false;
+        }
+
+        cacheInvalidator.invalidate(CacheConfig.RENTALS_CACHE, id);
+        return true;
+    }
+
+    /**
+     * Saves a new rental, storing its picture only if the same picture is not already stored.
+     * The rental is validated before its picture is stored.
+     *
+     * @param rental  the rental to save
+     * @param picture the uploaded picture, or null if the rental has none
+     * @throws IOException             if the picture cannot be read
+     * @throws InvalidRequestException if the rental is invalid, or only one coordinate is set
+     */
+    @Transactional
+    public void saveRental(Rental rental, InputStreamSource picture) throws IOException {
+        validate(rental);
+
+        if (picture != null) {
+            rental.setPicture(pictureService.store(picture));
+        }
+
+        Rental savedRental = rentalRepository.save(rental);
+        cacheInvalidator.invalidate(CacheConfig.RENTALS_CACHE, savedRental.getId());
     }
 
-    public void saveRental(Rental rental) {
-        rentalRepository.save(rental);
+    /**
+     * Checks a rental with the constraints of its entity, which Hibernate would otherwise only check
+     * when flushing it (and never for bulk updates), and checks that its coordinates go together.
+     */
+    private void validate(Rental rental) {
+        if (!validator.validate(rental).isEmpty() || (rental.getLatitude() == null) != (rental.getLongitude() == null)) {
+            throw InvalidRequestException.INVALID_RENTAL;
+        }
     }
 }
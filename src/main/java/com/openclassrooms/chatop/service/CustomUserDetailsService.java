@@ -4,12 +4,17 @@ import java.util.Optional;
 
 import lombok.RequiredArgsConstructor;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.chatop.configuration.CacheConfig;
+import com.openclassrooms.chatop.dto.UserDTO;
+import com.openclassrooms.chatop.mapper.UserMapper;
 import com.openclassrooms.chatop.model.User;
 import com.openclassrooms.chatop.repository.UserRepository;
 
@@ -22,6 +27,7 @@ import lombok.Data;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final UserMapper userMapper;
 
     /**
      * Loads a user's authentication details by their email.
@@ -31,6 +37,7 @@ public class CustomUserDetailsService implements UserDetailsService {
      * @throws UsernameNotFoundException if no user is found with the given email
      */
     @Override
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         com.openclassrooms.chatop.model.User user = userRepository.findByEmail(email);
 
@@ -51,7 +58,32 @@ public class CustomUserDetailsService implements UserDetailsService {
      * @param id the unique identifier of the user to be retrieved
      * @return an Optional containing the User if found, or an empty Optional if no user is found with the given id
      */
+    @Transactional(readOnly = true)
     public Optional<User> getUser(final Long id) {
         return userRepository.findById(id);
     }
+
+    /**
+     * Retrieves a user by their unique identifier, already converted to a DTO.
+     * Users are never modified once registered, so they are kept in the local {@code users} cache.
+     *
+     * @param id the unique identifier of the user to be retrieved
+     * @return an Optional containing the user if found, or an empty Optional otherwise
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = CacheConfig.USERS_CACHE, unless = "#result == null")
+    public Optional<UserDTO> getUserDTO(final Long id) {
+        return userRepository.findById(id).map(userMapper::toDTO);
+    }
+
+    /**
+     * Retrieves a user by their email, already converted to a DTO.
+     *
+     * @param email the email of the user to be retrieved
+     * @return an Optional containing the user if found, or an empty Optional otherwise
+     */
+    @Transactional(readOnly = true)
+    public Optional<UserDTO> getUserDTOByEmail(final String email) {
+        return Optional.ofNullable(userRepository.findByEmail(email)).map(userMapper::toDTO);
+    }
 }
@@ -0,0 +1,100 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.repository.MessageArchiveRepository;
+import com.openclassrooms.chatop.repository.MessageRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves the messages older than {@code app.messages.retention} from the {@code messages} table to the
+ * {@code messages_archive} table, so that the hot table only holds recent conversations.
+ * <p>
+ * Messages are moved by batches of {@code app.messages.archive-batch-size}, each in its own short
+ * transaction locking only the rows it moves, with a pause of {@code app.messages.archive-pause}
+ * between two batches: requests writing messages never wait long for the archiver, and replicas
+ * are not flooded with a single large change.
+ */
+@Slf4j
+@Service
+public class MessageArchiver {
+
+    private final MessageRepository messageRepository;
+    private final MessageArchiveRepository messageArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.messages.retention:365d}")
+    private Duration retention;
+
+    @Value("${app.messages.archive-batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.messages.archive-pause:200ms}")
+    private Duration pause;
+
+    public MessageArchiver(MessageRepository messageRepository,
+                           MessageArchiveRepository messageArchiveRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.messageRepository = messageRepository;
+        this.messageArchiveRepository = messageArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Archives the messages older than the retention, batch after batch, until none is left.
+     *
+     * @return the number of archived messages
+     */
+    @Scheduled(fixedDelayString = "${app.messages.archive-interval:1h}")
+    public int archive() {
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int archived = 0;
+        int moved;
+
+        try {
+            do {
+                moved = transactionTemplate.execute(status -> archiveBatch(before));
+                archived += moved;
+
+                if (moved == batchSize) {
+                    Thread.sleep(pause.toMillis());
+                }
+            } while (moved == batchSize);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // The remaining messages are archived by the next run
+            log.error("Error when archiving messages : {}", e.getMessage());
+        }
+
+        if (archived > 0) {
+            log.info("Archived {} messages created before {}", archived, before);
+        }
+
+        return archived;
+    }
+
+    /**
+     * Copies a batch of old messages to the archive and deletes them, in the current transaction.
+     */
+    private int archiveBatch(LocalDateTime before) {
+        List<Long> ids = messageRepository.findIdsCreatedBefore(before, PageRequest.of(0, batchSize));
+
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        messageArchiveRepository.copyFromMessages(ids, LocalDateTime.now());
+        return messageRepository.deleteByIds(ids);
+    }
+}
@@ -0,0 +1,155 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.model.Notification;
+import com.openclassrooms.chatop.notification.NotificationSender;
+import com.openclassrooms.chatop.repository.NotificationRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Delivers the notifications written to the outbox.
+ * <p>
+ * Every {@code app.notifications.poll-interval}, a batch of due notifications is claimed by pushing
+ * their next attempt date forward (so that another instance of the relay does not take them), then
+ * each one is sent outside of any transaction, and the outcome is recorded. Failed deliveries are
+ * retried with an exponential backoff, up to {@code app.notifications.max-attempts} times.
+ * <p>
+ * Requests writing to the outbox never wait for a delivery.
+ */
+@Slf4j
+@Service
+public class NotificationRelay {
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationSender notificationSender;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+
+    @Value("${app.notifications.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.notifications.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.notifications.initial-backoff:10s}")
+    private Duration initialBackoff;
+
+    @Value("${app.notifications.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    @Value("${app.notifications.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    @Value("${app.notifications.retention:7d}")
+    private Duration retention;
+
+    public NotificationRelay(NotificationRepository notificationRepository,
+                             NotificationSender notificationSender,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.notificationSender = notificationSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.delivered = outcomeCounter(meterRegistry, "delivered");
+        this.retried = outcomeCounter(meterRegistry, "retried");
+        this.failed = outcomeCounter(meterRegistry, "failed");
+    }
+
+    /**
+     * Delivers the due notifications, batch after batch, until none is left.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.poll-interval:5s}")
+    public void relay() {
+        List<Notification> batch;
+
+        do {
+            batch = claim();
+            batch.forEach(this::deliver);
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Deletes the delivered notifications older than {@code app.notifications.retention}.
+     */
+    @Scheduled(fixedDelayString = "${app.notifications.purge-interval:1h}")
+    public void purgeDelivered() {
+        transactionTemplate.executeWithoutResult(status ->
+                notificationRepository.deleteDeliveredBefore(LocalDateTime.now().minus(retention))
+        );
+    }
+
+    /**
+     * Takes a batch of due notifications. If the relay stops before recording their outcome,
+     * they become due again after {@code app.notifications.claim-timeout}.
+     */
+    private List<Notification> claim() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Notification> due = notificationRepository.findDue(
+                    Notification.Status.PENDING, now, PageRequest.of(0, batchSize)
+            );
+            due.forEach(notification -> notification.setNext_attempt_at(now.plus(claimTimeout)));
+            return due;
+        });
+    }
+
+    private void deliver(Notification notification) {
+        try {
+            notificationSender.send(notification);
+            notification.setStatus(Notification.Status.DELIVERED);
+            notification.setDelivered_at(LocalDateTime.now());
+            delivered.increment();
+        } catch (RuntimeException e) {
+            int attempts = notification.getAttempts() + 1;
+            notification.setAttempts(attempts);
+
+            if (attempts >= maxAttempts) {
+                log.error("Notification {} dropped after {} attempts : {}", notification.getId(), attempts, e.getMessage());
+                notification.setStatus(Notification.Status.FAILED);
+                failed.increment();
+            } else {
+                log.warn("Notification {} failed, attempt {} : {}", notification.getId(), attempts, e.getMessage());
+                notification.setNext_attempt_at(LocalDateTime.now().plus(backoff(attempts)));
+                retried.increment();
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> notificationRepository.save(notification));
+        } catch (RuntimeException e) {
+            // The claim expires and the notification is sent again later
+            log.error("Error when recording notification {} : {}", notification.getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Computes the delay before the next attempt: the initial backoff, doubled after each failure.
+     */
+    private Duration backoff(int attempts) {
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxBackoff) > 0 ? maxBackoff : backoff;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("chatop.notifications")
+                .description("Notification delivery attempts")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.model.Picture;
+import com.openclassrooms.chatop.repository.PictureRepository;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Stores pictures by content: each distinct picture is stored once in the {@code pictures} table,
+ * keyed by its SHA-256.
+ * <p>
+ * An upload is first read as a stream to compute its hash. If the same picture is already stored,
+ * the upload is never loaded on the heap nor sent to the database. Rentals are never deleted and keep
+ * their picture when updated, so a stored picture is never left unused and nothing counts its users.
+ * <p>
+ * Only JPEG, PNG, GIF and WebP pictures are accepted, recognized by their first bytes rather than by
+ * the content type or file name sent by the client.
+ */
+@Service
+@RequiredArgsConstructor
+public class PictureService {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int HEADER_SIZE = 12;
+
+    private static final List<byte[]> IMAGE_SIGNATURES = List.of(
+            new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF},
+            new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'},
+            new byte[]{'G', 'I', 'F', '8', '7', 'a'},
+            new byte[]{'G', 'I', 'F', '8', '9', 'a'}
+    );
+    private static final byte[] RIFF = {'R', 'I', 'F', 'F'};
+    private static final byte[] WEBP = {'W', 'E', 'B', 'P'};
+
+    private final PictureRepository pictureRepository;
+
+    /**
+     * Stores a picture, unless the same picture is already stored.
+     * Must run in the transaction saving the rental referencing the picture.
+     *
+     * @param source the uploaded picture, which must be readable twice
+     * @return a reference to the stored picture
+     * @throws IOException if the upload cannot be read
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Picture store(InputStreamSource source) throws IOException {
+        String hash = hash(source);
+
+        // A plain read: a locking read of a missing row would lock the gap, and concurrent uploads
+        // of different new pictures would then deadlock on their inserts
+        if (!pictureRepository.existsById(hash)) {
+            byte[] data;
+            try (InputStream input = source.getInputStream()) {
+                data = input.readAllBytes();
+            }
+            pictureRepository.insertIfAbsent(hash, data, data.length, LocalDateTime.now());
+        }
+
+        return pictureRepository.getReferenceById(hash);
+    }
+
+    /**
+     * Checks that an upload is a picture by reading only its first bytes.
+     *
+     * @param source the upload
+     * @return true if the upload starts like a JPEG, PNG, GIF or WebP picture
+     * @throws IOException if the upload cannot be read
+     */
+    public static boolean isImage(InputStreamSource source) throws IOException {
+        try (InputStream input = source.getInputStream()) {
+            return isImage(input.readNBytes(HEADER_SIZE));
+        }
+    }
+
+    /**
+     * Checks that content is a picture from its first bytes.
+     *
+     * @param header the content, or at least its first 12 bytes
+     * @return true if the content starts like a JPEG, PNG, GIF or WebP picture
+     */
+    public static boolean isImage(byte[] header) {
+        // WebP: "RIFF", the chunk size on 4 bytes, then "WEBP"
+        if (startsWith(header, RIFF, 0)) {
+            return startsWith(header, WEBP, 8);
+        }
+
+        return IMAGE_SIGNATURES.stream().anyMatch(signature -> startsWith(header, signature, 0));
+    }
+
+    /**
+     * Computes the SHA-256 of a picture by streaming it.
+     *
+     * @param source the picture
+     * @return the lower-case hexadecimal hash
+     * @throws IOException if the picture cannot be read
+     */
+    public static String hash(InputStreamSource source) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (InputStream input = source.getInputStream()) {
+            for (int read = input.read(buffer); read != -1; read = input.read(buffer)) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static boolean startsWith(byte[] content, byte[] signature, int offset) {
+        return content.length >= offset + signature.length
+                && Arrays.equals(content, offset, offset + signature.length, signature, 0, signature.length);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
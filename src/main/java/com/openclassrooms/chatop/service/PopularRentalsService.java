@@ -0,0 +1,69 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.dto.RentalDTO;
+import com.openclassrooms.chatop.popularity.DecayingTopK;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Ranks rentals by recent views, without any database write.
+ * <p>
+ * Every view is recorded in a {@link DecayingTopK} held in memory, whose size does not depend on
+ * the number of rentals. The ranking is recomputed every {@code app.popularity.snapshot-interval};
+ * a view loses half of its weight every {@code app.popularity.half-life}. Each instance ranks the
+ * views it served, which is representative as long as the load balancer spreads requests evenly.
+ */
+@Service
+public class PopularRentalsService {
+
+    private static final int SKETCH_WIDTH = 2048;
+    private static final int SKETCH_DEPTH = 4;
+
+    private final CustomRentalDetailsService customRentalDetailsService;
+    private final DecayingTopK topK;
+
+    public PopularRentalsService(CustomRentalDetailsService customRentalDetailsService,
+                                 @Value("${app.popularity.size:20}") int size,
+                                 @Value("${app.popularity.half-life:1h}") Duration halfLife) {
+        this.customRentalDetailsService = customRentalDetailsService;
+        this.topK = new DecayingTopK(size, SKETCH_WIDTH, SKETCH_DEPTH, halfLife, System.nanoTime());
+    }
+
+    /**
+     * Records a view of a rental.
+     *
+     * @param rentalId the ID of the rental
+     */
+    public void recordView(Long rentalId) {
+        topK.record(rentalId);
+    }
+
+    /**
+     * Recomputes the ranking.
+     */
+    @Scheduled(fixedDelayString = "${app.popularity.snapshot-interval:10s}")
+    public void snapshot() {
+        topK.snapshot(System.nanoTime());
+    }
+
+    /**
+     * Retrieves the most popular rentals of the last snapshot. Popular rentals are the most viewed
+     * ones, so they are usually read from the rentals cache.
+     *
+     * @param limit the maximum number of rentals
+     * @return the rentals, most popular first
+     */
+    public List<RentalDTO> getPopularRentals(int limit) {
+        return topK.getTop().stream()
+                .limit(limit)
+                .map(entry -> customRentalDetailsService.getRentalDTO(entry.getKey()))
+                .flatMap(Optional::stream)
+                .toList();
+    }
+}
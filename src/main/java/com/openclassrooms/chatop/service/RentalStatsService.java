@@ -0,0 +1,252 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.dto.RentalStatsDTO;
+import com.openclassrooms.chatop.model.RentalStats;
+import com.openclassrooms.chatop.repository.RentalStatsRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Maintains the message and view counters of each rental.
+ * <p>
+ * Events are first added to in-memory striped counters, which costs no database access and
+ * does not contend between request threads. Pending counts are periodically written to the
+ * {@code rental_stats} table in a single transaction, so reading the stats of a rental is a
+ * primary key lookup whatever the number of messages it has received.
+ * <p>
+ * A flush swaps the counters of a rental out of the map, then retires them: it waits for the
+ * writers still adding to them, and writers arriving later see them retired and use the new
+ * counters of the map. An event is thus either in the counters taken by the flush or in new ones,
+ * never lost between the two, and recording an event takes no lock. Rentals without new events
+ * keep no counters between two flushes.
+ */
+@Slf4j
+@Service
+public class RentalStatsService {
+
+    private static final long NO_MESSAGE = Long.MIN_VALUE;
+
+    private final RentalStatsRepository rentalStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, PendingStats> pending = new ConcurrentHashMap<>();
+
+    public RentalStatsService(RentalStatsRepository rentalStatsRepository, PlatformTransactionManager transactionManager) {
+        this.rentalStatsRepository = rentalStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Records a new message sent about a rental.
+     *
+     * @param rentalId  the ID of the rental
+     * @param createdAt the creation date of the message
+     */
+    public void recordMessage(Long rentalId, LocalDateTime createdAt) {
+        PendingStats stats = acquire(rentalId);
+
+        try {
+            stats.messages.increment();
+
+            if (createdAt != null) {
+                stats.lastMessageAt.accumulateAndGet(toEpochMillis(createdAt), Math::max);
+            }
+        } finally {
+            stats.release();
+        }
+    }
+
+    /**
+     * Records a view of a rental.
+     *
+     * @param rentalId the ID of the rental
+     */
+    public void recordView(Long rentalId) {
+        PendingStats stats = acquire(rentalId);
+
+        try {
+            stats.views.increment();
+        } finally {
+            stats.release();
+        }
+    }
+
+    /**
+     * Retrieves the stats of a rental, including the counts not yet written to the database.
+     *
+     * @param rentalId the ID of the rental
+     * @return the stats of the rental
+     */
+    public RentalStatsDTO getStats(Long rentalId) {
+        RentalStatsDTO statsDTO = new RentalStatsDTO();
+        statsDTO.setRental_id(rentalId);
+
+        rentalStatsRepository.findById(rentalId).ifPresent(stats -> {
+            statsDTO.setMessage_count(stats.getMessage_count());
+            statsDTO.setView_count(stats.getView_count());
+            statsDTO.setLast_message_at(stats.getLast_message_at());
+        });
+
+        PendingStats stats = pending.get(rentalId);
+
+        if (stats != null) {
+            statsDTO.setMessage_count(statsDTO.getMessage_count() + stats.messages.sum());
+            statsDTO.setView_count(statsDTO.getView_count() + stats.views.sum());
+
+            LocalDateTime lastMessageAt = toLocalDateTime(stats.lastMessageAt.get());
+            if (lastMessageAt != null
+                    && (statsDTO.getLast_message_at() == null || lastMessageAt.isAfter(statsDTO.getLast_message_at()))) {
+                statsDTO.setLast_message_at(lastMessageAt);
+            }
+        }
+
+        return statsDTO;
+    }
+
+    /**
+     * Writes the pending counts to the database. Runs every {@code app.stats.flush-interval}
+     * and when the application stops. If the write fails, the counts are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:10s}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Long, PendingStats> batch = new HashMap<>();
+
+        pending.forEach((rentalId, stats) -> {
+            // Removed before being retired, so that writers seeing it retired find new counters
+            if (pending.remove(rentalId, stats)) {
+                stats.retire();
+                batch.put(rentalId, stats);
+            }
+        });
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach(this::write));
+        } catch (RuntimeException e) {
+            log.error("Error when flushing rental stats : {}", e.getMessage());
+            batch.forEach(this::merge);
+        }
+    }
+
+    /**
+     * Finds the counters of a rental and registers the calling thread as one of their writers,
+     * creating new counters when the current ones are retired by a flush.
+     */
+    private PendingStats acquire(Long rentalId) {
+        while (true) {
+            PendingStats stats = pending.get(rentalId);
+
+            if (stats == null) {
+                stats = pending.computeIfAbsent(rentalId, id -> new PendingStats());
+            }
+
+            if (stats.tryAcquire()) {
+                return stats;
+            }
+        }
+    }
+
+    /**
+     * Adds counts to the stats row of a rental, creating the row if needed.
+     */
+    private void write(Long rentalId, PendingStats counts) {
+        long messages = counts.messages.sum();
+        long views = counts.views.sum();
+        LocalDateTime lastMessageAt = toLocalDateTime(counts.lastMessageAt.get());
+
+        if (rentalStatsRepository.increment(rentalId, messages, views, lastMessageAt) > 0) {
+            return;
+        }
+
+        RentalStats stats = new RentalStats();
+        stats.setRental_id(rentalId);
+        stats.setMessage_count(messages);
+        stats.setView_count(views);
+        stats.setLast_message_at(lastMessageAt);
+        rentalStatsRepository.save(stats);
+    }
+
+    /**
+     * Adds counts back to the pending counters of a rental.
+     */
+    private void merge(Long rentalId, PendingStats counts) {
+        PendingStats current = acquire(rentalId);
+
+        try {
+            current.messages.add(counts.messages.sum());
+            current.views.add(counts.views.sum());
+            current.lastMessageAt.accumulateAndGet(counts.lastMessageAt.get(), Math::max);
+        } finally {
+            current.release();
+        }
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMillis) {
+        if (epochMillis == NO_MESSAGE) {
+            return null;
+        }
+
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    /**
+     * Counts recorded for a rental since the last flush.
+     */
+    private static class PendingStats {
+        // Added to the writer count once the counters are retired, which makes it negative
+        private static final int RETIRED = Integer.MIN_VALUE;
+
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder views = new LongAdder();
+        private final AtomicLong lastMessageAt = new AtomicLong(NO_MESSAGE);
+        private final AtomicInteger writers = new AtomicInteger();
+
+        private boolean tryAcquire() {
+            if (writers.getAndIncrement() >= 0) {
+                return true;
+            }
+
+            writers.decrementAndGet();
+            return false;
+        }
+
+        private void release() {
+            writers.decrementAndGet();
+        }
+
+        /**
+         * Refuses new writers and waits for the current ones, which only hold the counters for an increment.
+         */
+        private void retire() {
+            writers.getAndAdd(RETIRED);
+
+            while (writers.get() != RETIRED) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
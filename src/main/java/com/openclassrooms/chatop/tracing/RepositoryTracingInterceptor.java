@@ -0,0 +1,28 @@
+package com.openclassrooms.chatop.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Measures each call to a Spring Data repository as a stage named after the repository and the
+ * method, such as {@code UserRepository.findByEmail}.
+ */
+public class RepositoryTracingInterceptor implements MethodInterceptor {
+
+    private final String repositoryName;
+
+    public RepositoryTracingInterceptor(Class<?> repositoryInterface) {
+        this.repositoryName = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (!RequestTracing.isActive()) {
+            return invocation.proceed();
+        }
+
+        try (RequestTracing.Span span = RequestTracing.start(repositoryName + "." + invocation.getMethod().getName())) {
+            return invocation.proceed();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.chatop.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering a whole HTTP request, from the tracing filter to the end of the response.
+ * Only committed while a recording with this event enabled is running.
+ */
+@Name("com.openclassrooms.chatop.Request")
+@Label("HTTP Request")
+@Category("ChaTop")
+@Description("The handling of an HTTP request")
+public class RequestEvent extends jdk.jfr.Event {
+
+    @Label("Trace ID")
+    public String traceId;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status")
+    public int status;
+}
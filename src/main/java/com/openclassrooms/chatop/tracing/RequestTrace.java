@@ -0,0 +1,93 @@
+package com.openclassrooms.chatop.tracing;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time spent in each stage of one HTTP request. Only used by the thread handling the request,
+ * then read by the {@link SlowRequestLog} once the request is finished.
+ */
+@Getter
+public class RequestTrace {
+
+    // Enough to recognize a query storm in the logs without keeping every statement of a huge request
+    static final int MAX_KEPT_STATEMENTS = 50;
+
+    private final String traceId;
+    private final String method;
+    private final String path;
+    private final Instant startedAt;
+    private final long startedNanos;
+    private final Map<String, StageTotal> stages = new LinkedHashMap<>();
+    private final List<String> statements = new ArrayList<>();
+    private int statementCount;
+    private long statementMillis;
+    private long finishedNanos;
+    private int status;
+
+    /**
+     * Starts the trace of a request.
+     *
+     * @param traceId the ID of the trace, also found in the logs of the request
+     * @param method  the HTTP method of the request
+     * @param path    the path of the request
+     */
+    public RequestTrace(String traceId, String method, String path) {
+        this(traceId, method, path, System.nanoTime());
+    }
+
+    RequestTrace(String traceId, String method, String path, long startedNanos) {
+        this.traceId = traceId;
+        this.method = method;
+        this.path = path;
+        this.startedAt = Instant.now();
+        this.startedNanos = startedNanos;
+    }
+
+    /**
+     * Marks the request as finished.
+     *
+     * @param status the status of the response
+     */
+    public void finish(int status) {
+        finish(status, System.nanoTime());
+    }
+
+    void finish(int status, long finishedNanos) {
+        this.status = status;
+        this.finishedNanos = finishedNanos;
+    }
+
+    public long getDurationNanos() {
+        return finishedNanos - startedNanos;
+    }
+
+    void add(String stage, long nanos) {
+        StageTotal total = stages.computeIfAbsent(stage, name -> new StageTotal());
+        total.nanos += nanos;
+        total.count++;
+    }
+
+    void addStatement(String sql, long elapsedMillis) {
+        statementCount++;
+        statementMillis += elapsedMillis;
+
+        if (statements.size() < MAX_KEPT_STATEMENTS) {
+            statements.add(sql);
+        }
+    }
+
+    /**
+     * Time spent in a stage and number of times it was entered during the request.
+     */
+    @Getter
+    public static class StageTotal {
+        private long nanos;
+        private int count;
+    }
+}
@@ -0,0 +1,117 @@
+package com.openclassrooms.chatop.tracing;
+
+/**
+ * Records the time spent in the stages of the current request.
+ * <p>
+ * A stage is measured with {@code try (RequestTracing.Span span = RequestTracing.start(...)) { ... }}.
+ * When no request is traced on the current thread (tracing disabled, scheduled tasks), {@link #start}
+ * returns a shared span doing nothing, so instrumented code only pays for a thread-local read.
+ * Stages may be nested: the time of an inner stage is also counted in the outer one.
+ */
+public final class RequestTracing {
+
+    public static final String JWT_DECODE = "jwt_decode";
+    public static final String MAPPING = "mapping";
+    public static final String SERIALIZATION = "serialization";
+    public static final String PICTURE_ENCODING = "picture_encoding";
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private RequestTracing() {
+    }
+
+    /**
+     * Makes a trace the current one on this thread.
+     *
+     * @param trace the trace of the request handled by this thread
+     */
+    public static void bind(RequestTrace trace) {
+        CURRENT.set(trace);
+    }
+
+    /**
+     * Removes the current trace of this thread.
+     */
+    public static void unbind() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Tells whether a request is traced on this thread.
+     *
+     * @return true if stages are currently recorded
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Retrieves the trace of the request handled by this thread.
+     *
+     * @return the current trace, or null if no request is traced on this thread
+     */
+    static RequestTrace current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Starts measuring a stage of the current request.
+     *
+     * @param stage the name of the stage
+     * @return the span to close when the stage ends
+     */
+    public static Span start(String stage) {
+        RequestTrace trace = CURRENT.get();
+
+        if (trace == null) {
+            return Span.NOOP;
+        }
+
+        return new Span(trace, stage);
+    }
+
+    /**
+     * A stage being measured. Closing it adds its duration to the trace, and commits a flight recorder
+     * event when a recording is running.
+     */
+    public static final class Span implements AutoCloseable {
+
+        private static final Span NOOP = new Span(null, null);
+
+        private final RequestTrace trace;
+        private final String stage;
+        private final StageEvent event;
+        private final long startedNanos;
+
+        private Span(RequestTrace trace, String stage) {
+            this.trace = trace;
+            this.stage = stage;
+
+            if (trace == null) {
+                this.event = null;
+                this.startedNanos = 0;
+                return;
+            }
+
+            this.event = new StageEvent();
+            this.event.begin();
+            this.startedNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            if (trace == null) {
+                return;
+            }
+
+            trace.add(stage, System.nanoTime() - startedNanos);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.traceId = trace.getTraceId();
+                event.stage = stage;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.openclassrooms.chatop.tracing;
+
+import com.openclassrooms.chatop.dto.RequestTraceDTO;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Keeps the slowest requests finished within a sliding window.
+ * <p>
+ * A request faster than all the kept ones is rejected with two volatile reads, so once the log is
+ * full, only the requests that enter it take the lock.
+ */
+public class SlowRequestLog {
+
+    private static final Comparator<RequestTrace> BY_DURATION = Comparator.comparingLong(RequestTrace::getDurationNanos);
+
+    private final int capacity;
+    private final long windowNanos;
+    private final PriorityQueue<RequestTrace> slowest = new PriorityQueue<>(BY_DURATION);
+
+    // Duration a request must exceed to enter the log, as long as no kept request leaves the window
+    private volatile long threshold;
+    // Time at which the oldest kept request leaves the window
+    private volatile long nextExpiry = Long.MAX_VALUE;
+
+    /**
+     * Constructs a new SlowRequestLog.
+     *
+     * @param capacity the number of requests kept
+     * @param window   how long a request is kept after it finished
+     */
+    public SlowRequestLog(int capacity, Duration window) {
+        this.capacity = capacity;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * Offers a finished request to the log.
+     *
+     * @param trace the trace of the finished request
+     */
+    public void record(RequestTrace trace) {
+        long now = trace.getFinishedNanos();
+
+        if (trace.getDurationNanos() <= threshold && now - nextExpiry < 0) {
+            return;
+        }
+
+        synchronized (this) {
+            purge(now);
+            slowest.add(trace);
+
+            if (slowest.size() > capacity) {
+                slowest.poll();
+            }
+
+            update();
+        }
+    }
+
+    /**
+     * Lists the kept requests, slowest first, with the time spent in each of their stages.
+     *
+     * @return the slowest recent requests
+     */
+    public List<RequestTraceDTO> getSlowest() {
+        return getSlowest(System.nanoTime());
+    }
+
+    synchronized List<RequestTraceDTO> getSlowest(long now) {
+        purge(now);
+        update();
+
+        return slowest.stream()
+                .sorted(BY_DURATION.reversed())
+                .map(SlowRequestLog::toDTO)
+                .toList();
+    }
+
+    private void purge(long now) {
+        slowest.removeIf(trace -> now - trace.getFinishedNanos() > windowNanos);
+    }
+
+    private void update() {
+        threshold = slowest.size() < capacity ? 0 : slowest.peek().getDurationNanos();
+        nextExpiry = slowest.stream()
+                .mapToLong(trace -> trace.getFinishedNanos() + windowNanos)
+                .reduce((first, second) -> first - second < 0 ? first : second)
+                .orElse(Long.MAX_VALUE);
+    }
+
+    private static RequestTraceDTO toDTO(RequestTrace trace) {
+        Map<String, Double> stages = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+
+        trace.getStages().forEach((stage, total) -> {
+            stages.put(stage, toMillis(total.getNanos()));
+            counts.put(stage, total.getCount());
+        });
+
+        RequestTraceDTO traceDTO = new RequestTraceDTO();
+        traceDTO.setTrace_id(trace.getTraceId());
+        traceDTO.setMethod(trace.getMethod());
+        traceDTO.setPath(trace.getPath());
+        traceDTO.setStatus(trace.getStatus());
+        traceDTO.setStarted_at(trace.getStartedAt());
+        traceDTO.setDuration_ms(toMillis(trace.getDurationNanos()));
+        traceDTO.setStages_ms(stages);
+        traceDTO.setStage_counts(counts);
+        traceDTO.setSql_statements(trace.getStatementCount());
+        traceDTO.setSql_ms(trace.getStatementMillis());
+        return traceDTO;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
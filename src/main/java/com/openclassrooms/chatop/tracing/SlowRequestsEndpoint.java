@@ -0,0 +1,32 @@
+package com.openclassrooms.chatop.tracing;
+
+import com.openclassrooms.chatop.dto.RequestTraceDTO;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint ({@code GET /actuator/slowrequests}) listing the slowest recent requests
+ * with the time spent in each of their stages.
+ */
+@Endpoint(id = "slowrequests")
+public class SlowRequestsEndpoint {
+
+    private final SlowRequestLog slowRequestLog;
+
+    public SlowRequestsEndpoint(SlowRequestLog slowRequestLog) {
+        this.slowRequestLog = slowRequestLog;
+    }
+
+    /**
+     * Lists the slowest requests finished within the tracing window, slowest first.
+     *
+     * @return the slowest recent requests
+     */
+    @ReadOperation
+    public List<RequestTraceDTO> slowRequests() {
+        return slowRequestLog.getSlowest();
+    }
+}
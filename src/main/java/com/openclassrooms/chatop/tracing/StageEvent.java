@@ -0,0 +1,23 @@
+package com.openclassrooms.chatop.tracing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering one stage of a request (JWT decoding, a repository call, mapping,
+ * serialization...). Only committed while a recording with this event enabled is running.
+ */
+@Name("com.openclassrooms.chatop.Stage")
+@Label("Request Stage")
+@Category("ChaTop")
+@Description("A stage of the handling of an HTTP request")
+class StageEvent extends jdk.jfr.Event {
+
+    @Label("Trace ID")
+    String traceId;
+
+    @Label("Stage")
+    String stage;
+}
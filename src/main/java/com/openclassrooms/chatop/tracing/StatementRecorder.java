@@ -0,0 +1,34 @@
+package com.openclassrooms.chatop.tracing;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+/**
+ * Adds the SQL statements executed through the proxied data source to the trace of the current request.
+ * Statements run outside a traced request (scheduled tasks, startup) are ignored.
+ */
+public class StatementRecorder implements QueryExecutionListener {
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestTrace trace = RequestTracing.current();
+
+        if (trace == null) {
+            return;
+        }
+
+        // A batch is sent in a single round trip: it counts as one statement
+        String sql = queryInfoList.size() == 1
+                ? queryInfoList.get(0).getQuery()
+                : queryInfoList.get(0).getQuery() + " (+ " + (queryInfoList.size() - 1) + " more in the same execution)";
+
+        trace.addStatement(sql, execInfo.getElapsedTime());
+    }
+}
@@ -0,0 +1,30 @@
+package com.openclassrooms.chatop.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * JSON converter measuring the serialization of response bodies as the {@code serialization} stage.
+ * The measure includes writing to the (possibly compressed) response stream, since Jackson writes
+ * the body while it serializes it.
+ */
+public class TracingJsonConverter extends MappingJackson2HttpMessageConverter {
+
+    public TracingJsonConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        try (RequestTracing.Span span = RequestTracing.start(RequestTracing.SERIALIZATION)) {
+            super.writeInternal(object, type, outputMessage);
+        }
+    }
+}
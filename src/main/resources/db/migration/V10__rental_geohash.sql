@@ -0,0 +1,7 @@
+-- Nearby search: a (latitude, longitude) index would only narrow the latitude, every longitude of the band
+-- would still be read. The geohash of a rental (see Geohash) keeps nearby rentals together in a single
+-- column, so RentalRepository.findNearby reads the few cells covering the searched circle only.
+-- The coordinates are part of the index so that the distance is computed without reading the rows.
+ALTER TABLE rentals ADD COLUMN geohash VARCHAR(12) NULL;
+
+CREATE INDEX idx_rentals_geohash ON rentals (geohash, latitude, longitude);
@@ -0,0 +1,3 @@
+-- Rentals are never deleted and keep their picture when updated: the count of the rentals using a
+-- picture was never read, and incrementing it on every upload of a known picture only locked its row
+ALTER TABLE pictures DROP COLUMN ref_count;
@@ -0,0 +1,40 @@
+-- Schema as documented in the README before the migrations were introduced, unchanged.
+-- Databases created from the README are adopted as this version (spring.flyway.baseline-on-migrate),
+-- so every later change goes in the following migrations, never here.
+
+CREATE TABLE users
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name       VARCHAR(255)        NOT NULL,
+    email      VARCHAR(255) UNIQUE NOT NULL,
+    password   VARCHAR(255)        NOT NULL,
+    role       VARCHAR(255)        NOT NULL DEFAULT 'USER',
+    created_at TIMESTAMP                    DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP                    DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE rentals
+(
+    id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    owner_id    BIGINT                              NOT NULL,
+    name        VARCHAR(255)                        NOT NULL,
+    surface     INT CHECK (surface >= 1),
+    price       DECIMAL(10, 2) CHECK (price > 0.0),
+    picture     LONGBLOB,
+    description TEXT,
+    created_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT fk_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+);
+
+CREATE TABLE messages
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    user_id    BIGINT                              NOT NULL,
+    rental_id  BIGINT                              NOT NULL,
+    message    TEXT                                NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL,
+    CONSTRAINT fk_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_rental FOREIGN KEY (rental_id) REFERENCES rentals (id)
+);
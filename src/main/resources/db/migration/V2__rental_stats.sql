@@ -0,0 +1,8 @@
+-- Message and view counters of each rental, written by batches by RentalStatsService
+CREATE TABLE rental_stats
+(
+    rental_id       BIGINT PRIMARY KEY,
+    message_count   BIGINT DEFAULT 0 NOT NULL,
+    view_count      BIGINT DEFAULT 0 NOT NULL,
+    last_message_at TIMESTAMP NULL
+);
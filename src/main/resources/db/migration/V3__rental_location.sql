@@ -0,0 +1,3 @@
+-- Coordinates of the rentals, for the nearby search
+ALTER TABLE rentals ADD COLUMN latitude DOUBLE NULL CHECK (latitude BETWEEN -90 AND 90);
+ALTER TABLE rentals ADD COLUMN longitude DOUBLE NULL CHECK (longitude BETWEEN -180 AND 180);
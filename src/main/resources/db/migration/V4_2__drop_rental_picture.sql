@@ -0,0 +1,3 @@
+-- The pictures have been moved to the pictures table by V4.1
+ALTER TABLE rentals DROP COLUMN picture;
+ALTER TABLE rentals ADD CONSTRAINT fk_picture FOREIGN KEY (picture_hash) REFERENCES pictures (hash);
@@ -0,0 +1,13 @@
+-- Each distinct picture is stored once, whatever the number of rentals using it (see PictureService).
+-- The pictures of rentals.picture are moved to this table by the V4.1 script of each database vendor,
+-- then the column is dropped by V4.2.
+CREATE TABLE pictures
+(
+    hash       CHAR(64) PRIMARY KEY,
+    data       LONGBLOB         NOT NULL,
+    size       BIGINT           NOT NULL,
+    ref_count  BIGINT DEFAULT 0 NOT NULL,
+    created_at TIMESTAMP        NOT NULL
+);
+
+ALTER TABLE rentals ADD COLUMN picture_hash CHAR(64) NULL;
@@ -0,0 +1,15 @@
+-- Notifications to the owners of rentals, saved with the message and delivered by NotificationRelay
+CREATE TABLE notification_outbox
+(
+    id              BIGINT AUTO_INCREMENT PRIMARY KEY,
+    recipient       VARCHAR(255)  NOT NULL,
+    subject         VARCHAR(255)  NOT NULL,
+    body            TEXT,
+    status          VARCHAR(16)   NOT NULL,
+    attempts        INT DEFAULT 0 NOT NULL,
+    next_attempt_at TIMESTAMP     NOT NULL,
+    created_at      TIMESTAMP     NOT NULL,
+    delivered_at    TIMESTAMP     NULL
+);
+
+CREATE INDEX idx_notification_outbox_due ON notification_outbox (status, next_attempt_at);
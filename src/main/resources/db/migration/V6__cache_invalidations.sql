@@ -0,0 +1,9 @@
+-- Cache invalidations shared between instances, only used when app.cache.invalidation.transport=database
+CREATE TABLE cache_invalidations
+(
+    id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+    origin     CHAR(36)    NOT NULL,
+    cache_name VARCHAR(64) NOT NULL,
+    entity_id  BIGINT      NULL,
+    created_at TIMESTAMP   NOT NULL
+);
@@ -0,0 +1,11 @@
+-- Responses recorded for an Idempotency-Key, only used when app.idempotency.persistent=true
+CREATE TABLE idempotency_keys
+(
+    idempotency_key CHAR(64) PRIMARY KEY,
+    status          INT       NOT NULL,
+    content_type    VARCHAR(255),
+    body            LONGBLOB,
+    created_at      TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,16 @@
+-- Messages older than app.messages.retention, moved by MessageArchiver.
+-- Partitioned by year on MySQL (see db/vendor/mysql): the partitioning column must be part of the primary key
+CREATE TABLE messages_archive
+(
+    id          BIGINT    NOT NULL,
+    user_id     BIGINT    NOT NULL,
+    rental_id   BIGINT    NOT NULL,
+    message     TEXT      NOT NULL,
+    created_at  DATETIME  NOT NULL,
+    updated_at  TIMESTAMP NULL,
+    archived_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+);
+
+-- Archived messages of a rental, sorted like the recent ones
+CREATE INDEX idx_messages_archive_rental ON messages_archive (rental_id, id);
@@ -0,0 +1,17 @@
+-- Indexes matched to the repository queries, checked by QueryPlanIntegrationTest.
+-- On MySQL they replace the indexes implicitly created for the foreign keys.
+
+-- Rentals of an owner, and rentals sharing a picture (reference counting in PictureService)
+CREATE INDEX idx_rentals_owner ON rentals (owner_id);
+CREATE INDEX idx_rentals_picture ON rentals (picture_hash);
+
+-- Latest messages of a rental: WHERE rental_id = ? ORDER BY id DESC LIMIT ?, read in index order
+CREATE INDEX idx_messages_rental ON messages (rental_id, id);
+CREATE INDEX idx_messages_user ON messages (user_id);
+
+-- Archiver: WHERE created_at < ? ORDER BY created_at, id LIMIT ?, only reads the rows to move
+CREATE INDEX idx_messages_created_at ON messages (created_at, id);
+
+-- Purges: WHERE delivered_at < ? and WHERE created_at < ?
+CREATE INDEX idx_notification_outbox_delivered ON notification_outbox (delivered_at);
+CREATE INDEX idx_cache_invalidations_created_at ON cache_invalidations (created_at);
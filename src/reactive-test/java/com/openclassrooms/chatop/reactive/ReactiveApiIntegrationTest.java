@@ -0,0 +1,248 @@
+package com.openclassrooms.chatop.reactive;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+
+import com.openclassrooms.chatop.reactive.service.ReactiveRentalStatsService;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the reactive API answers errors like the servlet API and has the same side effects:
+ * outbox notification and stats for a message, idempotent creations, cache invalidation events.
+ */
+@SpringBootTest(classes = ReactiveChatopApplication.class, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactive-api;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.flyway.url=jdbc:h2:mem:reactive-api;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.flyway.user=sa",
+        "app.cache.invalidation.transport=database",
+        "app.stats.flush-interval=1h"
+})
+@ActiveProfiles(ReactiveChatopApplication.PROFILE)
+@AutoConfigureWebTestClient
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReactiveApiIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ReactiveRentalStatsService rentalStatsService;
+
+    @Value("${app.secret-key}")
+    private String secretKey;
+
+    private long ownerId;
+    private long senderId;
+    private long rentalId;
+    private String ownerToken;
+    private String senderToken;
+
+    @BeforeAll
+    void seed() {
+        ownerId = insertUser("owner@test.com");
+        senderId = insertUser("sender@test.com");
+        rentalId = databaseClient.sql("""
+                        INSERT INTO rentals (owner_id, name, surface, price, description, created_at, updated_at)
+                        VALUES (:ownerId, 'Rental', 50, 100, 'Description', NOW(), NOW())
+                        """)
+                .bind("ownerId", ownerId)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block();
+
+        ownerToken = token("owner@test.com");
+        senderToken = token("sender@test.com");
+    }
+
+    @Test
+    void missingRentalIsNotFound() {
+        webTestClient.get().uri("/api/rentals/{id}", rentalId + 1000)
+                .header("Authorization", ownerToken)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").isEqualTo("rental_not_found");
+    }
+
+    @Test
+    void viewsAreCountedInTheStats() {
+        long before = stat("view_count");
+
+        webTestClient.get().uri("/api/rentals/{id}", rentalId)
+                .header("Authorization", senderToken)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("Rental");
+        rentalStatsService.flush();
+
+        assertThat(stat("view_count")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void messageAboutAMissingRentalIsNotFound() {
+        postMessage(rentalId + 1000, "Hello", null)
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").isEqualTo("rental_not_found");
+    }
+
+    @Test
+    void emptyMessageIsABadRequest() {
+        postMessage(rentalId, "", null)
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("empty_message");
+    }
+
+    @Test
+    void messageNotifiesTheOwnerAndIsCountedInTheStats() {
+        long notifications = count("SELECT COUNT(*) FROM notification_outbox WHERE recipient = 'owner@test.com'");
+        long messages = stat("message_count");
+
+        postMessage(rentalId, "Is it available?", null).expectStatus().isOk();
+        rentalStatsService.flush();
+
+        assertThat(count("SELECT COUNT(*) FROM notification_outbox WHERE recipient = 'owner@test.com'"))
+                .isEqualTo(notifications + 1);
+        assertThat(stat("message_count")).isEqualTo(messages + 1);
+    }
+
+    @Test
+    void repeatedMessageWithTheSameIdempotencyKeyIsSavedOnce() {
+        long messages = count("SELECT COUNT(*) FROM messages WHERE message = 'Once'");
+
+        postMessage(rentalId, "Once", "key-1")
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist("Idempotent-Replayed");
+        postMessage(rentalId, "Once", "key-1")
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("Idempotent-Replayed", "true")
+                .expectBody().jsonPath("$.message").isEqualTo("Message send with success");
+
+        assertThat(count("SELECT COUNT(*) FROM messages WHERE message = 'Once'")).isEqualTo(messages + 1);
+    }
+
+    @Test
+    void ownerUpdatePublishesACacheInvalidation() {
+        long invalidations = count("SELECT COUNT(*) FROM cache_invalidations WHERE entity_id = " + rentalId);
+
+        update(rentalId, "Updated", ownerToken).expectStatus().isOk();
+
+        assertThat(count("SELECT COUNT(*) FROM cache_invalidations WHERE entity_id = " + rentalId))
+                .isEqualTo(invalidations + 1);
+    }
+
+    @Test
+    void updateOfAnotherUsersRentalIsForbidden() {
+        update(rentalId, "Stolen", senderToken).expectStatus().isForbidden();
+    }
+
+    @Test
+    void updateOfAMissingRentalIsNotFound() {
+        update(rentalId + 1000, "Missing", ownerToken)
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.error").isEqualTo("rental_not_found");
+    }
+
+    @Test
+    void invalidUpdateIsABadRequest() {
+        update(rentalId, " ", ownerToken)
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.error").isEqualTo("invalid_rental");
+    }
+
+    private WebTestClient.ResponseSpec postMessage(long rental, String message, String idempotencyKey) {
+        return webTestClient.post().uri("/api/messages")
+                .header("Authorization", senderToken)
+                .headers(headers -> {
+                    if (idempotencyKey != null) {
+                        headers.set("Idempotency-Key", idempotencyKey);
+                    }
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"rental_id\":" + rental + ",\"user_id\":" + senderId + ",\"message\":\"" + message + "\"}")
+                .exchange();
+    }
+
+    private WebTestClient.ResponseSpec update(long rental, String name, String token) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("name", name);
+        form.add("surface", "30");
+        form.add("price", "80");
+        form.add("description", "Description");
+
+        return webTestClient.put().uri("/api/rentals/{id}", rental)
+                .header("Authorization", token)
+                .body(BodyInserters.fromFormData(form))
+                .exchange();
+    }
+
+    private long insertUser(String email) {
+        return databaseClient.sql("""
+                        INSERT INTO users (email, name, password, created_at, updated_at)
+                        VALUES (:email, :email, 'password', NOW(), NOW())
+                        """)
+                .bind("email", email)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one()
+                .block();
+    }
+
+    private long stat(String column) {
+        Long value = databaseClient.sql("SELECT " + column + " FROM rental_stats WHERE rental_id = :rentalId")
+                .bind("rentalId", rentalId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+        return value != null ? value : 0;
+    }
+
+    private long count(String sql) {
+        return databaseClient.sql(sql)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block();
+    }
+
+    private String token(String email) {
+        NimbusJwtEncoder encoder = new NimbusJwtEncoder(new ImmutableSecret<>(new SecretKeySpec(secretKey.getBytes(), "HmacSHA256")));
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("self")
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .subject(email)
+                .build();
+
+        return "Bearer " + encoder.encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+                .getTokenValue();
+    }
+}
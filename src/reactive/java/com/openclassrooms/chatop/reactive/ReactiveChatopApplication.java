@@ -0,0 +1,35 @@
+package com.openclassrooms.chatop.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Entry point of the reactive variant of the rentals and messages API, served by WebFlux on Netty
+ * with R2DBC repositories instead of blocking JPA ones. Only built with the {@code reactive} Maven
+ * profile; every bean of this package is restricted to the {@code reactive} Spring profile so that
+ * the servlet application ignores them.
+ */
+@EnableScheduling
+@Profile(ReactiveChatopApplication.PROFILE)
+@SpringBootApplication(exclude = {
+        DataSourceAutoConfiguration.class,
+        DataSourceTransactionManagerAutoConfiguration.class,
+        HibernateJpaAutoConfiguration.class
+})
+public class ReactiveChatopApplication {
+
+    public static final String PROFILE = "reactive";
+
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(ReactiveChatopApplication.class);
+        application.setWebApplicationType(WebApplicationType.REACTIVE);
+        application.setAdditionalProfiles(PROFILE);
+        application.run(args);
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.chatop.reactive.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.idempotency.IdempotencyStore;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.filter.ReactiveIdempotencyFilter;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.time.Duration;
+
+@Configuration
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveIdempotencyConfig {
+
+    @Value("${app.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Value("${app.idempotency.max-keys:10000}")
+    private int maxKeys;
+
+    @Value("${app.idempotency.in-flight-timeout:30s}")
+    private Duration inFlightTimeout;
+
+    /**
+     * Provides the store of the responses recorded for idempotency keys, with the same settings as
+     * the servlet application. Keys are only kept in memory: {@code app.idempotency.persistent}
+     * relies on the JPA repository of the servlet application.
+     *
+     * @param meterRegistry the registry where the number of kept keys is published
+     * @return an instance of {@link IdempotencyStore}
+     */
+    @Bean
+    public IdempotencyStore idempotencyStore(MeterRegistry meterRegistry) {
+        IdempotencyStore store = new IdempotencyStore(ttl, maxKeys, null);
+        Gauge.builder("chatop.idempotency.keys", store, IdempotencyStore::size)
+                .description("Idempotency keys kept in memory")
+                .register(meterRegistry);
+        return store;
+    }
+
+    /**
+     * Provides the {@link ReactiveIdempotencyFilter} handling the {@code Idempotency-Key} header on
+     * {@code POST /api/rentals} and {@code POST /api/messages}. Being a plain web filter, it runs
+     * after the security chain, once the user is authenticated.
+     *
+     * @param idempotencyStore the store of the recorded responses
+     * @param objectMapper     the mapper writing the error responses
+     * @param meterRegistry    the registry where replayed requests and errors are counted
+     * @return an instance of {@link ReactiveIdempotencyFilter}
+     */
+    @Bean
+    public ReactiveIdempotencyFilter reactiveIdempotencyFilter(IdempotencyStore idempotencyStore, ObjectMapper objectMapper,
+                                                               MeterRegistry meterRegistry) {
+        return new ReactiveIdempotencyFilter(idempotencyStore, inFlightTimeout, objectMapper, meterRegistry);
+    }
+}
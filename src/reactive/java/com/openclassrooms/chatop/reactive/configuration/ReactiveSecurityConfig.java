@@ -0,0 +1,72 @@
+package com.openclassrooms.chatop.reactive.configuration;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.filter.ReactiveJwtAuthenticationFilter;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.HttpStatus;
+
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+import reactor.core.publisher.Mono;
+
+import javax.crypto.spec.SecretKeySpec;
+
+@Configuration
+@EnableWebFluxSecurity
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveSecurityConfig {
+
+    @Value("${app.secret-key}")
+    private String jwtKey;
+
+    /**
+     * Configures the reactive security filter chain: stateless, every endpoint authenticated
+     * with the same JWT tokens as the servlet application, and an empty 401 response when
+     * authentication is missing.
+     *
+     * @param http the {@link ServerHttpSecurity} object used to customize web security configurations
+     * @return the configured {@link SecurityWebFilterChain} instance
+     */
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(exchange -> exchange.anyExchange().authenticated())
+                .exceptionHandling(handler -> handler
+                        .authenticationEntryPoint((exchange, e) -> Mono.fromRunnable(() ->
+                                exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED)))
+                )
+                .addFilterAt(new ReactiveJwtAuthenticationFilter(reactiveJwtDecoder()), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    /**
+     * Provides a ReactiveJwtDecoder bean validating tokens signed with the application secret key.
+     *
+     * @return an instance of {@link ReactiveJwtDecoder}
+     */
+    @Bean
+    public ReactiveJwtDecoder reactiveJwtDecoder() {
+        SecretKeySpec secretKey = new SecretKeySpec(jwtKey.getBytes(), "HmacSHA256");
+        return NimbusReactiveJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+    }
+}
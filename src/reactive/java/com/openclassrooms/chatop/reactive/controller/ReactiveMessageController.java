@@ -0,0 +1,50 @@
+package com.openclassrooms.chatop.reactive.controller;
+
+import com.openclassrooms.chatop.dto.MessageDTO;
+
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.service.ReactiveMessageService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.web.bind.annotation.*;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/messages")
+@RequiredArgsConstructor
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveMessageController {
+
+
+    private final ReactiveMessageService messageService;
+
+
+    @PostMapping("")
+    public Mono<ResponseEntity<Map<String, String>>> createMessage(@RequestBody MessageDTO messageDTO) {
+        if (messageDTO.getRental_id() == null || messageDTO.getUser_id() == null) {
+            return Mono.error(InvalidRequestException.MISSING_FIELDS);
+        }
+
+        if (messageDTO.getMessage() == null || messageDTO.getMessage().isEmpty()) {
+            return Mono.error(InvalidRequestException.EMPTY_MESSAGE);
+        }
+
+        // A missing user or rental is answered with 404 by the ReactiveExceptionHandler
+        return messageService.saveMessage(
+                        Long.valueOf(messageDTO.getUser_id()),
+                        Long.valueOf(messageDTO.getRental_id()),
+                        messageDTO.getMessage()
+                )
+                .thenReturn(ResponseEntity.ok(Map.of("message", "Message send with success")));
+    }
+}
@@ -0,0 +1,136 @@
+package com.openclassrooms.chatop.reactive.controller;
+
+import com.openclassrooms.chatop.dto.RentalDTO;
+
+import com.openclassrooms.chatop.exception.ForbiddenException;
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.mapper.ReactiveRentalMapper;
+import com.openclassrooms.chatop.reactive.model.UserRow;
+import com.openclassrooms.chatop.reactive.repository.ReactiveRentalRepository;
+import com.openclassrooms.chatop.reactive.repository.ReactiveUserRepository;
+import com.openclassrooms.chatop.reactive.service.ReactiveRentalService;
+import com.openclassrooms.chatop.reactive.service.ReactiveRentalStatsService;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.security.core.Authentication;
+
+import org.springframework.util.unit.DataSize;
+
+import org.springframework.web.bind.annotation.*;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rentals")
+@RequiredArgsConstructor
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveRentalController {
+
+
+    private final ReactiveRentalRepository rentalRepository;
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveRentalMapper rentalMapper;
+    private final ReactiveRentalService rentalService;
+    private final ReactiveRentalStatsService rentalStatsService;
+
+    @Value("${spring.webflux.multipart.max-disk-usage-per-part:5MB}")
+    private DataSize maxPictureSize;
+
+
+    @GetMapping("")
+    public Mono<ResponseEntity<Map<String, List<RentalDTO>>>> getRentals(Authentication authentication) {
+        return getAuthenticatedUser(authentication)
+                .flatMap(user -> rentalRepository.findAll()
+                        .map(rentalMapper::toDTO)
+                        .collectList()
+                        .map(rentals -> ResponseEntity.ok(Map.of("rentals", rentals))))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<RentalDTO>> getRental(@PathVariable Long id, Authentication authentication) {
+        return getAuthenticatedUser(authentication)
+                .flatMap(user -> rentalRepository.findById(id)
+                        .switchIfEmpty(Mono.error(ResourceNotFoundException.RENTAL))
+                        .doOnNext(rental -> rentalStatsService.recordView(rental.getId()))
+                        .map(rental -> ResponseEntity.ok(rentalMapper.toDTO(rental))))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+
+    @PostMapping("")
+    public Mono<ResponseEntity<Map<String, String>>> createRental(@ModelAttribute RentalForm form,
+                                                                  Authentication authentication) {
+        // Invalid fields or picture, and an oversized picture, are answered by the ReactiveExceptionHandler
+        return getAuthenticatedUser(authentication)
+                .flatMap(user -> readPicture(form)
+                        .flatMap(picture -> rentalService.saveRental(user.getId(), form, picture)))
+                .map(rental -> ResponseEntity.ok(Map.of("message", "Rental created !")))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Map<String, String>>> updateRental(@PathVariable Long id,
+                                                                  @ModelAttribute RentalForm form,
+                                                                  Authentication authentication) {
+        return getAuthenticatedUser(authentication)
+                .flatMap(user -> rentalService.updateOwnedRental(id, user.getId(), form))
+                .flatMap(updated -> updated
+                        ? Mono.just(ResponseEntity.ok(Map.of("message", "Rental updated !")))
+                        : Mono.<ResponseEntity<Map<String, String>>>error(ForbiddenException.RENTAL_NOT_OWNED))
+                .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+    /**
+     * Reads the uploaded picture without blocking.
+     *
+     * @param form the submitted form
+     * @return the picture content, or an empty array if no picture was sent
+     */
+    private Mono<byte[]> readPicture(RentalForm form) {
+        if (form.getPicture() == null) {
+            return Mono.just(new byte[0]);
+        }
+
+        // Fails with a DataBufferLimitException as soon as the picture exceeds the maximum size
+        return DataBufferUtils.join(form.getPicture().content(), (int) maxPictureSize.toBytes())
+                .map(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0]);
+    }
+
+    /**
+     * Retrieves the authenticated user based on the provided authentication object.
+     *
+     * @param authentication the authentication object containing user information
+     * @return the authenticated user, or an empty Mono if authentication is invalid
+     */
+    private Mono<UserRow> getAuthenticatedUser(Authentication authentication) {
+        if (authentication == null || authentication.getName() == null) {
+            return Mono.empty();
+        }
+
+        return userRepository.findByEmail(authentication.getName());
+    }
+}
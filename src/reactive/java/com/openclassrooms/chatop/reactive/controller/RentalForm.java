@@ -0,0 +1,28 @@
+package com.openclassrooms.chatop.reactive.controller;
+
+import lombok.Data;
+
+import org.springframework.http.codec.multipart.FilePart;
+
+import java.math.BigDecimal;
+
+/**
+ * Form fields of the rental creation and update requests, bound from multipart or urlencoded data.
+ */
+@Data
+public class RentalForm {
+
+    private String name;
+
+    private Integer surface;
+
+    private BigDecimal price;
+
+    private String description;
+
+    private FilePart picture;
+
+    private Double latitude;
+
+    private Double longitude;
+}
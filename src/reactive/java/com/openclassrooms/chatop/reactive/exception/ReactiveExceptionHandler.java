@@ -0,0 +1,105 @@
+package com.openclassrooms.chatop.reactive.exception;
+
+import com.openclassrooms.chatop.exception.ApiException;
+import com.openclassrooms.chatop.exception.ErrorResponses;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import io.r2dbc.spi.R2dbcNonTransientResourceException;
+import io.r2dbc.spi.R2dbcTransientException;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Profile;
+
+import org.springframework.core.io.buffer.DataBufferLimitException;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.reactive.result.method.annotation.ResponseEntityExceptionHandler;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive equivalent of {@code GlobalExceptionHandler}: the same causes get the same statuses,
+ * codes and bodies, built by {@link ErrorResponses} and counted in {@code chatop.http.errors}.
+ * Connection failures raised by the R2DBC pool before Spring translates them are also answered
+ * with a 503.
+ */
+@Slf4j
+@RestControllerAdvice
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveExceptionHandler extends ResponseEntityExceptionHandler {
+
+    private final ErrorResponses errorResponses;
+
+    public ReactiveExceptionHandler(MeterRegistry meterRegistry) {
+        this.errorResponses = new ErrorResponses(meterRegistry);
+    }
+
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<Object> handleApiException(ApiException e) {
+        return errorResponses.apiError(e);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Object> handleDataIntegrityViolation(DataIntegrityViolationException e) {
+        log.warn("Constraint violation : {}", e.getMostSpecificCause().getMessage());
+        return errorResponses.dataConflict();
+    }
+
+    @ExceptionHandler({
+            TransientDataAccessException.class,
+            DataAccessResourceFailureException.class,
+            CannotCreateTransactionException.class,
+            R2dbcTransientException.class,
+            R2dbcNonTransientResourceException.class
+    })
+    public ResponseEntity<Object> handleDatabaseUnavailable(Exception e) {
+        log.error("Database unavailable : {}", e.getMessage());
+        return errorResponses.databaseUnavailable();
+    }
+
+    @ExceptionHandler(DataBufferLimitException.class)
+    public ResponseEntity<Object> handlePayloadTooLarge(DataBufferLimitException e) {
+        return errorResponses.error(HttpStatus.PAYLOAD_TOO_LARGE, "payload_too_large", "The picture is too large", new HttpHeaders());
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleUnexpectedException(Exception e) {
+        log.error("Unexpected error", e);
+        return errorResponses.internalError();
+    }
+
+    /**
+     * Replaces the problem details produced for the standard WebFlux exceptions with the
+     * error body of the application.
+     */
+    @Override
+    protected Mono<ResponseEntity<Object>> handleExceptionInternal(Exception ex,
+                                                                   Object body,
+                                                                   HttpHeaders headers,
+                                                                   HttpStatusCode status,
+                                                                   ServerWebExchange exchange) {
+        String message = body instanceof ProblemDetail problemDetail && problemDetail.getDetail() != null
+                ? problemDetail.getDetail()
+                : ex.getMessage();
+
+        return Mono.just(errorResponses.standardError(status, message, headers));
+    }
+}
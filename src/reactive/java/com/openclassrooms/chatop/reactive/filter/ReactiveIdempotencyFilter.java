@@ -0,0 +1,223 @@
+package com.openclassrooms.chatop.reactive.filter;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.exception.ApiException;
+import com.openclassrooms.chatop.exception.ConflictException;
+import com.openclassrooms.chatop.exception.ErrorResponses;
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+import com.openclassrooms.chatop.filter.IdempotencyFilter;
+import com.openclassrooms.chatop.idempotency.IdempotencyStore;
+import com.openclassrooms.chatop.idempotency.IdempotentResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.reactivestreams.Publisher;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reactive equivalent of {@link IdempotencyFilter}: a request repeated with the same
+ * {@code Idempotency-Key} header, from the same user and on the same endpoint, gets the response
+ * recorded for the first one without reaching the controller. A repeat arriving while the first
+ * request is still running waits for its response without blocking a thread.
+ * <p>
+ * Server errors are not recorded: the key is released and the request can be retried. Requests
+ * without the header are not affected. Invalid keys, conflicts and a full store are answered with
+ * the error body of the API.
+ */
+public class ReactiveIdempotencyFilter implements WebFilter {
+
+    private static final Set<String> IDEMPOTENT_PATHS = Set.of("/api/rentals", "/api/messages");
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final Duration inFlightTimeout;
+    private final ErrorResponses errorResponses;
+    private final ObjectMapper objectMapper;
+    private final Counter replays;
+    private final Counter conflicts;
+
+    /**
+     * Constructs a new ReactiveIdempotencyFilter.
+     *
+     * @param store           the store of the recorded responses
+     * @param inFlightTimeout how long a repeated request waits for the first one to finish
+     * @param objectMapper    the mapper writing the error responses
+     * @param meterRegistry   the registry where replayed requests and errors are counted
+     */
+    public ReactiveIdempotencyFilter(IdempotencyStore store, Duration inFlightTimeout, ObjectMapper objectMapper,
+                                     MeterRegistry meterRegistry) {
+        this.store = store;
+        this.inFlightTimeout = inFlightTimeout;
+        this.errorResponses = new ErrorResponses(meterRegistry);
+        this.objectMapper = objectMapper;
+        this.replays = Counter.builder("chatop.idempotency.requests")
+                .description("Requests answered from a previously recorded response")
+                .tag("outcome", "replayed")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("chatop.idempotency.requests")
+                .description("Repeated requests whose original request failed or did not finish in time")
+                .tag("outcome", "conflict")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().value();
+        String header = exchange.getRequest().getHeaders().getFirst(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER);
+
+        if (!HttpMethod.POST.equals(exchange.getRequest().getMethod()) || !IDEMPOTENT_PATHS.contains(path) || header == null) {
+            return chain.filter(exchange);
+        }
+
+        String idempotencyKey = header.trim();
+
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            return reject(exchange.getResponse(), InvalidRequestException.INVALID_IDEMPOTENCY_KEY);
+        }
+
+        // Unauthenticated requests are rejected by the security chain: nothing to record
+        return exchange.getPrincipal()
+                .map(Principal::getName)
+                .flatMap(user -> {
+                    String key = scopedKey(user, path, idempotencyKey);
+                    // The store only reads from memory: no blocking call on the event loop
+                    CompletableFuture<IdempotentResponse> original;
+
+                    try {
+                        original = store.begin(key);
+                    } catch (ApiException e) {
+                        return reject(exchange.getResponse(), e).thenReturn(true);
+                    }
+
+                    if (original != null) {
+                        return replay(Mono.fromFuture(original), exchange.getResponse()).thenReturn(true);
+                    }
+
+                    return record(key, exchange, chain).thenReturn(true);
+                })
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(true)))
+                .then();
+    }
+
+    /**
+     * Runs the first request for a key and records its response, unless it is a server error.
+     */
+    private Mono<Void> record(String key, ServerWebExchange exchange, WebFilterChain chain) {
+        AtomicReference<byte[]> body = new AtomicReference<>(new byte[0]);
+
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> content) {
+                return DataBufferUtils.join(content).flatMap(buffer -> {
+                    byte[] bytes = new byte[buffer.readableByteCount()];
+                    buffer.read(bytes);
+                    DataBufferUtils.release(buffer);
+                    body.set(bytes);
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(response).build())
+                .doOnSuccess(done -> {
+                    HttpStatusCode status = response.getStatusCode() != null ? response.getStatusCode() : HttpStatus.OK;
+                    MediaType contentType = response.getHeaders().getContentType();
+
+                    if (status.is5xxServerError()) {
+                        store.abandon(key);
+                    } else {
+                        store.complete(key, new IdempotentResponse(
+                                status.value(), contentType != null ? contentType.toString() : null, body.get()
+                        ));
+                    }
+                })
+                .doOnError(e -> store.abandon(key))
+                .doOnCancel(() -> store.abandon(key));
+    }
+
+    /**
+     * Sends the response of the original request, waiting for it if it is still running.
+     * Answers 409 (Conflict) if the original request failed or did not finish in time.
+     */
+    private Mono<Void> replay(Mono<IdempotentResponse> original, ServerHttpResponse response) {
+        return original
+                .timeout(inFlightTimeout)
+                .flatMap(recorded -> {
+                    replays.increment();
+                    response.setStatusCode(HttpStatusCode.valueOf(recorded.getStatus()));
+                    response.getHeaders().set(IdempotencyFilter.REPLAYED_HEADER, "true");
+
+                    if (recorded.getContentType() != null) {
+                        response.getHeaders().setContentType(MediaType.parseMediaType(recorded.getContentType()));
+                    }
+
+                    response.getHeaders().setContentLength(recorded.getBody().length);
+                    return response.writeWith(Mono.just(response.bufferFactory().wrap(recorded.getBody())));
+                })
+                .onErrorResume(e -> {
+                    conflicts.increment();
+                    return reject(response, ConflictException.IDEMPOTENCY_CONFLICT);
+                });
+    }
+
+    /**
+     * Answers an {@link ApiException} with the error body of the API, counted in {@code chatop.http.errors}.
+     */
+    private Mono<Void> reject(ServerHttpResponse response, ApiException e) {
+        ResponseEntity<Object> error = errorResponses.apiError(e);
+        byte[] body;
+
+        try {
+            body = objectMapper.writeValueAsBytes(error.getBody());
+        } catch (JsonProcessingException ex) {
+            return Mono.error(ex);
+        }
+
+        response.setStatusCode(error.getStatusCode());
+        response.getHeaders().addAll(error.getHeaders());
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    /**
+     * Hashes the key sent by the client together with the user and the endpoint, so that two users
+     * (or two endpoints) sending the same key never share a response.
+     */
+    private static String scopedKey(String user, String path, String idempotencyKey) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((user + '\n' + path + '\n' + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
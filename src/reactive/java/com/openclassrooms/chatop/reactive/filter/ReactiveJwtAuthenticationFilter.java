@@ -0,0 +1,59 @@
+package com.openclassrooms.chatop.reactive.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive equivalent of {@code JwtAuthenticationFilter}: decodes the bearer token without blocking
+ * and stores the authenticated user in the reactive security context.
+ */
+public class ReactiveJwtAuthenticationFilter implements WebFilter {
+
+    private static final List<GrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("USER"));
+
+    private final ReactiveJwtDecoder jwtDecoder;
+
+    public ReactiveJwtAuthenticationFilter(ReactiveJwtDecoder jwtDecoder) {
+        this.jwtDecoder = jwtDecoder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String authorizationHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+
+        String token = authorizationHeader.substring(7);
+
+        return jwtDecoder.decode(token)
+                .map(jwt -> (Authentication) new UsernamePasswordAuthenticationToken(jwt.getSubject(), null, AUTHORITIES))
+                .onErrorResume(JwtException.class, e -> Mono.empty())
+                .flatMap(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                        .thenReturn(true))
+                .switchIfEmpty(Mono.defer(() -> {
+                    exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
+                    return exchange.getResponse().setComplete().thenReturn(false);
+                }))
+                .then();
+    }
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.chatop.reactive.mapper;
+
+import com.openclassrooms.chatop.dto.RentalDTO;
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.model.RentalRow;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+@Component
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveRentalMapper {
+
+    /**
+     * Converts a rental row to the same RentalDTO as the servlet API.
+     *
+     * @param rental the rental row to be converted
+     * @return the converted RentalDTO object
+     */
+    public RentalDTO toDTO(RentalRow rental) {
+        RentalDTO rentalDTO = new RentalDTO();
+        rentalDTO.setId(rental.getId());
+        rentalDTO.setName(rental.getName());
+        rentalDTO.setSurface(rental.getSurface());
+        rentalDTO.setPrice(rental.getPrice());
+        rentalDTO.setDescription(rental.getDescription());
+        rentalDTO.setLatitude(rental.getLatitude());
+        rentalDTO.setLongitude(rental.getLongitude());
+        rentalDTO.setOwner_id(rental.getOwner_id());
+        rentalDTO.setCreated_at(rental.getCreated_at());
+        rentalDTO.setUpdated_at(rental.getUpdated_at());
+        rentalDTO.setPicture(rental.getPicture());
+
+        return rentalDTO;
+    }
+}
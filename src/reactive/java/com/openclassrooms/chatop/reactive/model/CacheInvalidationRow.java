@@ -0,0 +1,28 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the {@code cache_invalidations} table, polled by the servlet instances to evict the
+ * entries changed by another instance.
+ */
+@Data
+@Table("cache_invalidations")
+public class CacheInvalidationRow {
+
+    @Id
+    private Long id;
+
+    private String origin;
+
+    private String cache_name;
+
+    private Long entity_id;
+
+    private LocalDateTime created_at;
+}
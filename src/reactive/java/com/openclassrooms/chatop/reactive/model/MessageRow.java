@@ -0,0 +1,26 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+@Data
+@Table("messages")
+public class MessageRow {
+
+    @Id
+    private Long id;
+
+    private Long user_id;
+
+    private Long rental_id;
+
+    private String message;
+
+    private LocalDateTime created_at;
+
+    private LocalDateTime updated_at;
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import com.openclassrooms.chatop.model.Notification;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the {@code notification_outbox} table, delivered by the notification relay of the
+ * servlet application.
+ */
+@Data
+@Table("notification_outbox")
+public class NotificationRow {
+
+    @Id
+    private Long id;
+
+    private String recipient;
+
+    private String subject;
+
+    private String body;
+
+    private Notification.Status status = Notification.Status.PENDING;
+
+    private int attempts;
+
+    private LocalDateTime next_attempt_at;
+
+    private LocalDateTime created_at;
+
+    private LocalDateTime delivered_at;
+}
@@ -0,0 +1,23 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the {@code pictures} table, without its content (only read through the rentals).
+ */
+@Data
+@Table("pictures")
+public class PictureRow {
+
+    @Id
+    private String hash;
+
+    private long size;
+
+    private LocalDateTime created_at;
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.ReadOnlyProperty;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Table("rentals")
+public class RentalRow {
+
+    @Id
+    private Long id;
+
+    private Long owner_id;
+
+    private String name;
+
+    private Integer surface;
+
+    private BigDecimal price;
+
+    private String picture_hash;
+
+    // Read from the pictures table by the queries of ReactiveRentalRepository, never written
+    @ReadOnlyProperty
+    private byte[] picture;
+
+    private String description;
+
+    private Double latitude;
+
+    private Double longitude;
+
+    // Derived from the coordinates, see Geohash
+    private String geohash;
+
+    private LocalDateTime created_at;
+
+    private LocalDateTime updated_at;
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A row of the {@code rental_stats} table.
+ */
+@Data
+@Table("rental_stats")
+public class RentalStatsRow {
+
+    @Id
+    private Long rental_id;
+
+    private long message_count;
+
+    private long view_count;
+
+    private LocalDateTime last_message_at;
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.chatop.reactive.model;
+
+import lombok.Data;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+@Data
+@Table("users")
+public class UserRow {
+
+    @Id
+    private Long id;
+
+    private String name;
+
+    private String email;
+}
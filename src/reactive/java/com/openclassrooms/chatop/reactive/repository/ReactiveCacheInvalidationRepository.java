@@ -0,0 +1,8 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.CacheInvalidationRow;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface ReactiveCacheInvalidationRepository extends ReactiveCrudRepository<CacheInvalidationRow, Long> {
+}
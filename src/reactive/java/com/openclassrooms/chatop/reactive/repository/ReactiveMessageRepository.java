@@ -0,0 +1,10 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.MessageRow;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveMessageRepository extends ReactiveCrudRepository<MessageRow, Long> {
+}
@@ -0,0 +1,8 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.NotificationRow;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+public interface ReactiveNotificationRepository extends ReactiveCrudRepository<NotificationRow, Long> {
+}
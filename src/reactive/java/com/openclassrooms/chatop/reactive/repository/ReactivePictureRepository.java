@@ -0,0 +1,31 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.PictureRow;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ReactivePictureRepository extends ReactiveCrudRepository<PictureRow, String> {
+
+    /**
+     * Stores a picture, unless the same picture has been stored concurrently.
+     *
+     * @param hash      the SHA-256 of the picture
+     * @param data      the content of the picture
+     * @param size      the size of the picture in bytes
+     * @param createdAt the current date
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO pictures (hash, data, size, created_at)
+            VALUES (:hash, :data, :size, :createdAt)
+            ON DUPLICATE KEY UPDATE hash = hash
+            """)
+    Mono<Integer> insertIfAbsent(String hash, byte[] data, long size, LocalDateTime createdAt);
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.RentalRow;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ReactiveRentalRepository extends ReactiveCrudRepository<RentalRow, Long> {
+
+    /**
+     * Finds all the rentals with the content of their picture.
+     *
+     * @return all the rentals
+     */
+    @Override
+    @Query("SELECT r.*, p.data AS picture FROM rentals r LEFT JOIN pictures p ON p.hash = r.picture_hash")
+    Flux<RentalRow> findAll();
+
+    /**
+     * Finds a rental with the content of its picture.
+     *
+     * @param id the ID of the rental
+     * @return the rental, or an empty Mono if not found
+     */
+    @Override
+    @Query("SELECT r.*, p.data AS picture FROM rentals r LEFT JOIN pictures p ON p.hash = r.picture_hash WHERE r.id = :id")
+    Mono<RentalRow> findById(Long id);
+
+    /**
+     * Finds the name of a rental and its owner, without reading its picture.
+     *
+     * @param id the ID of the rental
+     * @return the rental and its owner, or an empty Mono if not found
+     */
+    @Query("SELECT r.name, r.owner_id AS owner, u.email FROM rentals r LEFT JOIN users u ON u.id = r.owner_id WHERE r.id = :id")
+    Mono<RentalOwner> findOwnerById(Long id);
+
+    /**
+     * Updates a rental only if it belongs to the given owner, the ownership being checked by the update itself.
+     *
+     * @param id          the ID of the rental
+     * @param ownerId     the ID of the user updating the rental
+     * @param name        the new name
+     * @param surface     the new surface
+     * @param price       the new price
+     * @param description the new description
+     * @param latitude    the new latitude, or null to keep the current one
+     * @param longitude   the new longitude, or null to keep the current one
+     * @param geohash     the geohash of the new coordinates, or null to keep the current one
+     * @param updatedAt   the update date
+     * @return 1 if the rental was updated, 0 if it does not exist or belongs to another user
+     */
+    @Modifying
+    @Query("""
+            UPDATE rentals
+            SET name = :name,
+                surface = :surface,
+                price = :price,
+                description = :description,
+                latitude = COALESCE(:latitude, latitude),
+                longitude = COALESCE(:longitude, longitude),
+                geohash = COALESCE(:geohash, geohash),
+                updated_at = :updatedAt
+            WHERE id = :id
+              AND owner_id = :ownerId
+            """)
+    Mono<Integer> updateOwned(Long id, Long ownerId, String name, Integer surface, BigDecimal price, String description,
+                              Double latitude, Double longitude, String geohash, LocalDateTime updatedAt);
+}
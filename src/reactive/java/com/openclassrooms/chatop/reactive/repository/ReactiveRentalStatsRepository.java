@@ -0,0 +1,37 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.RentalStatsRow;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public interface ReactiveRentalStatsRepository extends ReactiveCrudRepository<RentalStatsRow, Long> {
+
+    /**
+     * Adds pending counts to the stats row of a rental in a single statement, creating the row if needed.
+     *
+     * @param rentalId      the ID of the rental
+     * @param messages      the number of new messages
+     * @param views         the number of new views
+     * @param lastMessageAt the creation date of the latest new message, or null if there is none
+     * @return the number of affected rows
+     */
+    @Modifying
+    @Query("""
+            INSERT INTO rental_stats (rental_id, message_count, view_count, last_message_at)
+            VALUES (:rentalId, :messages, :views, :lastMessageAt)
+            ON DUPLICATE KEY UPDATE
+                message_count = message_count + :messages,
+                view_count = view_count + :views,
+                last_message_at = CASE
+                    WHEN last_message_at IS NULL OR last_message_at < :lastMessageAt THEN :lastMessageAt
+                    ELSE last_message_at
+                END
+            """)
+    Mono<Integer> increment(Long rentalId, long messages, long views, LocalDateTime lastMessageAt);
+}
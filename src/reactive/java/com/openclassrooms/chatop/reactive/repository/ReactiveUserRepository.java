@@ -0,0 +1,11 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+import com.openclassrooms.chatop.reactive.model.UserRow;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends ReactiveCrudRepository<UserRow, Long> {
+    Mono<UserRow> findByEmail(String email);
+}
@@ -0,0 +1,13 @@
+package com.openclassrooms.chatop.reactive.repository;
+
+/**
+ * Name of a rental with the ID and email of its owner (null if it has none), read to notify the
+ * owner of a new message. Being a class rather than an interface, it is read directly from the
+ * row instead of through a {@code RentalRow}, which has no email.
+ *
+ * @param name  the name of the rental
+ * @param owner the ID of the owner
+ * @param email the email of the owner
+ */
+public record RentalOwner(String name, Long owner, String email) {
+}
@@ -0,0 +1,96 @@
+package com.openclassrooms.chatop.reactive.service;
+
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.model.MessageRow;
+import com.openclassrooms.chatop.reactive.model.NotificationRow;
+import com.openclassrooms.chatop.reactive.repository.ReactiveMessageRepository;
+import com.openclassrooms.chatop.reactive.repository.ReactiveNotificationRepository;
+import com.openclassrooms.chatop.reactive.repository.ReactiveRentalRepository;
+import com.openclassrooms.chatop.reactive.repository.ReactiveUserRepository;
+import com.openclassrooms.chatop.reactive.repository.RentalOwner;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Reactive equivalent of {@code CustomMessageDetailsService}: the message and the notification to
+ * the owner of the rental are written in the same transaction, in the outbox delivered by the
+ * notification relay of the servlet application; the message is counted in the rental stats once
+ * the transaction has committed.
+ */
+@Service
+@RequiredArgsConstructor
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveMessageService {
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveRentalRepository rentalRepository;
+    private final ReactiveMessageRepository messageRepository;
+    private final ReactiveNotificationRepository notificationRepository;
+    private final ReactiveRentalStatsService rentalStatsService;
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * Saves a message sent by a user about a rental and queues a notification to the owner of the rental.
+     *
+     * @param userId   the ID of the user sending the message
+     * @param rentalId the ID of the rental
+     * @param content  the content of the message
+     * @return the saved message
+     * @throws ResourceNotFoundException (as an error signal) if the user or the rental does not exist
+     */
+    public Mono<MessageRow> saveMessage(Long userId, Long rentalId, String content) {
+        // Both lookups run concurrently on the connection pool
+        Mono<MessageRow> saved = Mono.zip(
+                        userRepository.existsById(userId),
+                        rentalRepository.findOwnerById(rentalId)
+                                .switchIfEmpty(Mono.error(ResourceNotFoundException.RENTAL))
+                )
+                .flatMap(found -> {
+                    if (!found.getT1()) {
+                        return Mono.error(ResourceNotFoundException.USER);
+                    }
+
+                    LocalDateTime now = LocalDateTime.now();
+                    MessageRow message = new MessageRow();
+                    message.setUser_id(userId);
+                    message.setRental_id(rentalId);
+                    message.setMessage(content);
+                    message.setCreated_at(now);
+                    message.setUpdated_at(now);
+
+                    return messageRepository.save(message)
+                            .flatMap(savedMessage -> notifyOwner(found.getT2(), savedMessage).thenReturn(savedMessage));
+                })
+                .as(transactionalOperator::transactional);
+
+        return saved.doOnNext(message -> rentalStatsService.recordMessage(message.getRental_id(), message.getCreated_at()));
+    }
+
+    /**
+     * Queues a notification of a new message to the owner of the rental, unless the owner sent it.
+     */
+    private Mono<Void> notifyOwner(RentalOwner rental, MessageRow message) {
+        if (rental.owner() == null || rental.owner().equals(message.getUser_id())) {
+            return Mono.empty();
+        }
+
+        NotificationRow notification = new NotificationRow();
+        notification.setRecipient(rental.email());
+        notification.setSubject("Nouveau message pour " + rental.name());
+        notification.setBody(message.getMessage());
+        notification.setNext_attempt_at(message.getCreated_at());
+        notification.setCreated_at(message.getCreated_at());
+
+        return notificationRepository.save(notification).then();
+    }
+}
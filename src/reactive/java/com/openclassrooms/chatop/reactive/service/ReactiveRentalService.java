@@ -0,0 +1,203 @@
+package com.openclassrooms.chatop.reactive.service;
+
+import com.openclassrooms.chatop.configuration.CacheConfig;
+
+import com.openclassrooms.chatop.exception.InvalidRequestException;
+import com.openclassrooms.chatop.exception.ResourceNotFoundException;
+import com.openclassrooms.chatop.geo.Geohash;
+
+import com.openclassrooms.chatop.model.Rental;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.controller.RentalForm;
+import com.openclassrooms.chatop.reactive.model.CacheInvalidationRow;
+import com.openclassrooms.chatop.reactive.model.RentalRow;
+import com.openclassrooms.chatop.reactive.repository.ReactiveCacheInvalidationRepository;
+import com.openclassrooms.chatop.reactive.repository.ReactivePictureRepository;
+import com.openclassrooms.chatop.reactive.repository.ReactiveRentalRepository;
+
+import com.openclassrooms.chatop.service.PictureService;
+
+import jakarta.validation.Validator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Reactive equivalent of {@code CustomRentalDetailsService} for the writes: validates the rentals
+ * like the servlet application, stores their picture once per content, and, when the servlet
+ * instances share their cache invalidations through the database
+ * ({@code app.cache.invalidation.transport=database}), publishes the changed rentals in the same
+ * transaction so that the servlet caches do not keep serving the old version.
+ */
+@Service
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveRentalService {
+
+    private final ReactiveRentalRepository rentalRepository;
+    private final ReactivePictureRepository pictureRepository;
+    private final ReactiveCacheInvalidationRepository cacheInvalidationRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final Validator validator;
+    private final boolean publishInvalidations;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public ReactiveRentalService(ReactiveRentalRepository rentalRepository,
+                                 ReactivePictureRepository pictureRepository,
+                                 ReactiveCacheInvalidationRepository cacheInvalidationRepository,
+                                 TransactionalOperator transactionalOperator,
+                                 Validator validator,
+                                 @Value("${app.cache.invalidation.transport:local}") String invalidationTransport) {
+        this.rentalRepository = rentalRepository;
+        this.pictureRepository = pictureRepository;
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.transactionalOperator = transactionalOperator;
+        this.validator = validator;
+        this.publishInvalidations = "database".equals(invalidationTransport);
+    }
+
+    /**
+     * Saves a new rental, storing its picture only if the same picture is not already stored.
+     *
+     * @param ownerId the ID of the user creating the rental
+     * @param form    the submitted form
+     * @param picture the content of the uploaded picture, empty if the rental has none
+     * @return the saved rental
+     * @throws InvalidRequestException (as an error signal) if a field or the picture is invalid
+     */
+    public Mono<RentalRow> saveRental(Long ownerId, RentalForm form, byte[] picture) {
+        return Mono.fromRunnable(() -> validate(form))
+                .then(Mono.defer(() -> storePicture(picture)))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(pictureHash -> {
+                    LocalDateTime now = LocalDateTime.now();
+                    RentalRow rental = new RentalRow();
+                    rental.setOwner_id(ownerId);
+                    rental.setName(form.getName());
+                    rental.setSurface(form.getSurface());
+                    rental.setPrice(form.getPrice());
+                    rental.setDescription(form.getDescription());
+                    rental.setLatitude(form.getLatitude());
+                    rental.setLongitude(form.getLongitude());
+                    if (form.getLatitude() != null && form.getLongitude() != null) {
+                        rental.setGeohash(Geohash.encode(form.getLatitude(), form.getLongitude()));
+                    }
+                    rental.setPicture_hash(pictureHash.orElse(null));
+                    rental.setCreated_at(now);
+                    rental.setUpdated_at(now);
+                    return rentalRepository.save(rental);
+                })
+                .flatMap(rental -> publishInvalidation(rental.getId()).thenReturn(rental))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Updates a rental if it belongs to the given user, the ownership being checked by the update itself.
+     *
+     * @param id      the ID of the rental
+     * @param ownerId the ID of the user updating the rental
+     * @param form    the new values; the coordinates are kept when none is set
+     * @return true if the rental was updated, false if it belongs to another user
+     * @throws InvalidRequestException   (as an error signal) if the new values are invalid
+     * @throws ResourceNotFoundException (as an error signal) if the rental does not exist
+     */
+    public Mono<Boolean> updateOwnedRental(Long id, Long ownerId, RentalForm form) {
+        boolean hasLocation = form.getLatitude() != null && form.getLongitude() != null;
+
+        return Mono.fromRunnable(() -> validate(form))
+                .then(rentalRepository.updateOwned(
+                        id, ownerId, form.getName(), form.getSurface(), form.getPrice(), form.getDescription(),
+                        hasLocation ? form.getLatitude() : null,
+                        hasLocation ? form.getLongitude() : null,
+                        hasLocation ? Geohash.encode(form.getLatitude(), form.getLongitude()) : null,
+                        LocalDateTime.now()
+                ))
+                .flatMap(updated -> updated > 0
+                        ? publishInvalidation(id).thenReturn(true)
+                        // Only when the update is refused: tells a missing rental from a rental of another user
+                        : rentalRepository.existsById(id).flatMap(exists -> exists
+                                ? Mono.just(false)
+                                : Mono.error(ResourceNotFoundException.RENTAL)))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Checks the form with the constraints of the {@link Rental} entity, and that its coordinates go together,
+     * as the servlet application does.
+     */
+    private void validate(RentalForm form) {
+        if (form.getName() == null || form.getSurface() == null || form.getPrice() == null || form.getDescription() == null) {
+            throw InvalidRequestException.MISSING_FIELDS;
+        }
+
+        Rental rental = new Rental();
+        rental.setName(form.getName());
+        rental.setSurface(form.getSurface());
+        rental.setPrice(form.getPrice());
+        rental.setDescription(form.getDescription());
+        rental.setLatitude(form.getLatitude());
+        rental.setLongitude(form.getLongitude());
+
+        if (!validator.validate(rental).isEmpty() || (form.getLatitude() == null) != (form.getLongitude() == null)) {
+            throw InvalidRequestException.INVALID_RENTAL;
+        }
+    }
+
+    /**
+     * Stores a picture in the pictures table, or only adds a reference to it if the same picture is
+     * already stored, as the servlet application does.
+     *
+     * @param picture the picture content
+     * @return the SHA-256 of the picture, or an empty Mono if no picture was sent
+     */
+    private Mono<String> storePicture(byte[] picture) {
+        if (picture.length == 0) {
+            return Mono.empty();
+        }
+
+        if (!PictureService.isImage(picture)) {
+            return Mono.error(InvalidRequestException.INVALID_PICTURE);
+        }
+
+        String hash;
+        try {
+            hash = PictureService.hash(new ByteArrayResource(picture));
+        } catch (IOException e) {
+            return Mono.error(new UncheckedIOException(e));
+        }
+
+        return pictureRepository.existsById(hash)
+                .flatMap(exists -> exists
+                        ? Mono.just(hash)
+                        : pictureRepository.insertIfAbsent(hash, picture, picture.length, LocalDateTime.now())
+                                .thenReturn(hash));
+    }
+
+    /**
+     * Tells the servlet instances that a rental changed, in the table they poll.
+     */
+    private Mono<Void> publishInvalidation(Long rentalId) {
+        if (!publishInvalidations) {
+            return Mono.empty();
+        }
+
+        CacheInvalidationRow invalidation = new CacheInvalidationRow();
+        invalidation.setOrigin(nodeId);
+        invalidation.setCache_name(CacheConfig.RENTALS_CACHE);
+        invalidation.setEntity_id(rentalId);
+        invalidation.setCreated_at(LocalDateTime.now());
+        return cacheInvalidationRepository.save(invalidation).then();
+    }
+}
@@ -0,0 +1,137 @@
+package com.openclassrooms.chatop.reactive.service;
+
+import com.openclassrooms.chatop.reactive.ReactiveChatopApplication;
+import com.openclassrooms.chatop.reactive.repository.ReactiveRentalStatsRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reactive equivalent of {@code RentalStatsService}: counts the messages and views of each rental
+ * in memory and periodically adds them to the {@code rental_stats} table shared with the servlet
+ * application.
+ * <p>
+ * Counters are only changed inside {@link ConcurrentHashMap#compute}, and a flush takes them out
+ * with {@link ConcurrentHashMap#remove}, which locks the same entry: an event is either in the
+ * counters taken by the flush or in new ones, never lost between the two.
+ */
+@Slf4j
+@Service
+@Profile(ReactiveChatopApplication.PROFILE)
+public class ReactiveRentalStatsService {
+
+    private final ReactiveRentalStatsRepository rentalStatsRepository;
+    private final TransactionalOperator transactionalOperator;
+    private final Map<Long, PendingStats> pending = new ConcurrentHashMap<>();
+
+    public ReactiveRentalStatsService(ReactiveRentalStatsRepository rentalStatsRepository,
+                                      TransactionalOperator transactionalOperator) {
+        this.rentalStatsRepository = rentalStatsRepository;
+        this.transactionalOperator = transactionalOperator;
+    }
+
+    /**
+     * Records a new message sent about a rental.
+     *
+     * @param rentalId  the ID of the rental
+     * @param createdAt the creation date of the message
+     */
+    public void recordMessage(Long rentalId, LocalDateTime createdAt) {
+        pending.compute(rentalId, (id, stats) -> (stats != null ? stats : new PendingStats()).addMessage(createdAt));
+    }
+
+    /**
+     * Records a view of a rental.
+     *
+     * @param rentalId the ID of the rental
+     */
+    public void recordView(Long rentalId) {
+        pending.compute(rentalId, (id, stats) -> (stats != null ? stats : new PendingStats()).addView());
+    }
+
+    /**
+     * Writes the pending counts to the database. Runs every {@code app.stats.flush-interval}
+     * and when the application stops. If the write fails, the counts are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.stats.flush-interval:10s}")
+    @PreDestroy
+    public synchronized void flush() {
+        Map<Long, PendingStats> batch = new HashMap<>();
+
+        for (Long rentalId : pending.keySet()) {
+            PendingStats stats = pending.remove(rentalId);
+
+            if (stats != null) {
+                batch.put(rentalId, stats);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Runs on a scheduler thread, never on an event loop: waiting for the write is fine
+            Flux.fromIterable(batch.entrySet())
+                    .concatMap(entry -> rentalStatsRepository.increment(
+                            entry.getKey(),
+                            entry.getValue().messages,
+                            entry.getValue().views,
+                            entry.getValue().lastMessageAt
+                    ))
+                    .then()
+                    .as(transactionalOperator::transactional)
+                    .block();
+        } catch (RuntimeException e) {
+            log.error("Error when flushing rental stats : {}", e.getMessage());
+            batch.forEach((rentalId, stats) -> pending.merge(rentalId, stats, PendingStats::add));
+        }
+    }
+
+    /**
+     * Counts recorded for a rental since the last flush, only changed while its map entry is locked.
+     */
+    private static class PendingStats {
+        private long messages;
+        private long views;
+        private LocalDateTime lastMessageAt;
+
+        private PendingStats addMessage(LocalDateTime createdAt) {
+            messages++;
+            lastMessageAt = latest(lastMessageAt, createdAt);
+            return this;
+        }
+
+        private PendingStats addView() {
+            views++;
+            return this;
+        }
+
+        private PendingStats add(PendingStats other) {
+            messages += other.messages;
+            views += other.views;
+            lastMessageAt = latest(lastMessageAt, other.lastMessageAt);
+            return this;
+        }
+
+        private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.isAfter(b) ? a : b;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.chatop.cache;
+
+import com.openclassrooms.chatop.configuration.CacheConfig;
+import com.openclassrooms.chatop.dto.RentalDTO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two application contexts in the same JVM, standing for two instances of the application
+ * sharing a database.
+ */
+class CacheInvalidationTest {
+
+    private static final Map<Long, String> DATABASE = new ConcurrentHashMap<>();
+
+    private AnnotationConfigApplicationContext firstNode;
+    private AnnotationConfigApplicationContext secondNode;
+
+    @BeforeEach
+    void setUp() {
+        DATABASE.put(1L, "before");
+        DATABASE.put(2L, "before");
+        firstNode = node();
+        secondNode = node();
+    }
+
+    @AfterEach
+    void tearDown() {
+        firstNode.close();
+        secondNode.close();
+    }
+
+    @Test
+    void changeOnOneNodeEvictsTheEntryOnEveryNode() {
+        assertThat(firstNode.getBean(RentalNames.class).getName(1L)).isEqualTo("before");
+        assertThat(secondNode.getBean(RentalNames.class).getName(1L)).isEqualTo("before");
+        assertThat(secondNode.getBean(RentalNames.class).getName(2L)).isEqualTo("before");
+
+        DATABASE.put(1L, "after");
+        DATABASE.put(2L, "after");
+        firstNode.getBean(CacheInvalidator.class).invalidate(CacheConfig.RENTALS_CACHE, 1L);
+
+        assertThat(firstNode.getBean(RentalNames.class).getName(1L)).isEqualTo("after");
+        assertThat(secondNode.getBean(RentalNames.class).getName(1L)).isEqualTo("after");
+        assertThat(secondNode.getBean(RentalNames.class).getName(2L)).isEqualTo("before");
+    }
+
+    @Test
+    void evictedEntryIsReloadedFromThePrimaryOnEveryNode() {
+        firstNode.getBean(CacheInvalidator.class).invalidate(CacheConfig.RENTALS_CACHE, 1L);
+
+        assertThat(firstNode.getBean(CacheInvalidator.class).isRecentlyInvalidated(CacheConfig.RENTALS_CACHE, 1L)).isTrue();
+        assertThat(secondNode.getBean(CacheInvalidator.class).isRecentlyInvalidated(CacheConfig.RENTALS_CACHE, 1L)).isTrue();
+        assertThat(secondNode.getBean(CacheInvalidator.class).isRecentlyInvalidated(CacheConfig.RENTALS_CACHE, 2L)).isFalse();
+    }
+
+    @Test
+    void rentalsCacheIsBoundedByThePictureSizes() {
+        CaffeineCache cache = (CaffeineCache) firstNode.getBean(CacheManager.class).getCache(CacheConfig.RENTALS_CACHE);
+
+        for (long id = 0; id < 100; id++) {
+            RentalDTO rental = new RentalDTO();
+            rental.setPicture(new byte[1024 * 1024]);
+            cache.put(id, rental);
+        }
+        cache.getNativeCache().cleanUp();
+
+        long weight = cache.getNativeCache().policy().eviction().orElseThrow().weightedSize().orElseThrow();
+        assertThat(weight).isLessThanOrEqualTo(64L * 1024 * 1024);
+        assertThat(cache.getNativeCache().estimatedSize()).isLessThan(100);
+    }
+
+    @Test
+    void closedNodeLeavesTheChannel() {
+        secondNode.close();
+
+        firstNode.getBean(CacheInvalidator.class).invalidate(CacheConfig.RENTALS_CACHE, null);
+
+        assertThat(firstNode.getBean(RentalNames.class).getName(1L)).isEqualTo("before");
+    }
+
+    private AnnotationConfigApplicationContext node() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance());
+        context.register(CacheConfig.class, RentalNames.class);
+        context.refresh();
+        return context;
+    }
+
+    static class RentalNames {
+
+        @Cacheable(CacheConfig.RENTALS_CACHE)
+        public String getName(Long id) {
+            return DATABASE.get(id);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.openclassrooms.chatop.controller;
+
+import com.openclassrooms.chatop.configuration.JwtUtils;
+import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.UserRepository;
+import com.openclassrooms.chatop.service.CustomRentalDetailsService;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Fails when an endpoint runs more SQL statements than its budget, such as a query per rental
+ * caused by an eager association. Several owners and rentals are seeded so that a per-row query
+ * shows up as an excess.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.rate-limit.ip.capacity=1000",
+        "app.rate-limit.email.capacity=1000"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetIntegrationTest {
+
+    private static final int OWNERS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomRentalDetailsService customRentalDetailsService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private User user;
+    private String token;
+    private final List<Long> rentalIds = new ArrayList<>();
+
+    @BeforeAll
+    void seed() throws IOException {
+        for (int i = 0; i < OWNERS; i++) {
+            User owner = new User();
+            owner.setName("Owner " + i);
+            owner.setEmail("owner" + i + "@test.com");
+            owner.setPassword(passwordEncoder.encode("password"));
+            userRepository.save(owner);
+
+            for (int j = 0; j < 2; j++) {
+                Rental rental = new Rental();
+                rental.setOwner(owner);
+                rental.setName("Rental " + i + "-" + j);
+                rental.setSurface(50);
+                rental.setPrice(BigDecimal.valueOf(100));
+                rental.setDescription("Description");
+                // Every owner uploads the same two pictures
+                customRentalDetailsService.saveRental(rental, new ByteArrayResource(jpeg(j)));
+                rentalIds.add(rental.getId());
+            }
+        }
+
+        user = userRepository.findByEmail("owner0@test.com");
+        token = "Bearer " + jwtUtils.generateToken(UsernamePasswordAuthenticationToken.authenticated(
+                user.getEmail(), null, Collections.emptyList()
+        ));
+    }
+
+    @Test
+    void registerStaysWithinBudget() throws Exception {
+        assertWithinBudget(2, post("/api/auth/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"new@test.com\",\"name\":\"New\",\"password\":\"password\"}"));
+    }
+
+    @Test
+    void loginStaysWithinBudget() throws Exception {
+        assertWithinBudget(1, post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"email\":\"owner1@test.com\",\"password\":\"password\"}"));
+    }
+
+    @Test
+    void meStaysWithinBudget() throws Exception {
+        assertWithinBudget(1, get("/api/auth/me").header("Authorization", token));
+    }
+
+    @Test
+    void rentalListStaysWithinBudget() throws Exception {
+        assertWithinBudget(2, get("/api/rentals").header("Authorization", token));
+    }
+
+    @Test
+    void rentalStaysWithinBudget() throws Exception {
+        assertWithinBudget(2, get("/api/rentals/" + rentalIds.get(3)).header("Authorization", token));
+    }
+
+    @Test
+    void rentalCreationStaysWithinBudget() throws Exception {
+        // A new picture is inserted in the pictures table, a known one is only looked up
+        assertWithinBudget(4, multipart("/api/rentals")
+                .file(new MockMultipartFile("picture", "picture.jpg", "image/jpeg", jpeg(4, 5, 6)))
+                .param("name", "New rental")
+                .param("surface", "30")
+                .param("price", "80")
+                .param("description", "Description")
+                .header("Authorization", token));
+    }
+
+    @Test
+    void rentalCreationWithAKnownPictureStaysWithinBudget() throws Exception {
+        assertWithinBudget(3, multipart("/api/rentals")
+                .file(new MockMultipartFile("picture", "picture.jpg", "image/jpeg", jpeg(0)))
+                .param("name", "New rental")
+                .param("surface", "30")
+                .param("price", "80")
+                .param("description", "Description")
+                .header("Authorization", token));
+    }
+
+    @Test
+    void rentalUpdateStaysWithinBudget() throws Exception {
+        // The user, then a single update checking the ownership
+        assertWithinBudget(2, multipart("/api/rentals/" + rentalIds.get(0))
+                .param("name", "Updated rental")
+                .param("surface", "30")
+                .param("price", "80")
+                .param("description", "Description")
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                })
+                .header("Authorization", token));
+    }
+
+    @Test
+    void messageStaysWithinBudget() throws Exception {
+        List<String> statements = assertWithinBudget(4, post("/api/messages")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"rental_id\":" + rentalIds.get(5) + ",\"user_id\":" + user.getId() + ",\"message\":\"Hello\"}")
+                .header("Authorization", token));
+
+        // The rental is loaded without its picture
+        assertThat(statements).noneMatch(statement -> statement.contains("pictures"));
+    }
+
+    @Test
+    void messageListStaysWithinBudget() throws Exception {
+        assertWithinBudget(2, get("/api/messages")
+                .param("rental_id", String.valueOf(rentalIds.get(0)))
+                .header("Authorization", token));
+    }
+
+    /**
+     * Performs a request, expecting a 200 response produced with at most {@code budget} SQL statements.
+     *
+     * @return the statements run by the request
+     */
+    private List<String> assertWithinBudget(int budget, RequestBuilder request) throws Exception {
+        List<String> statements;
+        StatementCollector.start();
+        try {
+            mockMvc.perform(request).andExpect(status().isOk());
+        } finally {
+            statements = StatementCollector.stop();
+        }
+
+        assertThat(statements).as("SQL statements").hasSizeLessThanOrEqualTo(budget);
+        return statements;
+    }
+
+    /**
+     * Builds a minimal picture starting with the JPEG signature, followed by the given bytes.
+     */
+    private static byte[] jpeg(int... content) {
+        byte[] picture = new byte[3 + content.length];
+        picture[0] = (byte) 0xFF;
+        picture[1] = (byte) 0xD8;
+        picture[2] = (byte) 0xFF;
+
+        for (int i = 0; i < content.length; i++) {
+            picture[3 + i] = (byte) content[i];
+        }
+
+        return picture;
+    }
+
+    @TestConfiguration
+    static class StatementCollectorConfig {
+
+        @Bean
+        StatementCollector statementCollector() {
+            return new StatementCollector();
+        }
+    }
+
+    /**
+     * Collects the SQL statements run by the test thread, which also runs the MockMvc requests.
+     */
+    static class StatementCollector implements QueryExecutionListener {
+
+        private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+        static void start() {
+            STATEMENTS.set(new ArrayList<>());
+        }
+
+        static List<String> stop() {
+            List<String> statements = STATEMENTS.get();
+            STATEMENTS.remove();
+            return statements;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<String> statements = STATEMENTS.get();
+
+            if (statements != null) {
+                queryInfoList.forEach(queryInfo -> statements.add(queryInfo.getQuery()));
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.openclassrooms.chatop.controller;
+
+import com.openclassrooms.chatop.configuration.JwtUtils;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.PictureRepository;
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that invalid rentals are rejected with a 400 before anything is stored.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:rental-creation;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RentalCreationIntegrationTest {
+
+    private static final byte[] PICTURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 1, 2, 3};
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private PictureRepository pictureRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private String token;
+
+    @BeforeAll
+    void seed() {
+        User owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("creator@test.com");
+        owner.setPassword("password");
+        userRepository.save(owner);
+
+        token = "Bearer " + jwtUtils.generateToken(UsernamePasswordAuthenticationToken.authenticated(
+                "creator@test.com", null, Collections.emptyList()));
+    }
+
+    @Test
+    void validRentalIsCreated() throws Exception {
+        long rentals = rentalRepository.count();
+
+        mockMvc.perform(create("50", "45", "5")).andExpect(status().isOk());
+
+        assertThat(rentalRepository.count()).isEqualTo(rentals + 1);
+    }
+
+    @Test
+    void outOfRangeLatitudeIsRejected() throws Exception {
+        expectInvalid(create("50", "91", "5"));
+    }
+
+    @Test
+    void outOfRangeLongitudeIsRejected() throws Exception {
+        expectInvalid(create("50", "45", "-181"));
+    }
+
+    @Test
+    void latitudeWithoutLongitudeIsRejected() throws Exception {
+        expectInvalid(create("50", "45", null));
+    }
+
+    @Test
+    void longitudeWithoutLatitudeIsRejected() throws Exception {
+        expectInvalid(create("50", null, "5"));
+    }
+
+    @Test
+    void zeroSurfaceIsRejected() throws Exception {
+        expectInvalid(create("0", null, null));
+    }
+
+    /**
+     * Sends the request with a picture, and checks that neither the rental nor the picture is stored.
+     */
+    private void expectInvalid(MockMultipartHttpServletRequestBuilder request) throws Exception {
+        long rentals = rentalRepository.count();
+        long pictures = pictureRepository.count();
+
+        mockMvc.perform(request.file(new MockMultipartFile("picture", "picture.jpg", "image/jpeg", PICTURE)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_rental"));
+
+        assertThat(rentalRepository.count()).isEqualTo(rentals);
+        assertThat(pictureRepository.count()).isEqualTo(pictures);
+    }
+
+    private MockMultipartHttpServletRequestBuilder create(String surface, String latitude, String longitude) {
+        MockMultipartHttpServletRequestBuilder request = multipart("/api/rentals");
+        request.param("name", "Rental")
+                .param("surface", surface)
+                .param("price", "100")
+                .param("description", "Description")
+                .header("Authorization", token);
+        if (latitude != null) {
+            request.param("latitude", latitude);
+        }
+        if (longitude != null) {
+            request.param("longitude", longitude);
+        }
+        return request;
+    }
+}
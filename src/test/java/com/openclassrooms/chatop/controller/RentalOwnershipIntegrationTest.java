@@ -0,0 +1,149 @@
+package com.openclassrooms.chatop.controller;
+
+import com.openclassrooms.chatop.configuration.JwtUtils;
+import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that a rental can only be updated, and its stats and messages read, by its owner.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:rental-ownership;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RentalOwnershipIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private Long rentalId;
+    private String ownerToken;
+    private String otherToken;
+
+    @BeforeAll
+    void seed() {
+        User owner = saveUser("owner@test.com");
+        saveUser("other@test.com");
+
+        Rental rental = new Rental();
+        rental.setOwner(owner);
+        rental.setName("Rental");
+        rental.setSurface(50);
+        rental.setPrice(BigDecimal.valueOf(100));
+        rental.setDescription("Description");
+        rental.setLatitude(45.0);
+        rental.setLongitude(5.0);
+        rentalId = rentalRepository.save(rental).getId();
+
+        ownerToken = token("owner@test.com");
+        otherToken = token("other@test.com");
+    }
+
+    @Test
+    void ownerUpdatesTheRental() throws Exception {
+        mockMvc.perform(update(rentalId, "Updated", ownerToken)).andExpect(status().isOk());
+
+        Rental rental = rentalRepository.findById(rentalId).orElseThrow();
+        assertThat(rental.getName()).isEqualTo("Updated");
+        // Coordinates are kept when none are sent
+        assertThat(rental.getLatitude()).isEqualTo(45.0);
+    }
+
+    @Test
+    void anotherUserCannotUpdateTheRental() throws Exception {
+        mockMvc.perform(update(rentalId, "Stolen", otherToken))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("rental_not_owned"));
+
+        assertThat(rentalRepository.findById(rentalId).orElseThrow().getName()).isNotEqualTo("Stolen");
+    }
+
+    @Test
+    void updatingAMissingRentalIsNotFound() throws Exception {
+        mockMvc.perform(update(rentalId + 1000, "Missing", ownerToken)).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void statsAndMessagesAreOnlyReadByTheOwner() throws Exception {
+        mockMvc.perform(get("/api/rentals/" + rentalId + "/stats").header("Authorization", ownerToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/rentals/" + rentalId + "/stats").header("Authorization", otherToken))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("rental_not_owned"));
+        mockMvc.perform(get("/api/messages").param("rental_id", rentalId.toString()).header("Authorization", otherToken))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.error").value("rental_not_owned"));
+    }
+
+    @Test
+    void statsAndMessagesOfAMissingRentalAreNotFound() throws Exception {
+        mockMvc.perform(get("/api/rentals/" + (rentalId + 1000) + "/stats").header("Authorization", ownerToken))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("rental_not_found"));
+        mockMvc.perform(get("/api/messages").param("rental_id", String.valueOf(rentalId + 1000)).header("Authorization", ownerToken))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("rental_not_found"));
+    }
+
+    @Test
+    void invalidValuesAreRejected() throws Exception {
+        mockMvc.perform(update(rentalId, " ", ownerToken)).andExpect(status().isBadRequest());
+    }
+
+    private MockHttpServletRequestBuilder update(Long id, String name, String token) {
+        return multipart("/api/rentals/" + id)
+                .param("name", name)
+                .param("surface", "30")
+                .param("price", "80")
+                .param("description", "Description")
+                .with(request -> {
+                    request.setMethod("PUT");
+                    return request;
+                })
+                .header("Authorization", token);
+    }
+
+    private User saveUser(String email) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPassword("password");
+        return userRepository.save(user);
+    }
+
+    private String token(String email) {
+        return "Bearer " + jwtUtils.generateToken(UsernamePasswordAuthenticationToken.authenticated(
+                email, null, Collections.emptyList()
+        ));
+    }
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.chatop.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("primary");
+        DataSource replica = database("replica");
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, new ReadYourWritesTracker(Duration.ofSeconds(5), 100))
+        );
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplicaAndWritesToPrimary() {
+        assertThat(databaseUsedBy(readOnly)).isEqualTo("replica");
+        assertThat(databaseUsedBy(readWrite)).isEqualTo("primary");
+    }
+
+    @Test
+    void recentWriterReadsFromPrimary() {
+        authenticate("writer@example.com");
+        readWrite.executeWithoutResult(status -> jdbcTemplate.update("UPDATE origin SET name = name"));
+
+        assertThat(databaseUsedBy(readOnly)).isEqualTo("primary");
+
+        authenticate("reader@example.com");
+        assertThat(databaseUsedBy(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void forcedPrimaryReadsSkipTheReplica() {
+        assertThat(ReplicaRoutingDataSource.readFromPrimary(() -> databaseUsedBy(readOnly))).isEqualTo("primary");
+        assertThat(databaseUsedBy(readOnly)).isEqualTo("replica");
+    }
+
+    private String databaseUsedBy(TransactionTemplate transactionTemplate) {
+        return transactionTemplate.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM origin", String.class));
+    }
+
+    private void authenticate(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(email, null, Collections.emptyList())
+        );
+    }
+
+    private static DataSource database(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS origin (name VARCHAR(20))");
+        jdbcTemplate.execute("DELETE FROM origin");
+        jdbcTemplate.update("INSERT INTO origin (name) VALUES (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,234 @@
+package com.openclassrooms.chatop.exception;
+
+import com.openclassrooms.chatop.configuration.JwtUtils;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the status, body and metric of each error mapped by the {@link GlobalExceptionHandler},
+ * through the real endpoints where a request can trigger the error, and through a controller
+ * throwing the exception otherwise (database outage, oversized upload, unexpected error).
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:error-responses;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class GlobalExceptionHandlerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private MockMvc throwingMockMvc;
+    private String token;
+    private Long userId;
+
+    @BeforeAll
+    void setUp() {
+        User user = new User();
+        user.setName("Errors");
+        user.setEmail("errors@test.com");
+        user.setPassword("password");
+        userId = userRepository.save(user).getId();
+
+        token = "Bearer " + jwtUtils.generateToken(UsernamePasswordAuthenticationToken.authenticated(
+                "errors@test.com", null, Collections.emptyList()
+        ));
+
+        throwingMockMvc = MockMvcBuilders.standaloneSetup(new ThrowingController())
+                .setControllerAdvice(globalExceptionHandler)
+                .build();
+    }
+
+    @Test
+    void missingRentalIsNotFound() throws Exception {
+        double before = errors(404, "rental_not_found");
+
+        mockMvc.perform(get("/api/rentals/999999").header("Authorization", token))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("rental_not_found"))
+                .andExpect(jsonPath("$.message").value("Rental not found"));
+
+        assertThat(errors(404, "rental_not_found")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void messageAboutAMissingRentalIsNotFound() throws Exception {
+        mockMvc.perform(post("/api/messages")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rental_id\":999999,\"user_id\":" + userId + ",\"message\":\"Hello\"}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.error").value("rental_not_found"));
+    }
+
+    @Test
+    void emptyMessageIsABadRequest() throws Exception {
+        mockMvc.perform(post("/api/messages")
+                        .header("Authorization", token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rental_id\":1,\"user_id\":" + userId + ",\"message\":\"\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("empty_message"));
+    }
+
+    @Test
+    void registeringATakenEmailIsAConflict() throws Exception {
+        double before = errors(409, "email_already_registered");
+
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"errors@test.com\",\"name\":\"Errors\",\"password\":\"password\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("email_already_registered"));
+
+        assertThat(errors(409, "email_already_registered")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void wrongPasswordIsUnauthorized() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"errors@test.com\",\"password\":\"wrong\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("invalid_credentials"));
+    }
+
+    @Test
+    void invalidFieldIsABadRequestNamingTheConstraint() throws Exception {
+        double before = errors(400, "invalid_field");
+
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"not an email\",\"password\":\"password\"}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("invalid_field"))
+                .andExpect(jsonPath("$.message").isNotEmpty());
+
+        assertThat(errors(400, "invalid_field")).isEqualTo(before + 1);
+    }
+
+    @Test
+    void unsupportedMethodKeepsItsStandardStatus() throws Exception {
+        mockMvc.perform(delete("/api/auth/login"))
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(jsonPath("$.error").value("method_not_allowed"));
+    }
+
+    @Test
+    void databaseOutageIsUnavailableWithRetryAfter() throws Exception {
+        double before = errors(503, "database_unavailable");
+
+        for (String cause : new String[]{"resource-failure", "query-timeout", "no-transaction"}) {
+            throwing(cause)
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "5"))
+                    .andExpect(jsonPath("$.error").value("database_unavailable"));
+        }
+
+        assertThat(errors(503, "database_unavailable")).isEqualTo(before + 3);
+    }
+
+    @Test
+    void constraintViolationIsAConflict() throws Exception {
+        throwing("integrity")
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("data_conflict"));
+
+        assertThat(errors(409, "data_conflict")).isPositive();
+    }
+
+    @Test
+    void oversizedUploadIsTooLarge() throws Exception {
+        throwing("upload")
+                .andExpect(status().is(413))
+                .andExpect(jsonPath("$.error").isNotEmpty());
+
+        assertThat(meterRegistry.find("chatop.http.errors").tag("status", "413").counter()).isNotNull();
+    }
+
+    @Test
+    void unexpectedErrorIsAnInternalErrorWithoutDetails() throws Exception {
+        throwing("unexpected")
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.error").value("internal_error"))
+                .andExpect(jsonPath("$.message").value("Internal error"));
+
+        assertThat(errors(500, "internal_error")).isPositive();
+    }
+
+    private ResultActions throwing(String cause) throws Exception {
+        return throwingMockMvc.perform(get("/throw/" + cause));
+    }
+
+    private double errors(int status, String code) {
+        var counter = meterRegistry.find("chatop.http.errors")
+                .tag("status", String.valueOf(status))
+                .tag("code", code)
+                .counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    /**
+     * Throws the exceptions no request can trigger against the in-memory database.
+     * Being nested in a test class, it is not picked up by component scanning.
+     */
+    @RestController
+    static class ThrowingController {
+
+        @GetMapping("/throw/{cause}")
+        public String fail(@PathVariable String cause) {
+            throw switch (cause) {
+                case "resource-failure" -> new DataAccessResourceFailureException("Connection refused");
+                case "query-timeout" -> new QueryTimeoutException("Statement cancelled");
+                case "no-transaction" -> new CannotCreateTransactionException("Connection is not available");
+                case "integrity" -> new DataIntegrityViolationException("Duplicate entry");
+                case "upload" -> new MaxUploadSizeExceededException(5 * 1024 * 1024);
+                default -> new IllegalStateException("Boom");
+            };
+        }
+    }
+}
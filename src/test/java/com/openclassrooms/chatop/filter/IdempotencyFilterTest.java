@@ -0,0 +1,103 @@
+package com.openclassrooms.chatop.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.idempotency.IdempotencyStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 1, null);
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(store, Duration.ofMillis(10), new ObjectMapper(), meterRegistry);
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void invalidKeyIsACountedBadRequest() throws Exception {
+        MockHttpServletResponse response = post(" ");
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        assertThat(response.getContentAsString()).contains("\"error\":\"invalid_idempotency_key\"");
+        assertThat(errors("400", "invalid_idempotency_key")).isEqualTo(1);
+    }
+
+    @Test
+    void repeatOfARunningRequestIsACountedConflict() throws Exception {
+        authenticate();
+        MockHttpServletResponse[] repeat = new MockHttpServletResponse[1];
+
+        // The repeat is sent while the original request is still running
+        filter.doFilter(request("key"), new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                repeat[0] = post("key");
+            }
+        }));
+
+        assertThat(repeat[0].getStatus()).isEqualTo(409);
+        assertThat(repeat[0].getContentAsString()).contains("\"error\":\"idempotency_conflict\"");
+        assertThat(errors("409", "idempotency_conflict")).isEqualTo(1);
+    }
+
+    @Test
+    void newKeyIsRefusedWhileTheStoreIsFullOfRunningRequests() throws Exception {
+        authenticate();
+        store.begin("running");
+
+        MockHttpServletResponse response = post("key");
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isNotNull();
+        assertThat(response.getContentAsString()).contains("\"error\":\"idempotency_unavailable\"");
+        assertThat(errors("503", "idempotency_unavailable")).isEqualTo(1);
+    }
+
+    private MockHttpServletResponse post(String idempotencyKey) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(idempotencyKey), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String idempotencyKey) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/messages");
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        return request;
+    }
+
+    private double errors(String status, String code) {
+        return meterRegistry.get("chatop.http.errors").tag("status", status).tag("code", code).counter().count();
+    }
+
+    private static void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated("user@test.com", null, Collections.emptyList()));
+    }
+}
@@ -0,0 +1,159 @@
+package com.openclassrooms.chatop.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.chatop.ratelimit.TokenBucketRegistry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoginRateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final LoginRateLimitFilter filter = new LoginRateLimitFilter(
+            new TokenBucketRegistry(3, Duration.ofMinutes(1), 100),
+            new TokenBucketRegistry(2, Duration.ofMinutes(5), 100),
+            new ObjectMapper(),
+            meterRegistry
+    );
+
+    @Test
+    void rejectsTooManyAttemptsFromTheSameAddress() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.0.0.1", "user" + i + "@test.com").getStatus()).isEqualTo(200);
+        }
+
+        MockHttpServletResponse rejected = login("10.0.0.1", "other@test.com");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isBetween(19L, 20L);
+        assertThat(rejected.getContentAsString()).contains("too_many_requests");
+        assertThat(meterRegistry.get("chatop.auth.rate_limited").tag("limit", "ip").counter().count()).isEqualTo(1);
+        assertThat(login("10.0.0.2", "other@test.com").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsTooManyAttemptsForTheSameEmailFromAnyAddress() throws Exception {
+        assertThat(login("10.0.1.1", "Victim@Test.com").getStatus()).isEqualTo(200);
+        assertThat(login("10.0.1.2", "victim@test.com ").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = login("10.0.1.3", "victim@test.com");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(Long.parseLong(rejected.getHeader("Retry-After"))).isBetween(149L, 150L);
+        assertThat(meterRegistry.get("chatop.auth.rate_limited").tag("limit", "email").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rateLimitedAttemptsAreCountedAsErrors() throws Exception {
+        login("10.0.6.1", "counted@test.com");
+        login("10.0.6.2", "counted@test.com");
+
+        MockHttpServletResponse rejected = login("10.0.6.3", "counted@test.com");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getContentType()).isEqualTo("application/json");
+        assertThat(meterRegistry.get("chatop.http.errors")
+                .tag("status", "429")
+                .tag("code", "too_many_requests")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void replaysTheBodyToTheNextFilters() throws Exception {
+        MockHttpServletRequest request = loginRequest("10.0.2.1", "reader@test.com");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        ServletRequest forwarded = chain.getRequest();
+        assertThat(forwarded.getContentLength()).isEqualTo(request.getContentLength());
+        assertThat(new String(forwarded.getInputStream().readAllBytes(), StandardCharsets.UTF_8))
+                .isEqualTo(new String(request.getContentAsByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void notifiesAReadListenerOfTheReplayedBody() throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(loginRequest("10.0.3.1", "async@test.com"), new MockHttpServletResponse(), chain);
+
+        ServletInputStream input = chain.getRequest().getInputStream();
+        List<String> events = new ArrayList<>();
+        input.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                events.add("data:" + new String(input.readAllBytes(), StandardCharsets.UTF_8).contains("async@test.com"));
+            }
+
+            @Override
+            public void onAllDataRead() {
+                events.add("done");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                events.add("error");
+            }
+        });
+
+        assertThat(events).containsExactly("data:true", "done");
+        assertThat(input.isFinished()).isTrue();
+    }
+
+    @Test
+    void rejectsOversizedBodies() throws Exception {
+        MockHttpServletRequest request = loginRequest("10.0.4.1", "big@test.com");
+        request.setContent(new byte[8 * 1024 + 1]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(response.getContentAsString()).contains("\"error\":\"payload_too_large\"");
+    }
+
+    @Test
+    void ignoresOtherEndpoints() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/rentals");
+            request.setRemoteAddr("10.0.5.1");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            filter.doFilter(request, response, new MockFilterChain());
+
+            assertThat(response.getStatus()).isEqualTo(200);
+        }
+    }
+
+    private MockHttpServletResponse login(String address, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(address, email), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest loginRequest(String address, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
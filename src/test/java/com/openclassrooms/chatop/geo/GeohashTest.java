@@ -0,0 +1,67 @@
+package com.openclassrooms.chatop.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeohashTest {
+
+    private static final double EARTH_RADIUS_METERS = 6371000;
+
+    @Test
+    void encodesLikeTheReferenceImplementation() {
+        assertThat(Geohash.encode(57.64911, 10.40744)).hasSize(12).startsWith("u4pruydqqvj");
+        assertThat(Geohash.encode(48.8566, 2.3522, 5)).isEqualTo("u09tv");
+        assertThat(Geohash.encode(-33.8688, 151.2093, 5)).isEqualTo("r3gx2");
+    }
+
+    @Test
+    void coveringCellsContainEveryPointOfTheCircle() {
+        double[][] centers = {{48.8566, 2.3522}, {0, 0}, {-33.8688, 151.2093}, {10, 179.999}, {70, -20}};
+
+        for (double[] center : centers) {
+            for (double radius : new double[]{1, 150, 5000, 100_000}) {
+                List<String> prefixes = Geohash.coveringPrefixes(center[0], center[1], radius);
+                assertThat(prefixes).hasSizeBetween(1, 9);
+
+                for (int bearing = 0; bearing < 360; bearing += 15) {
+                    double[] point = destination(center[0], center[1], radius, bearing);
+                    String geohash = Geohash.encode(point[0], point[1]);
+
+                    assertThat(prefixes).as("%s at %sm, bearing %s", List.of(center[0], center[1]), radius, bearing)
+                            .anyMatch(geohash::startsWith);
+                }
+            }
+        }
+    }
+
+    @Test
+    void smallerCirclesUseLongerPrefixes() {
+        assertThat(Geohash.coveringPrefixes(48.8566, 2.3522, 120).get(0)).hasSize(6);
+        assertThat(Geohash.coveringPrefixes(48.8566, 2.3522, 200_000).get(0)).hasSize(2);
+    }
+
+    @Test
+    void circlesReachingAPoleAreNotCovered() {
+        assertThat(Geohash.coveringPrefixes(89.99, 0, 5000)).isEmpty();
+        assertThat(Geohash.coveringPrefixes(-89.99, 0, 5000)).isEmpty();
+    }
+
+    /**
+     * Point at a distance and bearing from another one, on the sphere used by the nearby search.
+     */
+    private static double[] destination(double latitude, double longitude, double distance, double bearing) {
+        double angle = distance / EARTH_RADIUS_METERS;
+        double phi = Math.toRadians(latitude);
+        double theta = Math.toRadians(bearing);
+        double destinationPhi = Math.asin(Math.sin(phi) * Math.cos(angle) + Math.cos(phi) * Math.sin(angle) * Math.cos(theta));
+        double destinationLambda = Math.toRadians(longitude) + Math.atan2(Math.sin(theta) * Math.sin(angle) * Math.cos(phi),
+                Math.cos(angle) - Math.sin(phi) * Math.sin(destinationPhi));
+        double destinationLongitude = Math.toDegrees(destinationLambda);
+
+        return new double[]{Math.toDegrees(destinationPhi),
+                destinationLongitude > 180 ? destinationLongitude - 360 : destinationLongitude};
+    }
+}
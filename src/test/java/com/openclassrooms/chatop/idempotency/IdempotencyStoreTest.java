@@ -0,0 +1,65 @@
+package com.openclassrooms.chatop.idempotency;
+
+import com.openclassrooms.chatop.exception.ServiceUnavailableException;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(Duration.ofHours(1), 2, null);
+
+    @Test
+    void repeatedKeyWaitsForTheFirstResponse() {
+        assertThat(store.begin("key")).isNull();
+
+        CompletableFuture<IdempotentResponse> duplicate = store.begin("key");
+        assertThat(duplicate).isNotDone();
+
+        IdempotentResponse response = new IdempotentResponse(200, "application/json", new byte[]{1});
+        store.complete("key", response);
+
+        assertThat(duplicate).isCompletedWithValue(response);
+        assertThat(store.begin("key")).isCompletedWithValue(response);
+    }
+
+    @Test
+    void abandonedKeyCanBeRetried() {
+        assertThat(store.begin("key")).isNull();
+        CompletableFuture<IdempotentResponse> duplicate = store.begin("key");
+
+        store.abandon("key");
+
+        assertThat(duplicate).isCompletedExceptionally();
+        assertThat(store.begin("key")).isNull();
+    }
+
+    @Test
+    void completedKeysAreEvictedWhenFullButRunningOnesAreKept() {
+        store.begin("running");
+        store.begin("done");
+        store.complete("done", new IdempotentResponse(200, null, new byte[0]));
+
+        assertThat(store.begin("new")).isNull();
+
+        assertThat(store.size()).isEqualTo(2);
+        assertThat(store.begin("running")).isNotDone();
+    }
+
+    @Test
+    void newKeysAreRefusedWhileFullOfRunningRequests() {
+        store.begin("first");
+        store.begin("second");
+
+        assertThatThrownBy(() -> store.begin("third")).isSameAs(ServiceUnavailableException.IDEMPOTENCY_KEYS_FULL);
+        assertThat(store.size()).isEqualTo(2);
+
+        store.complete("first", new IdempotentResponse(200, null, new byte[0]));
+        assertThat(store.begin("third")).isNull();
+    }
+}
@@ -0,0 +1,60 @@
+package com.openclassrooms.chatop.popularity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecayingTopKTest {
+
+    private static final long HOUR = Duration.ofHours(1).toNanos();
+
+    @Test
+    void ranksTheMostViewedKeysAmongManyRareOnes() {
+        DecayingTopK topK = new DecayingTopK(3, 1024, 4, Duration.ofHours(1), 0);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            topK.record(1000 + random.nextInt(50_000));
+            if (i % 10 == 0) {
+                topK.record(7);
+            }
+            if (i % 20 == 0) {
+                topK.record(3);
+            }
+            if (i % 40 == 0) {
+                topK.record(5);
+            }
+            if (i % 10_000 == 0) {
+                topK.snapshot(0);
+            }
+        }
+
+        assertThat(topK.snapshot(0))
+                .extracting(DecayingTopK.Entry::getKey)
+                .containsExactly(7L, 3L, 5L);
+    }
+
+    @Test
+    void recentViewsOutweighOlderOnes() {
+        DecayingTopK topK = new DecayingTopK(2, 1024, 4, Duration.ofHours(1), 0);
+
+        for (int i = 0; i < 1000; i++) {
+            topK.record(1);
+        }
+        topK.snapshot(0);
+
+        // Four half-lives later, the 1000 old views count for about 62
+        topK.snapshot(4 * HOUR);
+        for (int i = 0; i < 100; i++) {
+            topK.record(2);
+        }
+
+        assertThat(topK.snapshot(4 * HOUR))
+                .extracting(DecayingTopK.Entry::getKey)
+                .containsExactly(2L, 1L);
+        assertThat(topK.getTop().get(1).getScore()).isBetween(60.0, 64.0);
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.chatop.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketRegistryTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void limitsEachKeyIndependently() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(2, Duration.ofSeconds(2), 10);
+        long start = System.nanoTime();
+
+        assertThat(registry.tryConsume("a", start)).isZero();
+        assertThat(registry.tryConsume("a", start)).isZero();
+        assertThat(registry.tryConsume("a", start)).isEqualTo(1);
+        assertThat(registry.tryConsume("b", start)).isZero();
+        assertThat(registry.tryConsume("a", start + SECOND)).isZero();
+    }
+
+    @Test
+    void evictsTheBucketsClosestToFullWhenNoneRefilled() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(2, Duration.ofSeconds(20), 2);
+        long start = System.nanoTime();
+        registry.tryConsume("a", start);
+        registry.tryConsume("a", start);
+        registry.tryConsume("b", start);
+
+        assertThat(registry.tryConsume("c", start)).isZero();
+        assertThat(registry.size()).isEqualTo(2);
+
+        // The drained bucket was kept: its caller does not get a fresh burst
+        assertThat(registry.tryConsume("a", start)).isPositive();
+    }
+
+    @Test
+    void sprayedKeysDoNotLockOutNewCallers() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(5, Duration.ofSeconds(300), 100);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            registry.tryConsume("target", start);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            registry.tryConsume("sprayed-" + i, start + i);
+        }
+
+        assertThat(registry.size()).isLessThanOrEqualTo(100);
+        assertThat(registry.tryConsume("new-user", start + 10_000)).isZero();
+        // The key being limited outlived the spray
+        assertThat(registry.tryConsume("target", start + 10_000)).isPositive();
+    }
+
+    @Test
+    void evictsOnlyTheBucketsThatRefilled() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(2, Duration.ofSeconds(20), 2);
+        long start = System.nanoTime();
+        registry.tryConsume("a", start);
+        registry.tryConsume("b", start + 5 * SECOND);
+        registry.tryConsume("b", start + 5 * SECOND);
+
+        // "a" is full again after 10s, "b" is still draining
+        assertThat(registry.tryConsume("c", start + 12 * SECOND)).isZero();
+        assertThat(registry.size()).isEqualTo(2);
+        assertThat(registry.tryConsume("b", start + 12 * SECOND)).isPositive();
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThatThrownBy(() -> new TokenBucketRegistry(0, Duration.ofSeconds(1), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRegistry(1, Duration.ZERO, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucketRegistry(1, Duration.ofSeconds(1), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.chatop.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsABurstOfCapacityThenRejects() {
+        TokenBucket bucket = new TokenBucket(3, SECOND, 0);
+
+        assertThat(bucket.tryConsume(0)).isTrue();
+        assertThat(bucket.tryConsume(0)).isTrue();
+        assertThat(bucket.tryConsume(0)).isTrue();
+        assertThat(bucket.tryConsume(0)).isFalse();
+        assertThat(bucket.nanosUntilNextToken(0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        assertThat(bucket.tryConsume(SECOND / 2)).isFalse();
+        assertThat(bucket.nanosUntilNextToken(SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryConsume(SECOND)).isTrue();
+        assertThat(bucket.tryConsume(SECOND)).isFalse();
+    }
+
+    @Test
+    void doesNotStoreMoreThanItsCapacity() {
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+
+        assertThat(bucket.tryConsume(100 * SECOND)).isTrue();
+        assertThat(bucket.tryConsume(100 * SECOND)).isTrue();
+        assertThat(bucket.tryConsume(100 * SECOND)).isFalse();
+    }
+
+    @Test
+    void isFullOnceEveryTakenTokenIsBack() {
+        TokenBucket bucket = new TokenBucket(2, SECOND, 0);
+        assertThat(bucket.isFull(0)).isTrue();
+
+        bucket.tryConsume(0);
+        bucket.tryConsume(0);
+
+        assertThat(bucket.isFull(SECOND)).isFalse();
+        assertThat(bucket.isFull(2 * SECOND)).isTrue();
+    }
+}
@@ -0,0 +1,123 @@
+package com.openclassrooms.chatop.repository;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts the application on a database created with the schema the README documented before the
+ * migrations: Flyway adopts it as version 1, then every migration must apply on top of it and move
+ * its data, and the entities must match the result.
+ */
+@SpringBootTest
+class BaselineMigrationIntegrationTest {
+
+    private static final String URL = "jdbc:h2:mem:baseline-migration;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+    private static final byte[] PICTURE = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 1, 2, 3};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void baselineDatabase(DynamicPropertyRegistry registry) throws SQLException {
+        // Runs before the application context is created, so before Flyway
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TABLE users
+                    (
+                        id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        name       VARCHAR(255)        NOT NULL,
+                        email      VARCHAR(255) UNIQUE NOT NULL,
+                        password   VARCHAR(255)        NOT NULL,
+                        role       VARCHAR(255)        NOT NULL DEFAULT 'USER',
+                        created_at TIMESTAMP                    DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                        updated_at TIMESTAMP                    DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL
+                    )""");
+            statement.execute("""
+                    CREATE TABLE rentals
+                    (
+                        id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        owner_id    BIGINT                              NOT NULL,
+                        name        VARCHAR(255)                        NOT NULL,
+                        surface     INT CHECK (surface >= 1),
+                        price       DECIMAL(10, 2) CHECK (price > 0.0),
+                        picture     LONGBLOB,
+                        description TEXT,
+                        created_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                        updated_at  TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL,
+                        CONSTRAINT fk_owner FOREIGN KEY (owner_id) REFERENCES users (id)
+                    )""");
+            statement.execute("""
+                    CREATE TABLE messages
+                    (
+                        id         BIGINT AUTO_INCREMENT PRIMARY KEY,
+                        user_id    BIGINT                              NOT NULL,
+                        rental_id  BIGINT                              NOT NULL,
+                        message    TEXT                                NOT NULL,
+                        created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL,
+                        updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP NOT NULL,
+                        CONSTRAINT fk_user FOREIGN KEY (user_id) REFERENCES users (id),
+                        CONSTRAINT fk_rental FOREIGN KEY (rental_id) REFERENCES rentals (id)
+                    )""");
+            statement.execute("INSERT INTO users (name, email, password) VALUES ('John Doe', 'john.doe@example.com', 'password')");
+
+            // Two rentals with the same picture, one without
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO rentals (owner_id, name, surface, price, picture, description) VALUES (1, ?, 50, 100, ?, 'Description')")) {
+                for (String name : List.of("First", "Second", "Third")) {
+                    insert.setString(1, name);
+                    insert.setBytes(2, "Third".equals(name) ? null : PICTURE);
+                    insert.executeUpdate();
+                }
+            }
+            statement.execute("INSERT INTO messages (user_id, rental_id, message) VALUES (1, 1, 'Hello')");
+        }
+
+        registry.add("spring.datasource.url", () -> URL);
+    }
+
+    @Test
+    void adoptsTheBaselineAsVersionOneAndAppliesEveryMigration() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT \"type\" FROM \"flyway_schema_history\" WHERE \"version\" = '1'", String.class))
+                .isEqualTo("BASELINE");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"success\" = FALSE", Long.class))
+                .isZero();
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT table_name FROM information_schema.tables WHERE table_schema = 'public'""", String.class))
+                .contains("pictures", "rental_stats", "messages_archive", "notification_outbox",
+                        "cache_invalidations", "idempotency_keys");
+    }
+
+    @Test
+    void movesTheRentalPicturesToThePicturesTable() throws Exception {
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(PICTURE));
+
+        assertThat(jdbcTemplate.queryForList("SELECT hash FROM pictures", String.class)).containsExactly(hash);
+        assertThat(jdbcTemplate.queryForObject("SELECT data FROM pictures", byte[].class)).isEqualTo(PICTURE);
+        assertThat(jdbcTemplate.queryForList("SELECT picture_hash FROM rentals ORDER BY id", String.class))
+                .containsExactly(hash, hash, null);
+        assertThat(jdbcTemplate.queryForList("""
+                SELECT column_name FROM information_schema.columns WHERE table_name = 'rentals'""", String.class))
+                .doesNotContain("picture")
+                .contains("picture_hash", "latitude", "longitude", "geohash");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM messages", Long.class)).isEqualTo(1);
+    }
+}
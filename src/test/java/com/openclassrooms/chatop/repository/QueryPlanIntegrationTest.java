@@ -0,0 +1,252 @@
+package com.openclassrooms.chatop.repository;
+
+import com.openclassrooms.chatop.geo.Geohash;
+import com.openclassrooms.chatop.model.Notification;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails when a hot repository query stops using the index created for it by the migrations.
+ * The SQL generated for each query is recorded, then run again with {@code EXPLAIN} and the
+ * same parameters, on a schema built by Flyway and filled with enough rows for the optimizer
+ * to prefer an index over a table scan.
+ * <p>
+ * H2 only approximates the MySQL optimizer: on MySQL, the {@code key} column of
+ * {@code EXPLAIN} should show the same indexes.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanIntegrationTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageArchiveRepository messageArchiveRepository;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private CacheInvalidationRepository cacheInvalidationRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO users (name, email, password)
+                SELECT CONCAT('User ', x), CONCAT('user', x, '@test.com'), 'password' FROM SYSTEM_RANGE(1, 100) AS r(x)""");
+        jdbcTemplate.update("""
+                INSERT INTO rentals (owner_id, name, surface, price, latitude, longitude)
+                SELECT 1 + MOD(x, 100), CONCAT('Rental ', x), 50, 100, MOD(x, 180) - 90, MOD(x * 7, 360) - 180
+                FROM SYSTEM_RANGE(1, 1000) AS r(x)""");
+        jdbcTemplate.batchUpdate("UPDATE rentals SET geohash = ? WHERE id = ?",
+                jdbcTemplate.query("SELECT id, latitude, longitude FROM rentals", (row, i) -> new Object[]{
+                        Geohash.encode(row.getDouble("latitude"), row.getDouble("longitude")), row.getLong("id")}));
+        jdbcTemplate.update("""
+                INSERT INTO messages (user_id, rental_id, message, created_at)
+                SELECT 1 + MOD(x, 100), 1 + MOD(x, 1000), CONCAT('Message ', x), DATEADD('MINUTE', -x, CURRENT_TIMESTAMP)
+                FROM SYSTEM_RANGE(1, 5000) AS r(x)""");
+        jdbcTemplate.update("""
+                INSERT INTO messages_archive (id, user_id, rental_id, message, created_at, archived_at)
+                SELECT x, 1 + MOD(x, 100), 1 + MOD(x, 1000), CONCAT('Message ', x), DATEADD('DAY', -400 - x, CURRENT_TIMESTAMP), CURRENT_TIMESTAMP
+                FROM SYSTEM_RANGE(1, 5000) AS r(x)""");
+        jdbcTemplate.update("""
+                INSERT INTO notification_outbox (recipient, subject, status, next_attempt_at, created_at, delivered_at)
+                SELECT CONCAT('user', x, '@test.com'), 'Subject', CASE WHEN MOD(x, 100) = 0 THEN 'PENDING' ELSE 'DELIVERED' END,
+                       CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, DATEADD('MINUTE', -x, CURRENT_TIMESTAMP)
+                FROM SYSTEM_RANGE(1, 5000) AS r(x)""");
+        jdbcTemplate.update("""
+                INSERT INTO cache_invalidations (origin, cache_name, entity_id, created_at)
+                SELECT RANDOM_UUID(), 'rentals', x, DATEADD('SECOND', -x, CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, 5000) AS r(x)""");
+        jdbcTemplate.update("""
+                INSERT INTO idempotency_keys (idempotency_key, status, created_at)
+                SELECT CONCAT('key-', x), 200, DATEADD('SECOND', -x, CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, 5000) AS r(x)""");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void userByEmailUsesTheUniqueIndex() {
+        // The unique constraint of the baseline schema has no explicit name, so it differs between databases
+        assertThat(planOf(() -> userRepository.findByEmail("user42@test.com"))).doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void nearbyRentalsUseTheGeohashIndex() {
+        List<String> cells = new ArrayList<>(Geohash.coveringPrefixes(45, 5, 10000).stream().map(cell -> cell + "%").toList());
+        while (cells.size() < 9) {
+            cells.add("!");
+        }
+
+        assertThat(planOf(() -> rentalRepository.findNearby(
+                45, 5, 10000, 44.9, 45.1, 4.8, 5.2, cells, -1, 0, 20)))
+                .contains("idx_rentals_geohash")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    void messagesOfARentalUseTheRentalIndex() {
+        // H2 keeps the index it created for the foreign key, which MySQL drops once idx_messages_rental exists
+        assertThat(planOf(() -> messageRepository.findSummariesByRentalId(42L, PageRequest.of(0, 50))))
+                .containsAnyOf("idx_messages_rental", "fk_rental");
+    }
+
+    @Test
+    void messagesToArchiveUseTheCreationDateIndex() {
+        assertThat(planOf(() -> messageRepository.findIdsCreatedBefore(NOW.minusDays(2), PageRequest.of(0, 500))))
+                .contains("idx_messages_created_at");
+    }
+
+    @Test
+    void archivedMessagesOfARentalUseTheArchiveRentalIndex() {
+        assertThat(planOf(() -> messageArchiveRepository.findSummariesByRentalId(42L, PageRequest.of(0, 50))))
+                .contains("idx_messages_archive_rental");
+    }
+
+    @Test
+    void dueNotificationsUseTheDueIndex() {
+        assertThat(planOf(() -> notificationRepository.findDue(Notification.Status.PENDING, NOW, PageRequest.of(0, 50))))
+                .contains("idx_notification_outbox_due");
+    }
+
+    @Test
+    void deliveredNotificationsPurgeUsesTheDeliveryDateIndex() {
+        assertThat(planOf(() -> notificationRepository.deleteDeliveredBefore(NOW.minusDays(7))))
+                .contains("idx_notification_outbox_delivered");
+    }
+
+    @Test
+    void cacheInvalidationsPurgeUsesTheCreationDateIndex() {
+        assertThat(planOf(() -> cacheInvalidationRepository.deleteCreatedBefore(NOW.minusDays(1))))
+                .contains("idx_cache_invalidations_created_at");
+    }
+
+    @Test
+    void idempotencyKeysPurgeUsesTheCreationDateIndex() {
+        assertThat(planOf(() -> idempotencyRecordRepository.deleteCreatedBefore(NOW.minusDays(1))))
+                .contains("idx_idempotency_keys_created_at");
+    }
+
+    /**
+     * Runs a query in a transaction rolled back afterwards, then explains its statement.
+     */
+    private String planOf(Runnable query) {
+        StatementCollector.start();
+        List<QueryInfo> statements;
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                query.run();
+                status.setRollbackOnly();
+            });
+        } finally {
+            statements = StatementCollector.stop();
+        }
+
+        assertThat(statements).as("SQL statements").hasSize(1);
+        return explain(statements.get(0));
+    }
+
+    /**
+     * Explains a recorded statement, with the parameters it was run with.
+     */
+    private String explain(QueryInfo statement) {
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.getQuery());
+
+            for (ParameterSetOperation operation : statement.getParametersList().get(0)) {
+                try {
+                    operation.getMethod().invoke(explain, operation.getArgs());
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            return explain;
+        }, resultSet -> {
+            StringBuilder plan = new StringBuilder();
+            while (resultSet.next()) {
+                plan.append(resultSet.getString(1));
+            }
+            return plan.toString();
+        });
+    }
+
+    @TestConfiguration
+    static class StatementCollectorConfig {
+
+        @Bean
+        StatementCollector statementCollector() {
+            return new StatementCollector();
+        }
+    }
+
+    /**
+     * Collects the SQL statements run by the test thread.
+     */
+    static class StatementCollector implements QueryExecutionListener {
+
+        private static final ThreadLocal<List<QueryInfo>> STATEMENTS = new ThreadLocal<>();
+
+        static void start() {
+            STATEMENTS.set(new ArrayList<>());
+        }
+
+        static List<QueryInfo> stop() {
+            List<QueryInfo> statements = STATEMENTS.get();
+            STATEMENTS.remove();
+            return statements;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            List<QueryInfo> statements = STATEMENTS.get();
+
+            if (statements != null) {
+                statements.addAll(queryInfoList);
+            }
+        }
+    }
+}
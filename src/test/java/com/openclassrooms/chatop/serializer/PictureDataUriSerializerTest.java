@@ -0,0 +1,37 @@
+package com.openclassrooms.chatop.serializer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+
+import com.openclassrooms.chatop.dto.RentalDTO;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PictureDataUriSerializerTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 2, 3, 3071, 3072, 3073, 100_000})
+    void writesTheSameDataUriAsBase64EncodeToString(int size) throws Exception {
+        byte[] picture = new byte[size];
+        new Random(size).nextBytes(picture);
+        String expected = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(picture);
+
+        RentalDTO rentalDTO = new RentalDTO();
+        rentalDTO.setPicture(picture);
+
+        JsonNode json = new ObjectMapper().findAndRegisterModules().readTree(
+                new ObjectMapper().findAndRegisterModules().writeValueAsBytes(rentalDTO));
+        JsonNode cbor = new CBORMapper().findAndRegisterModules().readTree(
+                new CBORMapper().findAndRegisterModules().writeValueAsBytes(rentalDTO));
+
+        assertThat(json.get("picture").asText()).isEqualTo(expected);
+        assertThat(cbor.get("picture").asText()).isEqualTo(expected);
+    }
+}
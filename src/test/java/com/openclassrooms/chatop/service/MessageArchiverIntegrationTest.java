@@ -0,0 +1,84 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.model.Message;
+import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.MessageRepository;
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:message-archiver;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.messages.archive-batch-size=2",
+        "app.messages.archive-pause=0ms",
+        "app.messages.archive-interval=1000d"
+})
+class MessageArchiverIntegrationTest {
+
+    @Autowired
+    private MessageArchiver messageArchiver;
+
+    @Autowired
+    private CustomMessageDetailsService customMessageDetailsService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void movesOldMessagesToTheArchiveByBatches() {
+        User user = new User();
+        user.setName("User");
+        user.setEmail("archiver@test.com");
+        user.setPassword("password");
+        userRepository.save(user);
+
+        Rental rental = new Rental();
+        rental.setOwner(user);
+        rental.setName("Rental");
+        rental.setSurface(50);
+        rental.setPrice(BigDecimal.valueOf(100));
+        rental.setDescription("Description");
+        rentalRepository.save(rental);
+
+        for (int i = 0; i < 6; i++) {
+            Message message = new Message();
+            message.setUser(user);
+            message.setRental(rental);
+            message.setMessage("Message " + i);
+            messageRepository.save(message);
+        }
+
+        // Five messages are older than the retention, spanning three batches
+        jdbcTemplate.update("UPDATE messages SET created_at = ? WHERE message <> 'Message 5'",
+                LocalDateTime.now().minusYears(2));
+
+        assertThat(messageArchiver.archive()).isEqualTo(5);
+        assertThat(customMessageDetailsService.getMessages(rental.getId(), false, 10))
+                .extracting("message")
+                .containsExactly("Message 5");
+        assertThat(customMessageDetailsService.getMessages(rental.getId(), true, 10))
+                .extracting("message")
+                .containsExactly("Message 4", "Message 3", "Message 2", "Message 1", "Message 0");
+        assertThat(messageArchiver.archive()).isZero();
+    }
+}
@@ -0,0 +1,162 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.model.Rental;
+import com.openclassrooms.chatop.model.User;
+import com.openclassrooms.chatop.repository.RentalDistance;
+import com.openclassrooms.chatop.repository.RentalRepository;
+import com.openclassrooms.chatop.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nearby search through the geohash cells: keyset paging, radius bounds, and circles crossing a cell
+ * boundary, the antimeridian or a pole.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:nearby-rentals;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class NearbyRentalsIntegrationTest {
+
+    @Autowired
+    private CustomRentalDetailsService customRentalDetailsService;
+
+    @Autowired
+    private RentalRepository rentalRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User owner;
+
+    @BeforeAll
+    void seed() {
+        owner = new User();
+        owner.setName("Owner");
+        owner.setEmail("nearby@test.com");
+        owner.setPassword("password");
+        userRepository.save(owner);
+
+        // Around Paris: two rentals at the same place, so that the cursor must break ties by ID
+        save("Paris 1", 48.8566, 2.3522);
+        save("Paris 2", 48.8570, 2.3530);
+        save("Paris 3", 48.8570, 2.3530);
+        save("Paris 4", 48.8600, 2.3600);
+        save("Paris 5", 48.8700, 2.3700);
+        save("Paris 6", 48.9000, 2.4000);
+        save("Paris 7", 48.9500, 2.5000);
+        save("Paris, no location", null, null);
+
+        // Both sides of the prime meridian, in cells without any common prefix
+        save("West", 45.0, -0.0005);
+        save("East", 45.0, 0.0005);
+
+        // Both sides of the antimeridian, and both sides of the north pole
+        save("Antimeridian west", 10.0, 179.999);
+        save("Antimeridian east", 10.0, -179.999);
+        save("Pole 1", 89.99, 0.0);
+        save("Pole 2", 89.99, 180.0);
+    }
+
+    @Test
+    void pagesFollowTheCursorWithoutGapsOrDuplicates() {
+        List<RentalDistance> all = customRentalDetailsService.getRentalsNear(48.8566, 2.3522, 20000, null, null, 100);
+        assertThat(all).hasSize(7);
+        assertThat(all).isSortedAccordingTo(Comparator.comparing(RentalDistance::getDistance).thenComparing(RentalDistance::getId));
+
+        List<RentalDistance> paged = new ArrayList<>();
+        List<RentalDistance> page = customRentalDetailsService.getRentalsNear(48.8566, 2.3522, 20000, null, null, 2);
+        while (!page.isEmpty()) {
+            assertThat(page).hasSizeLessThanOrEqualTo(2);
+            paged.addAll(page);
+            RentalDistance last = page.get(page.size() - 1);
+            page = customRentalDetailsService.getRentalsNear(48.8566, 2.3522, 20000, last.getDistance(), last.getId(), 2);
+        }
+
+        assertThat(paged).extracting(RentalDistance::getId).containsExactlyElementsOf(all.stream().map(RentalDistance::getId).toList());
+    }
+
+    @Test
+    void theRadiusBoundIsInclusive() {
+        List<RentalDistance> all = customRentalDetailsService.getRentalsNear(48.8566, 2.3522, 20000, null, null, 100);
+        RentalDistance farthest = all.get(all.size() - 1);
+
+        assertThat(customRentalDetailsService.getRentalsNear(48.8566, 2.3522, farthest.getDistance(), null, null, 100))
+                .extracting(RentalDistance::getId)
+                .contains(farthest.getId());
+        assertThat(customRentalDetailsService.getRentalsNear(48.8566, 2.3522, farthest.getDistance() - 1, null, null, 100))
+                .extracting(RentalDistance::getId)
+                .doesNotContain(farthest.getId())
+                .hasSize(all.size() - 1);
+    }
+
+    @Test
+    void aTinyRadiusOnlyFindsTheRentalsAtThePoint() {
+        assertThat(customRentalDetailsService.getRentalsNear(48.8570, 2.3530, 1, null, null, 100))
+                .extracting(RentalDistance::getDistance)
+                .containsExactly(0.0, 0.0);
+    }
+
+    @Test
+    void findsRentalsInTheNeighbouringCells() {
+        assertThat(names(customRentalDetailsService.getRentalsNear(45, -0.0005, 500, null, null, 100)))
+                .containsExactly("West", "East");
+    }
+
+    @Test
+    void findsRentalsAcrossTheAntimeridian() {
+        assertThat(names(customRentalDetailsService.getRentalsNear(10, 179.999, 500, null, null, 100)))
+                .containsExactly("Antimeridian west", "Antimeridian east");
+    }
+
+    @Test
+    void findsRentalsAcrossThePole() {
+        assertThat(names(customRentalDetailsService.getRentalsNear(89.99, 0, 5000, null, null, 100)))
+                .containsExactly("Pole 1", "Pole 2");
+    }
+
+    @Test
+    void movedRentalsAreFoundAtTheirNewLocation() {
+        Rental rental = save("Moving", 35.6762, 139.6503);
+        Rental changes = new Rental();
+        changes.setName("Moving");
+        changes.setSurface(50);
+        changes.setPrice(BigDecimal.valueOf(100));
+        changes.setDescription("Description");
+        changes.setLatitude(-22.9068);
+        changes.setLongitude(-43.1729);
+
+        assertThat(customRentalDetailsService.updateOwnedRental(rental.getId(), owner.getId(), changes)).isTrue();
+        assertThat(customRentalDetailsService.getRentalsNear(35.6762, 139.6503, 1000, null, null, 100)).isEmpty();
+        assertThat(names(customRentalDetailsService.getRentalsNear(-22.9068, -43.1729, 1000, null, null, 100)))
+                .containsExactly("Moving");
+    }
+
+    private Rental save(String name, Double latitude, Double longitude) {
+        Rental rental = new Rental();
+        rental.setOwner(owner);
+        rental.setName(name);
+        rental.setSurface(50);
+        rental.setPrice(BigDecimal.valueOf(100));
+        rental.setDescription("Description");
+        rental.setLatitude(latitude);
+        rental.setLongitude(longitude);
+        return rentalRepository.save(rental);
+    }
+
+    private List<String> names(List<RentalDistance> nearby) {
+        return nearby.stream()
+                .map(hit -> rentalRepository.findById(hit.getId()).orElseThrow().getName())
+                .toList();
+    }
+}
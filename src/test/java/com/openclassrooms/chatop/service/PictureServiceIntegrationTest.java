@@ -0,0 +1,80 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.model.Picture;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:picture-service;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+class PictureServiceIntegrationTest {
+
+    @Autowired
+    private PictureService pictureService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void identicalUploadIsStoredOnce() {
+        byte[] content = new byte[10_000];
+        new Random(42).nextBytes(content);
+        CountingSource first = new CountingSource(content);
+        CountingSource second = new CountingSource(content.clone());
+
+        Picture stored = store(first);
+        Picture again = store(second);
+
+        assertThat(again.getHash()).isEqualTo(stored.getHash());
+        // Read once for its hash, once for its content
+        assertThat(first.reads.get()).isEqualTo(2);
+        // Only read for its hash: its content is never loaded nor inserted
+        assertThat(second.reads.get()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pictures", Long.class)).isEqualTo(1);
+    }
+
+    private Picture store(InputStreamSource source) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            try {
+                return pictureService.store(source);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Upload counting how many times it is read.
+     */
+    private static class CountingSource implements InputStreamSource {
+        private final byte[] content;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        CountingSource(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            reads.incrementAndGet();
+            return new ByteArrayInputStream(content);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.chatop.service;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PictureServiceTest {
+
+    @Test
+    void recognizesPicturesByTheirFirstBytes() throws Exception {
+        assertThat(PictureService.isImage(new ByteArrayResource(new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}))).isTrue();
+        assertThat(PictureService.isImage(new byte[]{(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0})).isTrue();
+        assertThat(PictureService.isImage("GIF89a...".getBytes(StandardCharsets.US_ASCII))).isTrue();
+        assertThat(PictureService.isImage("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII))).isTrue();
+    }
+
+    @Test
+    void rejectsOtherContent() throws Exception {
+        assertThat(PictureService.isImage(new ByteArrayResource(new byte[0]))).isFalse();
+        assertThat(PictureService.isImage(new byte[]{(byte) 0xFF, (byte) 0xD8})).isFalse();
+        assertThat(PictureService.isImage("<svg xmlns=\"http://www.w3.org/2000/svg\"/>".getBytes(StandardCharsets.US_ASCII))).isFalse();
+        assertThat(PictureService.isImage("RIFF\0\0\0\0WAVEfmt ".getBytes(StandardCharsets.US_ASCII))).isFalse();
+        assertThat(PictureService.isImage("%PDF-1.7".getBytes(StandardCharsets.US_ASCII))).isFalse();
+    }
+}
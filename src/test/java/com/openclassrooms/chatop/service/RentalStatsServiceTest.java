@@ -0,0 +1,155 @@
+package com.openclassrooms.chatop.service;
+
+import com.openclassrooms.chatop.dto.RentalStatsDTO;
+import com.openclassrooms.chatop.model.RentalStats;
+import com.openclassrooms.chatop.repository.RentalStatsRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class RentalStatsServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private RentalStatsRepository rentalStatsRepository;
+    private RentalStatsService rentalStatsService;
+
+    @BeforeEach
+    void setUp() {
+        rentalStatsRepository = mock(RentalStatsRepository.class);
+        rentalStatsService = new RentalStatsService(rentalStatsRepository, mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void flushCreatesTheStatsRowOfANewRental() {
+        rentalStatsService.recordMessage(1L, NOW.minusHours(1));
+        rentalStatsService.recordMessage(1L, NOW);
+        rentalStatsService.recordView(1L);
+
+        rentalStatsService.flush();
+
+        ArgumentCaptor<RentalStats> saved = ArgumentCaptor.forClass(RentalStats.class);
+        verify(rentalStatsRepository).increment(1L, 2, 1, NOW);
+        verify(rentalStatsRepository).save(saved.capture());
+        assertThat(saved.getValue().getRental_id()).isEqualTo(1L);
+        assertThat(saved.getValue().getMessage_count()).isEqualTo(2);
+        assertThat(saved.getValue().getView_count()).isEqualTo(1);
+        assertThat(saved.getValue().getLast_message_at()).isEqualTo(NOW);
+    }
+
+    @Test
+    void flushAddsToAnExistingRowAndForgetsTheWrittenCounts() {
+        when(rentalStatsRepository.increment(eq(1L), anyLong(), anyLong(), any())).thenReturn(1);
+        rentalStatsService.recordView(1L);
+        rentalStatsService.recordView(1L);
+
+        rentalStatsService.flush();
+        rentalStatsService.flush();
+
+        verify(rentalStatsRepository).increment(eq(1L), eq(0L), eq(2L), isNull());
+        verify(rentalStatsRepository, never()).save(any());
+        verifyNoMoreInteractions(rentalStatsRepository);
+    }
+
+    @Test
+    void failedFlushKeepsTheCountsForTheNextOne() {
+        when(rentalStatsRepository.findById(1L)).thenReturn(Optional.empty());
+        when(rentalStatsRepository.increment(eq(1L), anyLong(), anyLong(), any()))
+                .thenThrow(new QueryTimeoutException("timeout"))
+                .thenReturn(1);
+        rentalStatsService.recordMessage(1L, NOW.minusHours(1));
+        rentalStatsService.recordView(1L);
+
+        rentalStatsService.flush();
+        rentalStatsService.recordMessage(1L, NOW);
+
+        RentalStatsDTO stats = rentalStatsService.getStats(1L);
+        assertThat(stats.getMessage_count()).isEqualTo(2);
+        assertThat(stats.getView_count()).isEqualTo(1);
+        assertThat(stats.getLast_message_at()).isEqualTo(NOW);
+
+        rentalStatsService.flush();
+        verify(rentalStatsRepository).increment(1L, 2, 1, NOW);
+    }
+
+    @Test
+    void pendingCountsAreAddedToTheStoredOnes() {
+        RentalStats stored = new RentalStats();
+        stored.setRental_id(1L);
+        stored.setMessage_count(10);
+        stored.setView_count(20);
+        stored.setLast_message_at(NOW);
+        when(rentalStatsRepository.findById(1L)).thenReturn(Optional.of(stored));
+        rentalStatsService.recordMessage(1L, NOW.minusDays(1));
+        rentalStatsService.recordView(1L);
+
+        RentalStatsDTO stats = rentalStatsService.getStats(1L);
+
+        assertThat(stats.getMessage_count()).isEqualTo(11);
+        assertThat(stats.getView_count()).isEqualTo(21);
+        assertThat(stats.getLast_message_at()).isEqualTo(NOW);
+    }
+
+    @Test
+    void eventsRecordedDuringFlushesAreNeverLost() throws Exception {
+        AtomicLong writtenMessages = new AtomicLong();
+        AtomicLong writtenViews = new AtomicLong();
+        when(rentalStatsRepository.increment(anyLong(), anyLong(), anyLong(), any())).thenAnswer(invocation -> {
+            writtenMessages.addAndGet(invocation.<Long>getArgument(1));
+            writtenViews.addAndGet(invocation.<Long>getArgument(2));
+            return 1;
+        });
+
+        int threads = 4;
+        int viewsPerThread = 20_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread writer = new Thread(() -> {
+                for (int i = 0; i < viewsPerThread; i++) {
+                    // A few rentals, so that flushes keep taking out counters being written to
+                    rentalStatsService.recordView((long) (i % 3));
+                    if (i % 2 == 0) {
+                        rentalStatsService.recordMessage((long) (i % 3), NOW);
+                    }
+                }
+                done.countDown();
+            });
+            writers.add(writer);
+            writer.start();
+        }
+
+        while (done.getCount() > 0) {
+            rentalStatsService.flush();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        rentalStatsService.flush();
+
+        assertThat(writtenViews.get()).isEqualTo((long) threads * viewsPerThread);
+        assertThat(writtenMessages.get()).isEqualTo((long) threads * viewsPerThread / 2);
+    }
+}
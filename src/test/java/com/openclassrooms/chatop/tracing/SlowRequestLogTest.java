@@ -0,0 +1,49 @@
+package com.openclassrooms.chatop.tracing;
+
+import com.openclassrooms.chatop.dto.RequestTraceDTO;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowRequestLogTest {
+
+    private static final long MILLIS = 1_000_000;
+
+    private final SlowRequestLog log = new SlowRequestLog(2, Duration.ofMinutes(1));
+
+    @Test
+    void keepsTheSlowestRequestsWithTheirStages() {
+        log.record(trace("fast", 0, 10 * MILLIS));
+        log.record(trace("slowest", 0, 300 * MILLIS));
+        log.record(trace("slow", 0, 100 * MILLIS));
+        log.record(trace("faster", 0, 5 * MILLIS));
+
+        assertThat(log.getSlowest(300 * MILLIS))
+                .extracting(RequestTraceDTO::getTrace_id)
+                .containsExactly("slowest", "slow");
+        assertThat(log.getSlowest(300 * MILLIS).get(0).getStages_ms()).containsEntry("mapping", 2.0);
+    }
+
+    @Test
+    void requestsLeaveTheLogAfterTheWindow() {
+        long later = Duration.ofMinutes(2).toNanos();
+        log.record(trace("old slow", 0, 500 * MILLIS));
+        log.record(trace("old", 0, 400 * MILLIS));
+
+        log.record(trace("recent fast", later, later + 10 * MILLIS));
+
+        assertThat(log.getSlowest(later + 10 * MILLIS))
+                .extracting(RequestTraceDTO::getTrace_id)
+                .containsExactly("recent fast");
+    }
+
+    private RequestTrace trace(String traceId, long startedNanos, long finishedNanos) {
+        RequestTrace trace = new RequestTrace(traceId, "GET", "/api/rentals", startedNanos);
+        trace.add(RequestTracing.MAPPING, 2 * MILLIS);
+        trace.finish(200, finishedNanos);
+        return trace;
+    }
+}